@@ -17,10 +17,15 @@ CREATE TABLE IF NOT EXISTS users (
 
 -- 3. CREACIÓN DE LA TABLA 'productos'
 -------------------------------------
+-- precio_centavos es el precio que usa la aplicación (S/ 35.50 → 3550).
+-- precio es el texto original: solo lo leen los datos de abajo y PrecioMigration,
+-- que lo copia a precio_centavos al arrancar; las altas nuevas no lo envían.
 CREATE TABLE IF NOT EXISTS productos (
-    id INTEGER PRIMARY KEY,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sku VARCHAR(64) UNIQUE,
     nombre VARCHAR(255) NOT NULL,
-    precio VARCHAR(50) NOT NULL,
+    precio VARCHAR(50),
+    precio_centavos BIGINT,
     imagen VARCHAR(255),
     descripcion TEXT,
     categoria VARCHAR(100),
@@ -419,4 +424,7 @@ INSERT INTO producto_caracteristicas (producto_id, nombre, valor) VALUES
 (29, 'material', 'Plastico'),
 (29, 'dimensiones', '25cm de altura x 15cm de base'),
 (29, 'instalacion', 'Enchufe a 220V'),
-(29, 'garantia', '1 año');
\ No newline at end of file
+(29, 'garantia', '1 año');
+
+-- 6. Los datos de arriba traen ids explícitos: las altas nuevas siguen desde el 30
+ALTER TABLE productos ALTER COLUMN id RESTART WITH 30;
@@ -4,6 +4,9 @@ import com.electrocyb.store.producto.ProductAdviceService;
 import com.electrocyb.store.producto.ProductAdviceService.ProductSearchResult;
 import com.electrocyb.store.producto.ProductAdviceService.SearchType;
 import com.electrocyb.store.producto.Producto;
+import com.electrocyb.store.producto.ProductoService;
+import com.electrocyb.store.producto.QueryAnalysis;
+import com.electrocyb.store.producto.search.KeywordMatcher;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -11,9 +14,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
-import java.text.Normalizer;
 import java.util.*;
-import java.util.Locale;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,15 +23,59 @@ public class ChatService {
     private final WebClient webClient;
     private final String model;
     private final ProductAdviceService productAdviceService;
+    private final ProductoService productoService;
+
+    // Máximo de "comprados juntos" que se agregan bajo la lista de productos
+    private static final int MAX_RELATED = 3;
+
+    // Grupos de palabras clave del chat (intención de producto y FAQ de negocio)
+    private enum ChatKeyword {
+        PRODUCT_INTENT,
+        PAYMENT,
+        PAGO,
+        ACEPT,
+        SHIPPING,
+        WARRANTY,
+        CAMBIO,
+        PRODUCTO
+    }
+
+    // Todas las tablas compiladas una sola vez: un mensaje se recorre una sola vez
+    private static final KeywordMatcher<ChatKeyword> CHAT_KEYWORDS = KeywordMatcher.builder(ChatKeyword.class)
+            // Claramente relacionado a productos / precios / catálogo
+            .add(ChatKeyword.PRODUCT_INTENT,
+                    "recomiendame", "recomienda", "busco", "quiero comprar",
+                    "me sirve", "que producto", "cual producto", "producto",
+                    "foco", "focos", "lampara", "lamparas", "led", "sensor",
+                    "camara", "camaras", "seguridad", "reflector",
+                    "bombilla", "spot", "dicroico", "kit solar",
+                    "tira led", "tira", "cinta led",
+                    "precio", "cuanto cuesta", "cuánto cuesta", "cuanto vale",
+                    "cuánto vale", "vale", "catalogo", "catálogo")
+            .add(ChatKeyword.PAYMENT,
+                    "metodo de pago", "metodos de pago", "forma de pago", "formas de pago",
+                    "como pago", "como puedo pagar")
+            .add(ChatKeyword.PAGO, "pago")
+            .add(ChatKeyword.ACEPT, "acept")
+            .add(ChatKeyword.SHIPPING,
+                    "envio", "envios", "entrega", "delivery", "recojo en tienda",
+                    "recoger en tienda", "envian a", "envio a domicilio", "envias a",
+                    "costo de envio")
+            .add(ChatKeyword.WARRANTY, "garantia", "garantía", "devolucion", "devolución")
+            .add(ChatKeyword.CAMBIO, "cambio")
+            .add(ChatKeyword.PRODUCTO, "producto")
+            .build();
 
     public ChatService(
             @Value("${openai.api.key}") String apiKey,
             @Value("${openai.base.url}") String baseUrl,
             @Value("${openai.model}") String model,
-            ProductAdviceService productAdviceService
+            ProductAdviceService productAdviceService,
+            ProductoService productoService
     ) {
         this.model = model;
         this.productAdviceService = productAdviceService;
+        this.productoService = productoService;
 
         this.webClient = WebClient.builder()
                 .baseUrl(baseUrl)
@@ -47,19 +92,21 @@ public class ChatService {
         }
 
         String userMessage = request.message();
-        String normalized = normalize(userMessage);
+        // El mensaje se analiza una sola vez: lo usan las FAQ y el buscador de productos
+        QueryAnalysis query = QueryAnalysis.of(userMessage);
+        long keywords = classify(query);
 
         // 1) FAQ de negocio (pagos, envíos, garantía) → respuesta fija
-        String faqAnswer = handleBusinessFaq(normalized);
+        String faqAnswer = handleBusinessFaq(keywords);
         if (faqAnswer != null) {
             return faqAnswer;
         }
 
         // 2) Búsqueda en catálogo SIEMPRE
-        ProductSearchResult searchResult = productAdviceService.findProductsForMessage(userMessage);
+        ProductSearchResult searchResult = productAdviceService.findProductsForMessage(query);
 
         // ¿parece consulta de producto por palabras clave?
-        Intent intent = detectIntent(normalized);
+        Intent intent = detectIntent(keywords);
         boolean looksLikeProductByKeywords = (intent == Intent.PRODUCT_INFO);
 
         // ¿parece consulta de producto porque la búsqueda encontró algo contundente?
@@ -106,7 +153,7 @@ public class ChatService {
         List<Producto> productos = result.products();
         if (productos == null || productos.isEmpty()) {
             // aquí se usa el mensaje inteligente de follow-up
-            return productAdviceService.buildProductSuggestionText(userMessage);
+            return productAdviceService.buildProductSuggestionText(result);
         }
 
         // 1) Intro corta generada por IA
@@ -123,9 +170,21 @@ public class ChatService {
                 .map(productAdviceService::formatProductLine)
                 .collect(Collectors.joining("\n"));
 
+        // 3) "Comprados juntos" (no para el catálogo completo, que ya es una lista larga)
+        String relacionados = "";
+        if (result.type() != SearchType.CATALOG_REQUEST) {
+            List<Producto> related = productoService.relacionadosDe(
+                    productos.stream().map(Producto::getId).toList(), MAX_RELATED);
+            if (!related.isEmpty()) {
+                relacionados = "\n\nOtros clientes también llevaron:\n" + related.stream()
+                        .map(productAdviceService::formatProductLine)
+                        .collect(Collectors.joining("\n"));
+            }
+        }
+
         String footer = "\n\nSi quieres más detalles de uno de ellos, dime el nombre o haz clic en la tarjeta.";
 
-        return intro + "\n\n" + lista + footer;
+        return intro + "\n\n" + lista + relacionados + footer;
     }
 
     private String callOpenAIIntroForProducts(String userMessage, ProductSearchResult result) {
@@ -290,34 +349,25 @@ public class ChatService {
     // INTENTOS y FAQ
     // ==========================================================
 
-    private Intent detectIntent(String normalizedMsg) {
-        String t = normalizedMsg;
-
-        // Claramente relacionado a productos / precios / catálogo
-        if (t.contains("recomiendame") || t.contains("recomienda")
-                || t.contains("busco") || t.contains("quiero comprar")
-                || t.contains("me sirve") || t.contains("que producto")
-                || t.contains("cual producto") || t.contains("producto")
-                || t.contains("foco") || t.contains("focos")
-                || t.contains("lampara") || t.contains("lamparas")
-                || t.contains("led") || t.contains("sensor")
-                || t.contains("camara") || t.contains("camaras")
-                || t.contains("seguridad") || t.contains("reflector")
-                || t.contains("bombilla") || t.contains("spot")
-                || t.contains("dicroico") || t.contains("kit solar")
-                || t.contains("tira led") || t.contains("tira") || t.contains("cinta led")
-                || t.contains("precio") || t.contains("cuanto cuesta")
-                || t.contains("cuánto cuesta") || t.contains("cuanto vale")
-                || t.contains("cuánto vale") || t.contains("vale")
-                || t.contains("catalogo") || t.contains("catálogo")) {
+    // Grupos de palabras clave del mensaje (una sola pasada sobre el texto normalizado)
+    long classify(String userMessage) {
+        return classify(QueryAnalysis.of(userMessage));
+    }
+
+    long classify(QueryAnalysis query) {
+        return CHAT_KEYWORDS.matchMask(query.normalized());
+    }
+
+    Intent detectIntent(long keywords) {
+        if (KeywordMatcher.has(keywords, ChatKeyword.PRODUCT_INTENT)) {
             return Intent.PRODUCT_INFO;
         }
 
         return Intent.GENERAL;
     }
 
-    private String handleBusinessFaq(String normalizedMsg) {
-        if (isPaymentQuestion(normalizedMsg)) {
+    String handleBusinessFaq(long keywords) {
+        if (isPaymentQuestion(keywords)) {
             return """
                     Actualmente aceptamos pagos únicamente por Yape.
                     
@@ -326,7 +376,7 @@ public class ChatService {
                     """.trim();
         }
 
-        if (isShippingQuestion(normalizedMsg)) {
+        if (isShippingQuestion(keywords)) {
             return """
                     Estos son nuestros métodos de entrega:
                     
@@ -338,7 +388,7 @@ public class ChatService {
                     """.trim();
         }
 
-        if (isWarrantyQuestion(normalizedMsg)) {
+        if (isWarrantyQuestion(keywords)) {
             return """
                     La garantía depende del producto específico.
                     
@@ -351,45 +401,21 @@ public class ChatService {
         return null;
     }
 
-    private boolean isPaymentQuestion(String normalizedMsg) {
-        return (normalizedMsg.contains("metodo de pago") ||
-                normalizedMsg.contains("metodos de pago") ||
-                normalizedMsg.contains("forma de pago") ||
-                normalizedMsg.contains("formas de pago") ||
-                normalizedMsg.contains("como pago") ||
-                normalizedMsg.contains("como puedo pagar") ||
-                (normalizedMsg.contains("pago") && normalizedMsg.contains("acept")));
-    }
-
-    private boolean isShippingQuestion(String normalizedMsg) {
-        return (normalizedMsg.contains("envio") ||
-                normalizedMsg.contains("envios") ||
-                normalizedMsg.contains("entrega") ||
-                normalizedMsg.contains("delivery") ||
-                normalizedMsg.contains("recojo en tienda") ||
-                normalizedMsg.contains("recoger en tienda") ||
-                normalizedMsg.contains("envian a") ||
-                normalizedMsg.contains("envio a domicilio") ||
-                normalizedMsg.contains("envias a") ||
-                normalizedMsg.contains("costo de envio"));
+    private boolean isPaymentQuestion(long keywords) {
+        return KeywordMatcher.has(keywords, ChatKeyword.PAYMENT)
+                || (KeywordMatcher.has(keywords, ChatKeyword.PAGO) && KeywordMatcher.has(keywords, ChatKeyword.ACEPT));
     }
 
-    private boolean isWarrantyQuestion(String normalizedMsg) {
-        return (normalizedMsg.contains("garantia") ||
-                normalizedMsg.contains("garantía") ||
-                (normalizedMsg.contains("cambio") && normalizedMsg.contains("producto")) ||
-                normalizedMsg.contains("devolucion") ||
-                normalizedMsg.contains("devolución"));
+    private boolean isShippingQuestion(long keywords) {
+        return KeywordMatcher.has(keywords, ChatKeyword.SHIPPING);
     }
 
-    private String normalize(String input) {
-        if (input == null) return "";
-        String lower = input.toLowerCase(Locale.ROOT);
-        String normalized = Normalizer.normalize(lower, Normalizer.Form.NFD);
-        return normalized.replaceAll("\\p{M}", "");
+    private boolean isWarrantyQuestion(long keywords) {
+        return KeywordMatcher.has(keywords, ChatKeyword.WARRANTY)
+                || (KeywordMatcher.has(keywords, ChatKeyword.CAMBIO) && KeywordMatcher.has(keywords, ChatKeyword.PRODUCTO));
     }
 
-    private enum Intent {
+    enum Intent {
         GENERAL,
         PRODUCT_INFO
     }
@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.net.URI;
 
 @Service
 @Slf4j
@@ -28,9 +29,13 @@ public class EmailService {
     @Value("${app.frontend.base-url}")
     private String frontendBaseUrl;
 
-    // Inyectamos la API key de SendGrid desde application.properties / env
-    public EmailService(@Value("${sendgrid.api-key}") String apiKey) {
-        this.sendGrid = new SendGrid(apiKey);
+    // Inyectamos la API key de SendGrid desde application.properties / env.
+    // base-url solo cambia en pruebas (un SendGrid falso local, por http)
+    public EmailService(@Value("${sendgrid.api-key}") String apiKey,
+                        @Value("${sendgrid.base-url:https://api.sendgrid.com}") String baseUrl) {
+        URI uri = URI.create(baseUrl);
+        this.sendGrid = new SendGrid(apiKey, "http".equalsIgnoreCase(uri.getScheme()));
+        this.sendGrid.setHost(uri.getAuthority());
     }
 
     // =====================================
@@ -68,8 +73,16 @@ public class EmailService {
     // CORREO DE CONFIRMACIÓN DE PEDIDO
     // =====================================
     public void sendOrderConfirmation(Pedido pedido) throws MessagingException {
+        EmailRequest req = buildOrderConfirmation(pedido);
+        if (req != null) {
+            sendHtmlEmail(req);
+        }
+    }
+
+    // Arma el correo sin enviarlo (para la bandeja de salida); null si el cliente no tiene email
+    public EmailRequest buildOrderConfirmation(Pedido pedido) {
         if (pedido.getCliente() == null || pedido.getCliente().getEmail() == null) {
-            return;
+            return null;
         }
 
         String html = buildOrderHtml(
@@ -78,21 +91,27 @@ public class EmailService {
                 "Hemos recibido tu pedido y lo estamos procesando."
         );
 
-        EmailRequest req = new EmailRequest(
+        return new EmailRequest(
                 pedido.getCliente().getEmail(),
                 "Confirmación de tu pedido " + pedido.getNumeroPedido(),
                 html
         );
-
-        sendHtmlEmail(req);
     }
 
     // =====================================
     // CORREO DE PEDIDO ENTREGADO
     // =====================================
     public void sendOrderDeliveredEmail(Pedido pedido) throws MessagingException {
+        EmailRequest req = buildOrderDeliveredEmail(pedido);
+        if (req != null) {
+            sendHtmlEmail(req);
+        }
+    }
+
+    // Arma el correo sin enviarlo (para la bandeja de salida); null si el cliente no tiene email
+    public EmailRequest buildOrderDeliveredEmail(Pedido pedido) {
         if (pedido.getCliente() == null || pedido.getCliente().getEmail() == null) {
-            return;
+            return null;
         }
 
         String html = buildOrderHtml(
@@ -101,13 +120,11 @@ public class EmailService {
                 "Tu pedido ha sido entregado correctamente. ¡Esperamos que disfrutes tu compra!"
         );
 
-        EmailRequest req = new EmailRequest(
+        return new EmailRequest(
                 pedido.getCliente().getEmail(),
                 "Tu pedido " + pedido.getNumeroPedido() + " ha sido ENTREGADO",
                 html
         );
-
-        sendHtmlEmail(req);
     }
 
     // =====================================
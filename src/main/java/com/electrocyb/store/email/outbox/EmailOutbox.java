@@ -0,0 +1,247 @@
+package com.electrocyb.store.email.outbox;
+
+import com.electrocyb.store.email.EmailRequest;
+import com.electrocyb.store.email.EmailService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bandeja de salida de correos (patrón outbox).
+ *
+ * {@link #encolar} inserta el correo en email_outbox dentro de la transacción de quien
+ * llama: si el pedido hace rollback, el correo tampoco existe, y el request responde
+ * sin esperar a SendGrid. Un hilo propio revisa la tabla cada
+ * {@code app.outbox.poll-interval} (y apenas hay commit de algo encolado) y envía.
+ *
+ * Cada vuelta toma un lote con FOR UPDATE SKIP LOCKED y lo "reserva" moviendo su
+ * próximo intento {@value #RESERVA_MINUTOS} minutos: así varias instancias no toman
+ * los mismos correos y las llamadas HTTP se hacen sin locks ni transacción abierta.
+ * Si el proceso muere a mitad, la reserva vence y el correo se reintenta (al menos
+ * una vez). Los envíos fallidos se reintentan con espera exponencial hasta
+ * {@code app.outbox.max-attempts}; después quedan FALLIDO con el último error.
+ */
+@Slf4j
+@Component
+public class EmailOutbox {
+
+    static final int RESERVA_MINUTOS = 5;
+    private static final Duration PRIMERA_ESPERA = Duration.ofSeconds(30);
+    private static final Duration ESPERA_MAXIMA = Duration.ofHours(1);
+    private static final int MAX_ERROR = 1000;
+
+    private static final String INSERTAR = """
+            INSERT INTO email_outbox (tipo, referencia, destinatario, asunto, html, estado, intentos, proximo_intento, creado)
+            VALUES (?, ?, ?, ?, ?, 'PENDIENTE', 0, ?, ?)
+            """;
+
+    private static final String TOMAR = """
+            SELECT id, destinatario, asunto, html, intentos
+            FROM email_outbox
+            WHERE estado = 'PENDIENTE' AND proximo_intento <= ?
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String RESERVAR = "UPDATE email_outbox SET proximo_intento = ? WHERE id = ?";
+
+    private static final String ENVIADO = """
+            UPDATE email_outbox SET estado = 'ENVIADO', intentos = intentos + 1, enviado = ?, ultimo_error = NULL
+            WHERE id = ?
+            """;
+
+    private static final String FALLO = """
+            UPDATE email_outbox SET estado = ?, intentos = ?, proximo_intento = ?, ultimo_error = ?
+            WHERE id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmailService emailService;
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final int maxAttempts;
+    private ScheduledExecutorService scheduler;
+
+    public EmailOutbox(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            EmailService emailService,
+            @Value("${app.outbox.enabled:true}") boolean enabled,
+            @Value("${app.outbox.poll-interval:2s}") Duration pollInterval,
+            @Value("${app.outbox.batch-size:20}") int batchSize,
+            @Value("${app.outbox.max-attempts:8}") int maxAttempts
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.emailService = emailService;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    // Arranca cuando Hibernate ya creó la tabla
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onApplicationReady() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "email-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1, pollInterval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::tick, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Encola un correo en la transacción actual. Sin correo (cliente sin email) no hace nada.
+     */
+    public void encolar(String tipo, String referencia, EmailRequest correo) {
+        if (correo == null || correo.to() == null || correo.to().isBlank()) {
+            return;
+        }
+        Timestamp ahora = Timestamp.from(Instant.now());
+        jdbcTemplate.update(INSERTAR, tipo, referencia, correo.to(), correo.subject(), correo.html(), ahora, ahora);
+
+        // Sin esperar a la próxima vuelta: se envía apenas el pedido quede confirmado
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    avisar();
+                }
+            });
+        } else {
+            avisar();
+        }
+    }
+
+    /**
+     * Envía lo que esté pendiente, de a un lote por vez, hasta vaciar la cola.
+     *
+     * @return correos enviados
+     */
+    public int despacharTodo() {
+        int enviados = 0;
+        Resultado lote;
+        do {
+            lote = despachar(Instant.now());
+            enviados += lote.enviados();
+        } while (lote.tomados() == batchSize);
+        return enviados;
+    }
+
+    /**
+     * Una vuelta: toma hasta un lote de correos vencidos a {@code ahora} y los envía.
+     */
+    Resultado despachar(Instant ahora) {
+        List<Pendiente> lote = transactionTemplate.execute(status -> {
+            List<Pendiente> tomados = jdbcTemplate.query(TOMAR,
+                    (rs, i) -> new Pendiente(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5)),
+                    Timestamp.from(ahora), batchSize);
+            Timestamp reserva = Timestamp.from(ahora.plus(Duration.ofMinutes(RESERVA_MINUTOS)));
+            jdbcTemplate.batchUpdate(RESERVAR, tomados, tomados.size(), (ps, p) -> {
+                ps.setTimestamp(1, reserva);
+                ps.setLong(2, p.id());
+            });
+            return tomados;
+        });
+        if (lote == null || lote.isEmpty()) {
+            return new Resultado(0, 0);
+        }
+
+        List<Long> enviados = new ArrayList<>();
+        List<Object[]> fallos = new ArrayList<>();
+        for (Pendiente p : lote) {
+            try {
+                emailService.sendHtmlEmail(new EmailRequest(p.destinatario(), p.asunto(), p.html()));
+                enviados.add(p.id());
+            } catch (Exception e) {
+                int intentos = p.intentos() + 1;
+                boolean agotado = intentos >= maxAttempts;
+                log.warn("Correo {} a {} falló (intento {}/{}): {}", p.id(), p.destinatario(), intentos, maxAttempts,
+                        e.getMessage());
+                fallos.add(new Object[]{
+                        (agotado ? OutboxEmail.Estado.FALLIDO : OutboxEmail.Estado.PENDIENTE).name(),
+                        intentos,
+                        Timestamp.from(ahora.plus(espera(intentos))),
+                        recortar(e.getMessage()),
+                        p.id()
+                });
+            }
+        }
+
+        Timestamp enviado = Timestamp.from(Instant.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(ENVIADO, enviados, enviados.size(), (ps, id) -> {
+                ps.setTimestamp(1, enviado);
+                ps.setLong(2, id);
+            });
+            jdbcTemplate.batchUpdate(FALLO, fallos);
+        });
+        return new Resultado(lote.size(), enviados.size());
+    }
+
+    // 30 s, 1 min, 2 min, 4 min... hasta 1 h
+    static Duration espera(int intentos) {
+        int exponente = Math.min(Math.max(intentos - 1, 0), 16);
+        Duration espera = PRIMERA_ESPERA.multipliedBy(1L << exponente);
+        return espera.compareTo(ESPERA_MAXIMA) > 0 ? ESPERA_MAXIMA : espera;
+    }
+
+    private synchronized void avisar() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.execute(this::tick);
+        }
+    }
+
+    private void tick() {
+        try {
+            despacharTodo();
+        } catch (RuntimeException e) {
+            log.warn("Bandeja de salida: error al despachar", e);
+        }
+    }
+
+    private static String recortar(String mensaje) {
+        if (mensaje == null) {
+            return null;
+        }
+        return mensaje.length() <= MAX_ERROR ? mensaje : mensaje.substring(0, MAX_ERROR);
+    }
+
+    record Resultado(int tomados, int enviados) {
+    }
+
+    private record Pendiente(long id, String destinatario, String asunto, String html, int intentos) {
+    }
+}
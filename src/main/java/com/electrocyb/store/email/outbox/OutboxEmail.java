@@ -0,0 +1,60 @@
+package com.electrocyb.store.email.outbox;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Correo pendiente en la bandeja de salida (tabla email_outbox).
+ *
+ * Se inserta en la misma transacción que el cambio que lo origina (pedido creado,
+ * pedido entregado), con el HTML ya armado, y lo envía {@link EmailOutbox} después.
+ * Esta entidad solo define la tabla (ddl-auto); se lee y escribe con JdbcTemplate.
+ */
+@Entity
+@Table(name = "email_outbox")
+@Getter
+@Setter
+public class OutboxEmail {
+
+    public enum Estado { PENDIENTE, ENVIADO, FALLIDO }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Qué lo originó (PEDIDO_CONFIRMADO, PEDIDO_ENTREGADO) y a qué pedido se refiere
+    @Column(nullable = false, length = 40)
+    private String tipo;
+
+    @Column(length = 50)
+    private String referencia;
+
+    @Column(nullable = false)
+    private String destinatario;
+
+    @Column(nullable = false)
+    private String asunto;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String html;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Estado estado;
+
+    private int intentos;
+
+    // Cuándo puede tomarlo el despachador (reintentos con espera creciente)
+    @Column(nullable = false)
+    private Instant proximoIntento;
+
+    private Instant creado;
+
+    private Instant enviado;
+
+    @Column(length = 1000)
+    private String ultimoError;
+}
@@ -0,0 +1,121 @@
+package com.electrocyb.store.exportacion;
+
+import com.electrocyb.store.producto.Precio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Exporta el catálogo completo (con características) directo a la respuesta.
+ *
+ * Una sola consulta productos ⟕ características ordenada por id, leída con cursor:
+ * en memoria hay a lo más un producto a la vez, sin importar el tamaño de la tabla.
+ * El CSV usa las mismas columnas que la carga masiva, así que se puede editar y reimportar.
+ */
+@Service
+public class CatalogExporter {
+
+    private static final String PRODUCTOS_SQL = """
+            SELECT p.id, p.sku, p.nombre, p.categoria, p.descripcion, p.imagen, p.precio_centavos, p.stock,
+                   c.nombre, c.valor
+            FROM productos p
+            LEFT JOIN producto_caracteristicas c ON c.producto_id = p.id
+            ORDER BY p.id, c.nombre
+            """;
+
+    private static final Object[] CABECERA = {
+            "id", "sku", "nombre", "categoria", "descripcion", "imagen", "precio", "stock", "caracteristicas"};
+
+    // Línea del NDJSON (mismo formato que acepta la carga masiva)
+    record ProductoExportado(Long id, String sku, String nombre, String categoria, String descripcion,
+                             String imagen, String precio, Integer stock, Map<String, String> caracteristicas) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public CatalogExporter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe todos los productos en {@code out}; devuelve cuántos.
+     */
+    @Transactional(readOnly = true)
+    public int exportar(ExportFormat formato, OutputStream out) throws IOException {
+        try (ExportSink<ProductoExportado> sink = formato == ExportFormat.CSV
+                ? ExportSink.csv(out, CABECERA, CatalogExporter::csvRow)
+                : ExportSink.ndjson(out, objectMapper)) {
+            ProductRows rows = new ProductRows(sink);
+            try {
+                jdbcTemplate.query(JdbcCursor.forwardOnly(PRODUCTOS_SQL), rows);
+                rows.emit();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return rows.count;
+        }
+    }
+
+    private static Object[] csvRow(ProductoExportado p) {
+        String caracteristicas = p.caracteristicas().entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(";"));
+        return new Object[]{p.id(), p.sku(), p.nombre(), p.categoria(), p.descripcion(), p.imagen(),
+                p.precio(), p.stock(), caracteristicas};
+    }
+
+    // Filas ordenadas por producto: junta sus características y lo escribe al cambiar de producto
+    private static final class ProductRows implements RowCallbackHandler {
+        private final ExportSink<ProductoExportado> sink;
+        private ResultSetRow current;
+        private Map<String, String> caracteristicas = new LinkedHashMap<>();
+        private int count;
+
+        private record ResultSetRow(Long id, String sku, String nombre, String categoria, String descripcion,
+                                    String imagen, Long precioCentavos, Integer stock) {
+        }
+
+        ProductRows(ExportSink<ProductoExportado> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            if (current == null || current.id() != id) {
+                emit();
+                current = new ResultSetRow(id, rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getString(5), rs.getString(6), rs.getObject(7, Long.class), rs.getObject(8, Integer.class));
+            }
+            String clave = rs.getString(9);
+            if (clave != null) {
+                caracteristicas.put(clave, rs.getString(10));
+            }
+        }
+
+        void emit() {
+            if (current == null) {
+                return;
+            }
+            sink.write(new ProductoExportado(current.id(), current.sku(), current.nombre(), current.categoria(),
+                    current.descripcion(), current.imagen(), Precio.format(current.precioCentavos()),
+                    current.stock(), caracteristicas));
+            count++;
+            current = null;
+            caracteristicas = new LinkedHashMap<>();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.electrocyb.store.exportacion;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escribe filas CSV (RFC 4180) directo al Writer, sin armar el archivo en memoria.
+ * Los campos con separador, comillas o saltos de línea van entre comillas.
+ */
+final class CsvWriter {
+
+    private final Writer out;
+
+    CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    void row(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.write(',');
+            if (values[i] != null) field(values[i].toString());
+        }
+        out.write("\r\n");
+    }
+
+    private void field(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
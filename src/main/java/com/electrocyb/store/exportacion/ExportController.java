@@ -0,0 +1,57 @@
+package com.electrocyb.store.exportacion;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Exportaciones del panel admin. Se escriben directo en la respuesta mientras se leen
+ * de la base (sin listas intermedias), así el uso de memoria no crece con las tablas.
+ */
+@RestController
+@RequestMapping("/api/admin/exportar")
+@CrossOrigin
+public class ExportController {
+
+    private final CatalogExporter catalogExporter;
+    private final PedidoExporter pedidoExporter;
+
+    public ExportController(CatalogExporter catalogExporter, PedidoExporter pedidoExporter) {
+        this.catalogExporter = catalogExporter;
+        this.pedidoExporter = pedidoExporter;
+    }
+
+    // GET /api/admin/exportar/productos?formato=ndjson|csv  → catálogo con características (ADMIN)
+    @GetMapping("/productos")
+    public void productos(
+            @RequestParam(value = "formato", required = false) String formato,
+            HttpServletResponse response
+    ) throws IOException {
+        ExportFormat format = ExportFormat.resolver(formato);
+        prepare(response, format, "productos");
+        catalogExporter.exportar(format, response.getOutputStream());
+    }
+
+    // GET /api/admin/exportar/pedidos?formato=ndjson|csv  → pedidos con ítems (ADMIN)
+    @GetMapping("/pedidos")
+    public void pedidos(
+            @RequestParam(value = "formato", required = false) String formato,
+            HttpServletResponse response
+    ) throws IOException {
+        ExportFormat format = ExportFormat.resolver(formato);
+        prepare(response, format, "pedidos");
+        pedidoExporter.exportar(format, response.getOutputStream());
+    }
+
+    private static void prepare(HttpServletResponse response, ExportFormat format, String nombre) {
+        response.setContentType(format.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(nombre + "-" + LocalDate.now() + "." + format.extension())
+                .build()
+                .toString());
+    }
+}
@@ -0,0 +1,42 @@
+package com.electrocyb.store.exportacion;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+/**
+ * Formatos de exportación: un objeto JSON por línea o CSV con cabecera.
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv; charset=UTF-8", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    // ?formato=ndjson|jsonl|csv (por defecto ndjson)
+    public static ExportFormat resolver(String formato) {
+        if (formato == null || formato.isBlank()) {
+            return NDJSON;
+        }
+        return switch (formato.trim().toLowerCase(Locale.ROOT)) {
+            case "ndjson", "jsonl" -> NDJSON;
+            case "csv" -> CSV;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato no soportado: " + formato);
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.electrocyb.store.exportacion;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Destino de una exportación: escribe un registro a la vez sobre la respuesta, con un
+ * buffer fijo. {@link #close()} vacía el buffer pero no cierra la respuesta.
+ * Los errores de escritura salen como {@link UncheckedIOException} (se escribe desde
+ * callbacks de JDBC, que no admiten IOException).
+ */
+interface ExportSink<T> extends Closeable {
+
+    int BUFFER = 64 * 1024;
+
+    void write(T value);
+
+    // Un objeto JSON por línea, serializado con el ObjectMapper de la app (fechas ISO, etc.)
+    static <T> ExportSink<T> ndjson(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.setRootValueSeparator(null);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Sin flush por registro: el buffer se vacía solo cuando se llena
+        ObjectWriter objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return new ExportSink<>() {
+            @Override
+            public void write(T value) {
+                try {
+                    objectWriter.writeValue(generator, value);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                generator.flush();
+            }
+        };
+    }
+
+    // CSV con cabecera; {@code row} da los valores de cada registro en el orden de la cabecera
+    static <T> ExportSink<T> csv(OutputStream out, Object[] header, Function<T, Object[]> row) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER);
+        CsvWriter csv = new CsvWriter(writer);
+        csv.row(header);
+        return new ExportSink<>() {
+            @Override
+            public void write(T value) {
+                try {
+                    csv.row(row.apply(value));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package com.electrocyb.store.exportacion;
+
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Consultas de exportación: cursor de solo avance que trae {@link #FETCH_SIZE} filas por viaje.
+ * En PostgreSQL el driver solo usa el cursor dentro de una transacción (autocommit apagado);
+ * fuera de ella traería todo el resultado de golpe.
+ */
+final class JdbcCursor {
+
+    static final int FETCH_SIZE = 500;
+
+    private JdbcCursor() {
+    }
+
+    static PreparedStatementCreator forwardOnly(String sql) {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        };
+    }
+}
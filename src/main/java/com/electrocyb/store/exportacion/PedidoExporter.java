@@ -0,0 +1,151 @@
+package com.electrocyb.store.exportacion;
+
+import com.electrocyb.store.pedido.dto.ClienteDto;
+import com.electrocyb.store.pedido.dto.OrderItemDto;
+import com.electrocyb.store.producto.Precio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exporta todos los pedidos con sus ítems directo a la respuesta.
+ *
+ * Una sola consulta pedidos ⟕ order_items ordenada por pedido, leída con cursor:
+ * en memoria hay un pedido a la vez. En NDJSON cada línea es un pedido con sus
+ * ítems; en CSV cada línea es un ítem con los datos de su pedido (una línea sin
+ * ítem si el pedido no tiene ninguno). El historial de estados no se exporta.
+ */
+@Service
+public class PedidoExporter {
+
+    private static final String PEDIDOS_SQL = """
+            SELECT p.id, p.numero_pedido, p.fecha, p.estado, p.subtotal, p.costo_envio, p.total, p.email_usuario,
+                   p.nombre, p.email, p.telefono, p.direccion, p.referencia,
+                   oi.id, oi.producto_id, oi.nombre, oi.precio_centavos, oi.imagen, oi.cantidad
+            FROM pedidos p
+            LEFT JOIN order_items oi ON oi.pedido_id = p.id
+            ORDER BY p.id, oi.id
+            """;
+
+    private static final Object[] CABECERA = {
+            "numeroPedido", "fecha", "estado", "subtotal", "costoEnvio", "total", "emailUsuario",
+            "clienteNombre", "clienteEmail", "clienteTelefono", "clienteDireccion", "clienteReferencia",
+            "productoId", "producto", "precio", "cantidad"};
+
+    // Línea del NDJSON
+    record PedidoExportado(Long id, String numeroPedido, Instant fecha, String estado, Double subtotal,
+                           Double costoEnvio, Double total, String emailUsuario, ClienteDto cliente,
+                           List<OrderItemDto> items) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public PedidoExporter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe todos los pedidos en {@code out}; devuelve cuántos.
+     */
+    @Transactional(readOnly = true)
+    public int exportar(ExportFormat formato, OutputStream out) throws IOException {
+        try (ExportSink<PedidoExportado> sink = formato == ExportFormat.CSV
+                ? csv(out)
+                : ExportSink.ndjson(out, objectMapper)) {
+            OrderRows rows = new OrderRows(sink);
+            try {
+                jdbcTemplate.query(JdbcCursor.forwardOnly(PEDIDOS_SQL), rows);
+                rows.emit();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return rows.count;
+        }
+    }
+
+    // Un pedido → una línea por ítem
+    private static ExportSink<PedidoExportado> csv(OutputStream out) throws IOException {
+        ExportSink<Object[]> lines = ExportSink.csv(out, CABECERA, line -> line);
+        return new ExportSink<>() {
+            @Override
+            public void write(PedidoExportado p) {
+                ClienteDto c = p.cliente();
+                List<OrderItemDto> items = p.items().isEmpty()
+                        ? Collections.singletonList(null)
+                        : p.items();
+                for (OrderItemDto item : items) {
+                    lines.write(new Object[]{
+                            p.numeroPedido(), p.fecha(), p.estado(), p.subtotal(), p.costoEnvio(), p.total(),
+                            p.emailUsuario(), c.nombre(), c.email(), c.telefono(), c.direccion(), c.referencia(),
+                            item == null ? null : item.productoId(),
+                            item == null ? null : item.nombre(),
+                            item == null ? null : item.precio(),
+                            item == null ? null : item.cantidad()});
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                lines.close();
+            }
+        };
+    }
+
+    // Filas ordenadas por pedido: junta sus ítems y lo escribe al cambiar de pedido
+    private static final class OrderRows implements RowCallbackHandler {
+        private final ExportSink<PedidoExportado> sink;
+        private PedidoExportado current;
+        // Ítems del pedido actual (la misma lista que tiene current)
+        private List<OrderItemDto> items = new ArrayList<>();
+        private int count;
+
+        OrderRows(ExportSink<PedidoExportado> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            if (current == null || current.id() != id) {
+                emit();
+                Timestamp fecha = rs.getTimestamp(3);
+                current = new PedidoExportado(id, rs.getString(2), fecha == null ? null : fecha.toInstant(),
+                        rs.getString(4), rs.getObject(5, Double.class), rs.getObject(6, Double.class),
+                        rs.getObject(7, Double.class), rs.getString(8),
+                        new ClienteDto(rs.getString(9), rs.getString(10), rs.getString(11),
+                                rs.getString(12), rs.getString(13)),
+                        items);
+            }
+            // Sin ítems el LEFT JOIN trae una fila con oi.id nulo
+            if (rs.getObject(14) != null) {
+                items.add(new OrderItemDto(rs.getObject(15, Long.class), rs.getString(16),
+                        Precio.format(rs.getObject(17, Long.class)), rs.getString(18), rs.getObject(19, Integer.class)));
+            }
+        }
+
+        void emit() {
+            if (current == null) {
+                return;
+            }
+            sink.write(current);
+            count++;
+            current = null;
+            items = new ArrayList<>();
+        }
+    }
+}
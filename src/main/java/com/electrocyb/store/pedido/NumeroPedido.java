@@ -0,0 +1,45 @@
+package com.electrocyb.store.pedido;
+
+import org.hibernate.annotations.ValueGenerationType;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.EnumSet;
+
+/**
+ * Código público del pedido (EC-000001), derivado del id.
+ *
+ * Hibernate lo calcula al armar el INSERT, cuando el id ya salió de la secuencia:
+ * el pedido se guarda en una sola sentencia, sin un UPDATE posterior para el número.
+ */
+@ValueGenerationType(generatedBy = NumeroPedido.Generator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface NumeroPedido {
+
+    class Generator implements BeforeExecutionGenerator {
+
+        private static final long serialVersionUID = 1L;
+
+        public static String codigo(Long id) {
+            return "EC-" + String.format("%06d", id);
+        }
+
+        @Override
+        public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                               EventType eventType) {
+            return currentValue != null ? currentValue : codigo(((Pedido) owner).getId());
+        }
+
+        @Override
+        public EnumSet<EventType> getEventTypes() {
+            return EventTypeSets.INSERT_ONLY;
+        }
+    }
+}
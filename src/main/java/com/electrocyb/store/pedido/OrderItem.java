@@ -1,5 +1,6 @@
 package com.electrocyb.store.pedido;
 
+import com.electrocyb.store.producto.Precio;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -11,16 +12,27 @@ import lombok.Setter;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     private Long productoId;
     private String nombre;
-    private String precio;   // string tipo "35.00"
+    @Column(name = "precio_centavos")
+    private Long precioCentavos;   // 3500 = S/ 35.00
     private String imagen;
     private Integer cantidad;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pedido_id")
     private Pedido pedido;
+
+    // Texto tipo "35.00", como lo envía y lo muestra el frontend
+    public String getPrecio() {
+        return Precio.format(precioCentavos);
+    }
+
+    public void setPrecio(String precio) {
+        this.precioCentavos = Precio.parseCentavos(precio);
+    }
 }
\ No newline at end of file
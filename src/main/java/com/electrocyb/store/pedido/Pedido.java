@@ -14,11 +14,14 @@ import java.util.List;
 @Setter
 public class Pedido {
 
+    // Ids de una secuencia en bloques de 50: se conocen antes del INSERT y los inserts van en lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedidos_seq")
+    @SequenceGenerator(name = "pedidos_seq", sequenceName = "pedidos_seq", allocationSize = 50)
     private Long id;
 
-    // Código público tipo EC-000001
+    // Código público tipo EC-000001 (se genera en el INSERT a partir del id)
+    @NumeroPedido
     @Column(unique = true, nullable = true, length = 50)
     private String numeroPedido;
 
@@ -0,0 +1,65 @@
+package com.electrocyb.store.pedido;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Pedido y OrderItem pasaron de IDENTITY a secuencias con bloques de 50
+ * (pedidos_seq, order_items_seq). En una base con pedidos, la secuencia nueva
+ * empezaría en 1 y chocaría con los ids existentes: aquí se crea si falta y se
+ * adelanta hasta el id más alto de su tabla.
+ *
+ * Corre al crear el bean, antes de que el servidor acepte pedidos, y es idempotente:
+ * nunca retrocede una secuencia. Las columnas id siguen siendo identity "by default",
+ * así que aceptan los ids que manda Hibernate.
+ */
+@Slf4j
+@Component
+public class PedidoSecuenciaMigration {
+
+    // Secuencia → tabla; el incremento tiene que ser el allocationSize de la entidad
+    private static final Map<String, String> SECUENCIAS = Map.of(
+            "pedidos_seq", "pedidos",
+            "order_items_seq", "order_items");
+
+    private static final int INCREMENTO = 50;
+
+    private static final String TABLA_EXISTE = "SELECT to_regclass(?) IS NOT NULL";
+
+    // Con is_called = true, el próximo nextval es max(id) + 50: el bloque que reserva Hibernate empieza en max(id) + 1.
+    // Una secuencia recién creada tiene last_value = 1 e is_called = false (su nextval devolvería 1), así que
+    // last_value solo cuenta como ya entregado si is_called; greatest evita retroceder una secuencia adelantada.
+    private static final String ADELANTAR = """
+            SELECT setval('%1$s', greatest(t.max_id, s.last_value))
+            FROM (SELECT max(id) AS max_id FROM %2$s) t, %1$s s
+            WHERE t.max_id IS NOT NULL
+              AND (NOT s.is_called OR t.max_id > s.last_value)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PedidoSecuenciaMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrar() {
+        SECUENCIAS.forEach((secuencia, tabla) -> {
+            try {
+                jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + secuencia + " START WITH 1 INCREMENT BY " + INCREMENTO);
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(TABLA_EXISTE, Boolean.class, tabla))) {
+                    return;
+                }
+                jdbcTemplate.query(ADELANTAR.formatted(secuencia, tabla), rs -> {
+                    log.info("Secuencia {} adelantada hasta el id {} de {}", secuencia, rs.getLong(1), tabla);
+                });
+            } catch (Exception e) {
+                log.warn("No se pudo preparar la secuencia {}: {}", secuencia, e.getMessage());
+            }
+        });
+    }
+}
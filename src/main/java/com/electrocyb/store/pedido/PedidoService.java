@@ -1,29 +1,44 @@
 package com.electrocyb.store.pedido;
 
 import com.electrocyb.store.email.EmailService;
+import com.electrocyb.store.email.outbox.EmailOutbox;
 import com.electrocyb.store.pedido.dto.*;
+import com.electrocyb.store.producto.Precio;
 import com.electrocyb.store.producto.Producto;
 import com.electrocyb.store.producto.ProductoRepository;
-import jakarta.mail.MessagingException;
+import com.electrocyb.store.producto.inventario.InventoryLedger;
+import com.electrocyb.store.producto.related.OrderPlacedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 public class PedidoService {
 
     private final PedidoRepository pedidoRepository;
     private final EmailService emailService;
+    private final EmailOutbox outbox;
     private final ProductoRepository productoRepository;
+    private final InventoryLedger inventario;
+    private final ApplicationEventPublisher events;
 
     public PedidoService(PedidoRepository pedidoRepository,
                          EmailService emailService,
-                         ProductoRepository productoRepository) {
+                         EmailOutbox outbox,
+                         ProductoRepository productoRepository,
+                         InventoryLedger inventario,
+                         ApplicationEventPublisher events) {
         this.pedidoRepository = pedidoRepository;
         this.emailService = emailService;
+        this.outbox = outbox;
         this.productoRepository = productoRepository;
+        this.inventario = inventario;
+        this.events = events;
     }
 
     @Transactional
@@ -46,39 +61,54 @@ public class PedidoService {
         // Si tu entidad Pedido tiene campo metodoEntrega, aquí podrías setearlo:
         // pedido.setMetodoEntrega(request.metodoEntrega());
 
-        // Items
-        double subtotal = 0.0;
-
+        // 🔥 DESCONTAR STOCK ANTES DE GUARDAR EL PEDIDO
+        // Líneas repetidas del mismo producto se suman; un solo UPDATE condicionado por producto
+        Map<Long, Integer> unidadesPorProducto = new TreeMap<>();
         for (OrderItemRequest itemReq : request.items()) {
+            if (itemReq.productoId() == null) {
+                throw new RuntimeException("Producto no encontrado: " + itemReq.nombre());
+            }
+            if (itemReq.cantidad() == null || itemReq.cantidad() <= 0) {
+                throw new RuntimeException("Cantidad inválida para: " + itemReq.nombre());
+            }
+            unidadesPorProducto.merge(itemReq.productoId(), itemReq.cantidad(), Integer::sum);
+        }
 
-            // 🔥 DESCONTAR STOCK ANTES DE GUARDAR EL PEDIDO
-            Producto producto = productoRepository.findById(itemReq.productoId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + itemReq.nombre()));
+        List<Long> sinStock = inventario.reservar(unidadesPorProducto);
+        if (!sinStock.isEmpty()) {
+            // Reserva todo o nada: no queda nada tomado (y el rollback deshace el resto del pedido)
+            Long productoId = sinStock.get(0);
+            Producto producto = productoRepository.findById(productoId)
+                    .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + nombreEnPedido(request, productoId)));
+            throw new RuntimeException("Stock insuficiente para: " + producto.getNombre());
+        }
 
-            if (producto.getStock() < itemReq.cantidad()) {
-                throw new RuntimeException("Stock insuficiente para: " + producto.getNombre());
-            }
+        // Items (subtotal en céntimos para no acumular errores de double)
+        long subtotalCentavos = 0;
 
-            producto.setStock(producto.getStock() - itemReq.cantidad());
-            productoRepository.save(producto);
+        for (OrderItemRequest itemReq : request.items()) {
 
             // Crear item del pedido
             OrderItem item = new OrderItem();
             item.setProductoId(itemReq.productoId());
             item.setNombre(itemReq.nombre());
-            item.setPrecio(itemReq.precio());
+            try {
+                item.setPrecio(itemReq.precio());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Precio inválido para: " + itemReq.nombre());
+            }
             item.setImagen(itemReq.imagen());
             item.setCantidad(itemReq.cantidad());
             item.setPedido(pedido);
             pedido.getItems().add(item);
 
-            try {
-                double precio = Double.parseDouble(itemReq.precio());
-                subtotal += precio * itemReq.cantidad();
-            } catch (NumberFormatException ignored) {}
+            if (item.getPrecioCentavos() != null) {
+                subtotalCentavos += item.getPrecioCentavos() * itemReq.cantidad();
+            }
         }
 
         // Subtotal
+        double subtotal = Precio.toBigDecimal(subtotalCentavos).doubleValue();
         pedido.setSubtotal(subtotal);
 
         // ✅ Costo de envío: usar el que viene del frontend si existe
@@ -101,12 +131,15 @@ public class PedidoService {
         h.setDescripcion("Pedido recibido.");
         pedido.getHistorialEstados().add(h);
 
-        // Guardar pedido
-        pedido = pedidoRepository.save(pedido);
+        // Guardar pedido: un INSERT (con su número EC-000001) y los ítems e historial en lote, en un solo flush
+        pedido = pedidoRepository.saveAndFlush(pedido);
 
-        // Generar número EC-000001
-        pedido.setNumeroPedido(generarCodigoPedido(pedido.getId()));
-        pedido = pedidoRepository.save(pedido);
+        // El aviso de stock al índice y a los cachés lo da el inventario, cuando el cambio llega a la base
+        // Suma el pedido a "comprados juntos" y a los más vendidos
+        events.publishEvent(new OrderPlacedEvent(pedido.getId(), pedido.getFecha(), unidadesPorProducto));
+
+        // Correo de confirmación: se encola en esta transacción y se envía después del commit
+        outbox.encolar("PEDIDO_CONFIRMADO", pedido.getNumeroPedido(), emailService.buildOrderConfirmation(pedido));
 
         return mapToDto(pedido);
     }
@@ -118,8 +151,12 @@ public class PedidoService {
         return mapToDto(pedido);
     }
 
-    private String generarCodigoPedido(Long id) {
-        return "EC-" + String.format("%06d", id);
+    private String nombreEnPedido(CreateOrderRequest request, Long productoId) {
+        return request.items().stream()
+                .filter(i -> productoId.equals(i.productoId()))
+                .map(OrderItemRequest::nombre)
+                .findFirst()
+                .orElse(String.valueOf(productoId));
     }
 
     private double calcularCostoEnvio(ClienteEmbeddable cliente) {
@@ -269,12 +306,9 @@ public class PedidoService {
 
         pedido = pedidoRepository.save(pedido);
 
+        // El correo sale de la bandeja de salida, después del commit (sin esperar a SendGrid aquí)
         if (nuevoEstado == OrderStatus.ENTREGADO) {
-            try {
-                emailService.sendOrderDeliveredEmail(pedido);
-            } catch (MessagingException e) {
-                e.printStackTrace();
-            }
+            outbox.encolar("PEDIDO_ENTREGADO", pedido.getNumeroPedido(), emailService.buildOrderDeliveredEmail(pedido));
         }
 
         return mapToDto(pedido);
@@ -0,0 +1,33 @@
+package com.electrocyb.store.producto;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/busqueda")
+@CrossOrigin
+public class BusquedaAdminController {
+
+    private final ProductSearchCache searchCache;
+
+    public BusquedaAdminController(ProductSearchCache searchCache) {
+        this.searchCache = searchCache;
+    }
+
+    // GET /api/admin/busqueda/cache  → aciertos / fallos de la caché del chatbot (ADMIN)
+    @GetMapping("/cache")
+    public Map<String, Object> cache() {
+        CacheStats stats = searchCache.stats();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("entradas", searchCache.size());
+        body.put("aciertos", stats.hitCount());
+        body.put("fallos", stats.missCount());
+        body.put("tasaAciertos", stats.hitRate());
+        body.put("expulsiones", stats.evictionCount());
+        body.put("tiempoPromedioCargaMs", stats.averageLoadPenalty() / 1_000_000.0);
+        return body;
+    }
+}
@@ -0,0 +1,47 @@
+package com.electrocyb.store.producto;
+
+import java.util.Set;
+
+/**
+ * Cambio en el catálogo de productos. Lo publican ProductoService, la carga masiva y el inventario
+ * (vía ApplicationEventPublisher) y lo escuchan el índice de búsqueda y los cachés,
+ * que invalidan solo los productos afectados.
+ *
+ * Si se publica dentro de una transacción, los oyentes lo procesan después del commit.
+ */
+public sealed interface CatalogChangeEvent {
+
+    Set<Long> productIds();
+
+    record ProductCreated(Long productoId) implements CatalogChangeEvent {
+        public Set<Long> productIds() {
+            return Set.of(productoId);
+        }
+    }
+
+    record ProductUpdated(Long productoId) implements CatalogChangeEvent {
+        public Set<Long> productIds() {
+            return Set.of(productoId);
+        }
+    }
+
+    record ProductDeleted(Long productoId) implements CatalogChangeEvent {
+        public Set<Long> productIds() {
+            return Set.of(productoId);
+        }
+    }
+
+    // Carga masiva: muchos productos creados o actualizados de una vez (se reconstruye todo el índice)
+    record CatalogImported(Set<Long> productIds) implements CatalogChangeEvent {
+        public CatalogImported {
+            productIds = Set.copyOf(productIds);
+        }
+    }
+
+    // Pedidos descontaron stock de uno o varios productos (ya escrito en la base)
+    record StockChanged(Set<Long> productIds) implements CatalogChangeEvent {
+        public StockChanged {
+            productIds = Set.copyOf(productIds);
+        }
+    }
+}
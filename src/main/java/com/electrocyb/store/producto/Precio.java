@@ -0,0 +1,62 @@
+package com.electrocyb.store.producto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.regex.Pattern;
+
+/**
+ * Precios en céntimos de sol (S/ 35.50 → 3550), para comparar y sumar sin
+ * volver a parsear texto ni arrastrar errores de double.
+ * Hacia afuera (JSON, correos, chatbot) se siguen mostrando como "35.50".
+ */
+public final class Precio {
+
+    private static final Pattern FORMATO = Pattern.compile("\\d+(?:[.,]\\d+)?");
+
+    private Precio() {
+    }
+
+    /**
+     * "35", "35.5", "35,50" → 3500, 3550, 3550. Vacío o null → null (sin precio).
+     *
+     * @throws IllegalArgumentException si el texto no es un precio
+     */
+    public static Long parseCentavos(String precio) {
+        if (precio == null || precio.isBlank()) {
+            return null;
+        }
+        String limpio = precio.trim();
+        if (!FORMATO.matcher(limpio).matches()) {
+            throw new IllegalArgumentException("Precio inválido: " + precio);
+        }
+        return new BigDecimal(limpio.replace(",", "."))
+                .movePointRight(2)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    /**
+     * 3550 → "35.50"; null → null.
+     */
+    public static String format(Long centavos) {
+        return centavos == null ? null : toBigDecimal(centavos).toPlainString();
+    }
+
+    public static BigDecimal toBigDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    /**
+     * Menor cantidad de céntimos que es >= al monto (límite inferior de un rango).
+     */
+    public static long minCentavos(BigDecimal monto) {
+        return monto.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue();
+    }
+
+    /**
+     * Mayor cantidad de céntimos que es <= al monto (límite superior de un rango).
+     */
+    public static long maxCentavos(BigDecimal monto) {
+        return monto.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue();
+    }
+}
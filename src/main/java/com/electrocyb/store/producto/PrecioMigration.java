@@ -0,0 +1,71 @@
+package com.electrocyb.store.producto;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Migra los precios guardados como texto (columna {@code precio}, p. ej. "35.50")
+ * a la columna numérica {@code precio_centavos} que ahora usan Producto y OrderItem.
+ *
+ * Hibernate (ddl-auto=update) crea la columna nueva pero no copia datos; esto corre
+ * al arrancar, antes de que se construya el índice del catálogo, y es idempotente:
+ * solo toca filas sin precio_centavos. Valores que no son un número ("consultar", "")
+ * quedan sin precio.
+ *
+ * La columna vieja queda solo como registro de lo que había (ya no se mapea ni se
+ * actualiza), y se le quita el NOT NULL que tenía en db.sql: si no, todo INSERT
+ * nuevo (alta de producto, carga masiva) falla por no enviarla.
+ */
+@Slf4j
+@Component
+public class PrecioMigration {
+
+    private static final List<String> TABLAS = List.of("productos", "order_items");
+
+    private static final String COLUMNA_VIEJA_EXISTE = """
+            SELECT count(*) FROM information_schema.columns
+            WHERE table_name = ? AND column_name = 'precio'
+            """;
+
+    private static final String SIN_NOT_NULL = "ALTER TABLE %s ALTER COLUMN precio DROP NOT NULL";
+
+    private static final String MIGRAR = """
+            UPDATE %s
+            SET precio_centavos = round(replace(trim(precio), ',', '.')::numeric * 100)
+            WHERE precio_centavos IS NULL
+              AND precio ~ '^\\s*[0-9]+([.,][0-9]+)?\\s*$'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PrecioMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrar() {
+        for (String tabla : TABLAS) {
+            try {
+                Integer columnas = jdbcTemplate.queryForObject(COLUMNA_VIEJA_EXISTE, Integer.class, tabla);
+                if (columnas == null || columnas == 0) {
+                    continue;
+                }
+                jdbcTemplate.execute(SIN_NOT_NULL.formatted(tabla));
+                int filas = jdbcTemplate.update(MIGRAR.formatted(tabla));
+                if (filas > 0) {
+                    log.info("Precios migrados a céntimos en {}: {} filas", tabla, filas);
+                }
+            } catch (Exception e) {
+                log.warn("No se pudo migrar los precios de {}: {}", tabla, e.getMessage());
+            }
+        }
+    }
+}
@@ -1,27 +1,58 @@
 package com.electrocyb.store.producto;
 
+import com.electrocyb.store.producto.ranking.BestSellerLeaderboard;
+import com.electrocyb.store.producto.search.Bm25fIndex;
+import com.electrocyb.store.producto.search.CatalogSearchIndex;
+import com.electrocyb.store.producto.search.CatalogSnapshot;
+import com.electrocyb.store.producto.search.ParallelScorer;
+import com.electrocyb.store.producto.search.ProductKeywords;
+import com.electrocyb.store.producto.search.ProductSearchDocument;
+import com.electrocyb.store.producto.search.ProductoFullTextRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.text.Normalizer;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductAdviceService {
 
-    private final ProductoRepository productoRepository;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final ProductoFullTextRepository fullTextRepository;
+    private final ProductSearchCache searchCache;
+    private final ParallelScorer parallelScorer;
+    private final BestSellerLeaderboard bestSellers;
+    // "memory" (índice en memoria, por defecto) o "fulltext" (tsvector en PostgreSQL)
+    private final boolean fullTextPreFilter;
 
     // Umbrales de relevancia
-    private static final int MIN_STRONG_SCORE_ABSOLUTE = 80;     // puntaje mínimo absoluto
-    private static final double STRONG_SCORE_RATIO = 0.80;       // 80% del mejor
+    // Relevancia BM25F relativa: 1.0 = todos los términos del usuario, con saturación máxima
+    private static final double MIN_STRONG_SCORE_ABSOLUTE = 0.35; // puntaje mínimo absoluto
+    private static final double STRONG_SCORE_RATIO = 0.70;       // 70% del mejor
+    private static final double SYNONYM_WEIGHT = 0.5;            // peso de un sinónimo frente a lo escrito
+    private static final double STOCK_BONUS = 0.02;
+    private static final double PRICE_BONUS = 0.08;              // precio cerca del centro del rango
+    private static final double ROOM_BONUS = 0.06;               // ambiente pedido y mencionado
+    private static final double SIGN_PENALTY = 0.04;             // pidió ambiente, el producto es de letreros
     private static final int MAX_PRODUCTS_RESPONSE = 4;          // máximo productos por respuesta
     private static final int CATALOG_LIMIT = 12;                 // tamaño máximo de catálogo general
-
-    public ProductAdviceService(ProductoRepository productoRepository) {
-        this.productoRepository = productoRepository;
+    private static final int FALLBACK_BEST_SELLERS = 3;          // más vendidos sugeridos si no hubo match
+
+    public ProductAdviceService(
+            CatalogSearchIndex catalogSearchIndex,
+            ProductoFullTextRepository fullTextRepository,
+            ProductSearchCache searchCache,
+            ParallelScorer parallelScorer,
+            BestSellerLeaderboard bestSellers,
+            @Value("${app.search.prefilter:memory}") String preFilter
+    ) {
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.fullTextRepository = fullTextRepository;
+        this.searchCache = searchCache;
+        this.parallelScorer = parallelScorer;
+        this.bestSellers = bestSellers;
+        this.fullTextPreFilter = "fulltext".equalsIgnoreCase(preFilter);
     }
 
     // ==========================================================
@@ -65,73 +96,13 @@ public class ProductAdviceService {
             boolean catalogTruncated
     ) {}
 
-    // Wrapper interno para puntaje
-    private static class ScoredProduct {
-        final Producto product;
-        final int score;
-
-        ScoredProduct(Producto product, int score) {
-            this.product = product;
-            this.score = score;
-        }
-    }
-
     // ==========================================================
     // Sinónimos, stopwords y tipos de producto
     // ==========================================================
 
-    // Sinónimos básicos por dominio (normalizados, sin tildes)
-    private static final Map<String, List<String>> SYNONYMS = Map.ofEntries(
-            Map.entry("foco", List.of("bombilla", "ampolleta", "foco", "luz", "led")),
-            Map.entry("focos", List.of("foco", "bombilla", "ampolleta", "luz", "led")),
-            Map.entry("lampara", List.of("lampara", "spot", "plafon", "panel")),
-            Map.entry("lamparas", List.of("lampara", "spot", "plafon", "panel")),
-            Map.entry("lampara techo", List.of("lampara techo", "plafon", "panel led")),
-            Map.entry("reflector", List.of("reflector", "proyector")),
-            Map.entry("sensor", List.of("sensor", "sensor de movimiento", "sensor movimiento", "sensor pir")),
-            Map.entry("camara", List.of("camara", "camara de seguridad", "cctv")),
-            Map.entry("tira", List.of("tira led", "cinta led", "strip led")),
-            Map.entry("tira led", List.of("tira led", "cinta led", "strip led")),
-            Map.entry("kit", List.of("kit", "kit solar", "kit de iluminacion")),
-            Map.entry("kit solar", List.of("kit solar", "panel solar", "linterna solar"))
-    );
-
-    // Stopwords simples (en minúsculas, sin tilde)
-    private static final Set<String> STOPWORDS = Set.of(
-            "quiero", "busco", "necesito", "una", "un", "para", "que", "cual",
-            "producto", "productos", "me", "recomiendame", "recomiendeme", "recomienda",
-            "hasta", "maximo", "minimo", "entre", "desde", "soles", "s", "aprox",
-            "al", "menos", "mas", "de", "a", "y", "como", "el", "la", "los", "las",
-            "todos", "todas", "catalogo", "catalogo.", "catalogo,", "catálogo", "lista", "completa",
-            "dame", "muestrame", "muéstrame", "ensename", "enséname", "quiero comprar",
-            "precio", "barato", "barata", "caro", "cara", "tipo", "hay", "tienen",
-            "por", "favor", "podrias", "podrías", "alrededor", "alrededor de",
-            "aproximadamente", "cerca", "cerca de"
-    );
-
-    // Tipo de producto: lámparas / plafones / focos
-    private static final Set<String> LAMP_KEYWORDS = Set.of(
-            "lampara", "lamparas", "plafon", "plafones", "panel", "paneles",
-            "foco", "focos", "spot", "dicroico", "dicroicos"
-    );
-
-    // Tipo de producto: tiras / cintas / mangueras
-    private static final Set<String> STRIP_KEYWORDS = Set.of(
-            "tira", "tiras", "tira led",
-            "cinta", "cintas", "cinta led",
-            "manguera", "mangueras", "manguera led",
-            "neon", "neón", "cinta led neon"
-    );
-
-    // Palabras de ambientes (para sumar puntos si calza, pero no filtramos duro)
-    private static final Set<String> ROOM_KEYWORDS = Set.of(
-            "sala", "comedor", "dormitorio", "habitacion", "habitación",
-            "cocina", "baño", "bano", "pasillo", "pasadizo"
-    );
-
-    private static final Set<String> SIGN_KEYWORDS = Set.of(
-            "letrero", "letreros", "aviso", "avisos", "cartel", "carteles"
-    );
+    // Sinónimos por dominio: ver ProductKeywords.SYNONYMS (también los usa el autocompletado)
+    // Stopwords, tokens y rango de precio del mensaje: ver QueryAnalysis
+    // Ambientes, letreros y clase de producto (lámpara / tira): ver ProductKeywords
 
     // ==========================================================
     // PÚBLICOS
@@ -143,7 +114,15 @@ public class ProductAdviceService {
      * a productos concretos del catálogo.
      */
     public ProductSearchResult findProductsForMessage(String userMessage) {
-        if (userMessage == null || userMessage.isBlank()) {
+        return findProductsForMessage(QueryAnalysis.of(userMessage));
+    }
+
+    /**
+     * Igual que {@link #findProductsForMessage(String)}, con el mensaje ya analizado
+     * (ChatService lo analiza una sola vez y lo reutiliza).
+     */
+    public ProductSearchResult findProductsForMessage(QueryAnalysis query) {
+        if (query.isBlank()) {
             return new ProductSearchResult(
                     List.of(),
                     null,
@@ -152,11 +131,21 @@ public class ProductAdviceService {
             );
         }
 
-        String original = userMessage.trim();
-        String normalizedMsg = normalize(original);
+        // Una sola foto del catálogo para toda la búsqueda (coherente aunque cambie mientras tanto)
+        CatalogSnapshot catalog = catalogSearchIndex.current();
+        // Los mensajes se repiten mucho ("focos led"): se cachea por mensaje normalizado + versiones del catálogo
+        return searchCache.get(catalog, query, () -> search(catalog, query));
+    }
+
+    // Solo depende del mensaje normalizado: es la clave de ProductSearchCache
+    private ProductSearchResult search(CatalogSnapshot catalog, QueryAnalysis received) {
+        // Palabras mal escritas ("lampra", "reflectr") se corrigen contra el vocabulario del catálogo
+        QueryAnalysis query = received.withSpelling(catalog.spellCorrector());
+        String normalizedMsg = query.normalized();
+        long msgKeywords = query.keywords();
 
-        // 1) Traemos todos los productos (lee todo el catálogo)
-        List<Producto> todos = productoRepository.findAll();
+        // 1) Catálogo desde el índice en memoria (sin ir a BD)
+        List<ProductSearchDocument> todos = catalog.documents();
         if (todos.isEmpty()) {
             return new ProductSearchResult(
                     List.of(),
@@ -166,24 +155,22 @@ public class ProductAdviceService {
             );
         }
 
-        // 2) BÚSQUEDA DIRECTA POR NOMBRE EN BD (match fuerte por nombre literal)
-        List<Producto> fromDbByName = productoRepository
-                .findTop5ByNombreContainingIgnoreCase(original);
+        // 2) BÚSQUEDA DIRECTA POR NOMBRE (match fuerte por nombre literal, como el LIKE de BD, sin tildes)
+        List<ProductSearchDocument> fromDbByName = catalog.findByNameContaining(received.normalized(), 5);
 
         if (!fromDbByName.isEmpty()) {
             return new ProductSearchResult(
-                    fromDbByName,
+                    toProducts(fromDbByName),
                     null,
                     SearchType.DB_NAME_MATCH,
                     false
             );
         }
 
-        // 3) Catálogo completo / lista de productos (solo cuando piden "todo")
-        if (isAskForAllProducts(normalizedMsg)) {
-            List<Producto> limited = todos.stream()
-                    .limit(CATALOG_LIMIT)
-                    .collect(Collectors.toList());
+        // 3) Catálogo completo / lista de productos (solo cuando piden "todo"):
+        //    primero lo más vendido del mes, luego el resto en orden
+        if (isAskForAllProducts(msgKeywords)) {
+            List<Producto> limited = catalogByBestSellers(catalog, todos);
             boolean truncated = todos.size() > CATALOG_LIMIT;
 
             return new ProductSearchResult(
@@ -194,14 +181,15 @@ public class ProductAdviceService {
             );
         }
 
-        // 4) Intentar match directo por nombre normalizado (en memoria)
-        List<Producto> exactByName = todos.stream()
-                .filter(p -> nameMatchesUserInput(p, normalizedMsg))
+        // 4) Intentar match directo por nombre normalizado (solo candidatos del índice)
+        List<ProductSearchDocument> exactByName = catalog.findNameCandidates(normalizedMsg).stream()
+                .filter(d -> nameMatchesUserInput(d, normalizedMsg))
                 .collect(Collectors.toList());
 
         if (!exactByName.isEmpty()) {
             List<Producto> limited = exactByName.stream()
                     .limit(5)
+                    .map(ProductSearchDocument::producto)
                     .collect(Collectors.toList());
 
             return new ProductSearchResult(
@@ -212,69 +200,62 @@ public class ProductAdviceService {
             );
         }
 
-        // 5) Detectar rango de precio (si existe) → soporta “alrededor de”, “menos de”, etc.
-        PriceRange priceRange = extractPriceRange(normalizedMsg);
+        // 5) Rango de precio (si existe) → soporta “alrededor de”, “menos de”, etc.
+        PriceRange priceRange = query.priceRange();
 
         // 6) Palabras clave + sinónimos
-        List<String> expandedKeywords = extractKeywordsWithSynonyms(normalizedMsg);
+        List<String> expandedKeywords = query.expandedKeywords();
         // tokens que el usuario escribió literalmente (sin sinónimos)
-        List<String> coreTokens = extractCoreTokens(normalizedMsg);
-
-        // 7) PRE-FILTRO desde la BD usando tus métodos existentes
-        Set<Producto> preFilteredSet = new LinkedHashSet<>();
-        preFilteredSet.addAll(productoRepository.findTop5ByDescripcionContainingIgnoreCase(original));
-        preFilteredSet.addAll(productoRepository.findTop5ByCategoriaContainingIgnoreCase(original));
-
-        try {
-            List<Producto> wide = productoRepository
-                    .findTop50ByNombreContainingIgnoreCaseOrCategoriaContainingIgnoreCaseOrDescripcionContainingIgnoreCase(
-                            original, original, original
-                    );
-            preFilteredSet.addAll(wide);
-        } catch (Exception ignored) {
-            // por si en algún entorno aún no existe el método
+        List<String> coreTokens = query.coreTokens();
+
+        // 7) Relevancia BM25F: solo se recorren las postings de los términos de la consulta.
+        //    Especificaciones pedidas ("12W", "luz cálida", "IP65") se resuelven con el índice de
+        //    atributos y el rango de precio con el índice de precios: los dos acotan los candidatos
+        //    antes de puntuar (estricto: si el usuario dio rango, se respeta SIEMPRE).
+        //    Con el pre-filtro de PostgreSQL activado, se puntúan solo los que además encuentra el
+        //    tsvector (todos, sin tope: el orden lo decide BM25F, no ts_rank).
+        BitSet within = catalog.matchAttributes(normalizedMsg);
+        if (priceRange != null) {
+            BitSet inRange = priceFilter(catalog, priceRange);
+            if (within == null) {
+                within = inRange;
+            } else {
+                within.and(inRange);
+            }
         }
-
-        List<Producto> preFiltered = new ArrayList<>(preFilteredSet);
-        if (preFiltered.size() < 5) {
-            preFiltered = todos;
+        List<CatalogSnapshot.ScoredDocument> relevant = catalog.scoreRelevance(queryTerms(coreTokens, expandedKeywords), within);
+        if (fullTextPreFilter && fullTextRepository.isAvailable()) {
+            Set<Long> ids = fullTextRepository.matchingIds(expandedKeywords);
+            relevant = relevant.stream().filter(c -> ids.contains(c.document().id())).toList();
         }
+        List<CatalogSnapshot.ScoredDocument> candidates = relevant;
 
-        // 8) Score por relevancia de texto
-        List<ScoredProduct> scored = preFiltered.stream()
-                .map(p -> new ScoredProduct(p, scoreProduct(p, normalizedMsg, expandedKeywords, priceRange)))
-                .filter(sp -> sp.score > 0)
-                .sorted(Comparator.comparingInt((ScoredProduct sp) -> sp.score).reversed())
-                .toList();
-
-        // Si NADIE tiene score > 0, NO devolvemos productos al azar
-        if (scored.isEmpty()) {
-            return new ProductSearchResult(
-                    List.of(),
-                    priceRange,
-                    SearchType.FALLBACK,
-                    false
-            );
-        }
+        // 8) Puntaje final = relevancia de texto + señales de contexto (stock, precio, ambiente).
+        //    Con muchos candidatos ("led", "foco") se reparte en el pool acotado de ParallelScorer.
+        double[] scores = parallelScorer.score(candidates.size(),
+                i -> scoreProduct(candidates.get(i), msgKeywords, priceRange));
 
-        // 9) Filtrar solo los matches FUERTES (top score)
-        int maxScore = scored.get(0).score;
-        int minScoreThreshold = Math.max(
+        // 9) Solo matches FUERTES: sobre el mínimo absoluto y cerca del mejor
+        double maxScore = Arrays.stream(scores).max().orElse(0);
+        double minScoreThreshold = Math.max(
                 MIN_STRONG_SCORE_ABSOLUTE,
-                (int) (maxScore * STRONG_SCORE_RATIO)
+                maxScore * STRONG_SCORE_RATIO
         );
 
-        List<Producto> strongMatches = scored.stream()
-                .filter(sp -> sp.score >= minScoreThreshold)
-                .map(sp -> sp.product)
-                // ⚠️ SOLO productos que coinciden con los tokens centrales del usuario
-                .filter(p -> matchesCoreTokens(p, coreTokens))
-                // ⚠️ Y que respetan la CLASE de producto (lámpara vs tira/manguera)
-                .filter(p -> isProductClassCompatible(p, normalizedMsg))
-                .collect(Collectors.toList());
-
-        // Si los puntajes son muy parejos pero bajos, preferimos no inventar nada
-        if (strongMatches.isEmpty()) {
+        // 10) Top N con un heap (sin ordenar todos los candidatos), entre los que además:
+        //     ⚠️ coinciden con los tokens centrales del usuario,
+        //     ⚠️ respetan la CLASE de producto (lámpara vs tira/manguera),
+        //     y tienen stock (o no tienen campo stock)
+        int[] top = parallelScorer.topK(scores, MAX_PRODUCTS_RESPONSE, i -> {
+            ProductSearchDocument d = candidates.get(i).document();
+            return scores[i] >= minScoreThreshold
+                    && matchesCoreTokens(d, coreTokens)
+                    && isProductClassCompatible(d, msgKeywords)
+                    && hasStockOrNoStockField(d.producto());
+        });
+
+        // Puntajes bajos o nada con stock/en rango: mejor pedir más detalle que inventar
+        if (top.length == 0) {
             return new ProductSearchResult(
                     List.of(),
                     priceRange,
@@ -283,47 +264,13 @@ public class ProductAdviceService {
             );
         }
 
-        // 10) Filtro por stock (solo productos con stock o sin campo stock)
-        List<Producto> byText = strongMatches.stream()
-                .filter(this::hasStockOrNoStockField)
-                .collect(Collectors.toList());
-
-        // 11) Filtro de precio (estricto: si el usuario dio rango, se respeta SIEMPRE)
-        List<Producto> filtered = byText;
-        if (priceRange != null) {
-            List<Producto> byPrice = byText.stream()
-                    .filter(p -> isWithinPriceRange(p, priceRange))
-                    .collect(Collectors.toList());
-
-            // si el usuario pidió rango de precio y no hay nada → preferimos devolver nada
-            if (byPrice.isEmpty()) {
-                return new ProductSearchResult(
-                        List.of(),
-                        priceRange,
-                        SearchType.FALLBACK,
-                        false
-                );
-            }
-            filtered = byPrice;
-        }
-
-        // 12) Si después de precio/stock se vacía, mejor pedir más detalle
-        if (filtered.isEmpty()) {
-            return new ProductSearchResult(
-                    List.of(),
-                    priceRange,
-                    SearchType.FALLBACK,
-                    false
-            );
+        List<Producto> products = new ArrayList<>(top.length);
+        for (int i : top) {
+            products.add(candidates.get(i).document().producto());
         }
 
-        // 13) Top N (respuesta acotada, precisa)
-        List<Producto> top = filtered.stream()
-                .limit(MAX_PRODUCTS_RESPONSE)
-                .collect(Collectors.toList());
-
         return new ProductSearchResult(
-                top,
+                products,
                 priceRange,
                 SearchType.TEXT_MATCH,
                 false
@@ -335,8 +282,13 @@ public class ProductAdviceService {
      * con las viñetas "• [id] ..." para que el front las convierta en cards.
      */
     public String buildProductSuggestionText(String userMessage) {
-        ProductSearchResult result = findProductsForMessage(userMessage);
+        return buildProductSuggestionText(findProductsForMessage(userMessage));
+    }
 
+    /**
+     * Igual que {@link #buildProductSuggestionText(String)}, sobre un resultado ya calculado.
+     */
+    public String buildProductSuggestionText(ProductSearchResult result) {
         // No hay productos en DB
         if (result.type() == SearchType.NO_PRODUCTS_IN_DB) {
             return """
@@ -352,6 +304,12 @@ public class ProductAdviceService {
             String extraPrecio = precioInfo.isBlank()
                     ? ""
                     : "\n\nAdemás, no encontré productos que cumplan exactamente con " + precioInfo + ".";
+            // Mientras tanto, lo que más se está llevando (dentro del presupuesto, si lo dio)
+            List<Producto> populares = bestSellersFor(catalogSearchIndex.current(), result.priceRange());
+            String extraPopulares = populares.isEmpty()
+                    ? ""
+                    : "\n\nMientras tanto, esto es lo que más están llevando nuestros clientes:\n\n"
+                    + populares.stream().map(this::formatProductLine).collect(Collectors.joining("\n"));
             return """
                     No estoy seguro de haber encontrado el producto exacto que necesitas 😅.
 
@@ -361,7 +319,7 @@ public class ProductAdviceService {
                     - ¿Presupuesto aproximado? (por ejemplo: hasta 50 soles)
 
                     Con eso puedo recomendarte mejores opciones de nuestro catálogo.
-                    """ + extraPrecio;
+                    """ + extraPrecio + extraPopulares;
         }
 
         String lista = result.products().stream()
@@ -408,29 +366,57 @@ public class ProductAdviceService {
      * "todo el catálogo", "todos los productos", "lista completa", etc.
      * Si solo dice "catálogo de focos", se va por búsqueda específica.
      */
-    private boolean isAskForAllProducts(String normalizedMsg) {
-        boolean mentionsCatalog = normalizedMsg.contains("catalogo")
-                || normalizedMsg.contains("catálogo")
-                || normalizedMsg.contains("lista de productos")
-                || normalizedMsg.contains("lista completa");
-
-        boolean wantsEverything = normalizedMsg.contains("todos los productos")
-                || normalizedMsg.contains("todo el catalogo")
-                || normalizedMsg.contains("todo el catálogo")
-                || normalizedMsg.contains("todo tu catalogo")
-                || normalizedMsg.contains("todo su catalogo")
-                || normalizedMsg.contains("todo tu catálogo")
-                || normalizedMsg.contains("ver todo")
-                || normalizedMsg.contains("todo lo que tienes");
-
+    private boolean isAskForAllProducts(long msgKeywords) {
+        boolean mentionsCatalog = ProductKeywords.has(msgKeywords, ProductKeywords.Group.CATALOG_MENTION);
+        boolean wantsEverything = ProductKeywords.has(msgKeywords, ProductKeywords.Group.WANTS_EVERYTHING);
         return mentionsCatalog && wantsEverything;
     }
 
-    private boolean nameMatchesUserInput(Producto p, String normalizedMsg) {
-        if (p.getNombre() == null || p.getNombre().isBlank())
+    // Catálogo general: los más vendidos de 30 días arriba, completado con el resto en orden de id
+    private List<Producto> catalogByBestSellers(CatalogSnapshot catalog, List<ProductSearchDocument> todos) {
+        List<Producto> result = new ArrayList<>(CATALOG_LIMIT);
+        Set<Long> incluidos = new HashSet<>();
+        for (BestSellerLeaderboard.Entry e : bestSellers.top(BestSellerLeaderboard.Window.LAST_30_DAYS,
+                CATALOG_LIMIT, id -> catalog.find(id).isPresent())) {
+            catalog.find(e.productoId()).ifPresent(d -> {
+                result.add(d.producto());
+                incluidos.add(d.id());
+            });
+        }
+        for (ProductSearchDocument d : todos) {
+            if (result.size() >= CATALOG_LIMIT) break;
+            if (incluidos.add(d.id())) {
+                result.add(d.producto());
+            }
+        }
+        return result;
+    }
+
+    // Más vendidos de la semana (o del mes, si la semana no tiene) con stock y en el rango de precio
+    private List<Producto> bestSellersFor(CatalogSnapshot catalog, PriceRange priceRange) {
+        BitSet inRange = priceRange == null ? null : priceFilter(catalog, priceRange);
+        for (BestSellerLeaderboard.Window window : BestSellerLeaderboard.Window.values()) {
+            List<Producto> result = new ArrayList<>();
+            for (BestSellerLeaderboard.Entry e : bestSellers.top(window, FALLBACK_BEST_SELLERS,
+                    id -> catalog.find(id)
+                            .map(ProductSearchDocument::producto)
+                            .filter(this::hasStockOrNoStockField)
+                            .filter(p -> inRange == null || catalog.contains(inRange, p.getId()))
+                            .isPresent())) {
+                catalog.find(e.productoId()).ifPresent(d -> result.add(d.producto()));
+            }
+            if (!result.isEmpty()) {
+                return result;
+            }
+        }
+        return List.of();
+    }
+
+    private boolean nameMatchesUserInput(ProductSearchDocument d, String normalizedMsg) {
+        if (d.producto().getNombre() == null || d.producto().getNombre().isBlank())
             return false;
 
-        String nameNorm = normalize(p.getNombre());
+        String nameNorm = d.nombre();
 
         if (nameNorm.equals(normalizedMsg))
             return true;
@@ -439,176 +425,95 @@ public class ProductAdviceService {
         if (nameNorm.contains(normalizedMsg) && normalizedMsg.length() >= 4)
             return true;
 
-        String[] nameParts = nameNorm.split("\\s+");
         int hits = 0;
         int totalWords = 0;
-        for (String part : nameParts) {
-            if (part.length() < 3)
+        for (String part : d.nameTokens()) {
+            if (part.length() < 3 || QueryAnalysis.isStopword(part))
                 continue;
             totalWords++;
             if (normalizedMsg.contains(part)) {
                 hits++;
             }
         }
-        return totalWords > 0 && hits >= Math.max(1, totalWords / 2);
-    }
-
-    private String buildNormalizedProductText(Producto p) {
-        StringBuilder sb = new StringBuilder();
-        if (p.getNombre() != null)
-            sb.append(p.getNombre()).append(" ");
-        if (p.getCategoria() != null)
-            sb.append(p.getCategoria()).append(" ");
-        if (p.getDescripcion() != null)
-            sb.append(p.getDescripcion()).append(" ");
-        if (p.getCaracteristicas() != null && !p.getCaracteristicas().isEmpty()) {
-            p.getCaracteristicas().forEach((k, v) -> {
-                if (k != null)
-                    sb.append(k).append(" ");
-                if (v != null)
-                    sb.append(v).append(" ");
-            });
-        }
-        return normalize(sb.toString());
+        return totalWords > 0 && hits >= (totalWords + 1) / 2;
     }
 
     /**
-     * Score de relevancia: texto + categoría + nombre + precio + ambiente + stock.
+     * Términos de la consulta para BM25F: lo que escribió el usuario pesa 1.0
+     * y lo que solo llega por sinónimo, SYNONYM_WEIGHT.
      */
-    private int scoreProduct(Producto p, String normalizedMsg, List<String> keywords, PriceRange range) {
-        int score = 0;
-
-        if (nameMatchesUserInput(p, normalizedMsg)) {
-            score += 200;
+    private Map<String, Double> queryTerms(List<String> coreTokens, List<String> expandedKeywords) {
+        Map<String, Double> terms = new LinkedHashMap<>();
+        for (String keyword : expandedKeywords) {
+            for (String token : Bm25fIndex.tokens(keyword)) {
+                if (token.length() < 3 || QueryAnalysis.isStopword(token))
+                    continue;
+                terms.putIfAbsent(Bm25fIndex.stem(token), SYNONYM_WEIGHT);
+            }
         }
-
-        String productText = buildNormalizedProductText(p);
-        String nombreNorm = p.getNombre() != null ? normalize(p.getNombre()) : "";
-        String categoriaNorm = p.getCategoria() != null ? normalize(p.getCategoria()) : "";
-
-        for (String kw : keywords) {
-            if (kw.length() < 3)
-                continue;
-            if (productText.contains(kw)) {
-                if (!nombreNorm.isBlank() && nombreNorm.contains(kw)) {
-                    score += 40;
-                } else if (!categoriaNorm.isBlank() && categoriaNorm.contains(kw)) {
-                    score += 25;
-                } else {
-                    score += 10;
-                }
+        for (String core : coreTokens) {
+            for (String token : Bm25fIndex.tokens(core)) {
+                terms.put(Bm25fIndex.stem(token), 1.0);
             }
         }
+        return terms;
+    }
+
+    /**
+     * Score final: relevancia BM25F (nombre, categoría, características, descripción)
+     * más señales de contexto: stock, precio cercano al pedido y ambiente.
+     */
+    private double scoreProduct(CatalogSnapshot.ScoredDocument candidate, long msgKeywords, PriceRange range) {
+        ProductSearchDocument d = candidate.document();
+        Producto p = d.producto();
+        double score = candidate.relevance();
 
         // Bonus si el producto tiene stock > 0
         if (hasStockOrNoStockField(p)) {
-            score += 5;
+            score += STOCK_BONUS;
         }
 
-        // Bonus si el precio está cerca del centro del rango pedido
-        if (range != null && p.getPrecio() != null && !p.getPrecio().isBlank()) {
-            BigDecimal price = toBigDecimal(p.getPrecio());
-            if (price != null) {
-                BigDecimal mid = null;
-                if (range.min() != null && range.max() != null) {
-                    mid = range.min().add(range.max())
-                            .divide(BigDecimal.valueOf(2), BigDecimal.ROUND_HALF_UP);
-                } else if (range.min() != null) {
-                    mid = range.min();
-                } else if (range.max() != null) {
-                    mid = range.max();
-                }
-                if (mid != null) {
-                    BigDecimal diff = price.subtract(mid).abs();
-                    if (mid.compareTo(BigDecimal.ZERO) > 0 &&
-                            diff.compareTo(mid.multiply(BigDecimal.valueOf(0.2))) <= 0) {
-                        score += 20; // muy cerca del precio esperado
-                    }
-                }
+        // Bonus si el precio está cerca del centro del rango pedido (en céntimos)
+        if (range != null && p.getPrecioCentavos() != null) {
+            Long mid = midCentavos(range);
+            if (mid != null && mid > 0 && Math.abs(p.getPrecioCentavos() - mid) * 5 <= mid) {
+                score += PRICE_BONUS; // muy cerca del precio esperado (a no más del 20%)
             }
         }
 
         // Bonus ambiente: si el usuario dice "sala" y el producto menciona "sala", etc.
-        String msg = normalizedMsg;
-        boolean msgRoom = containsAny(msg, ROOM_KEYWORDS);
-        boolean msgSign = containsAny(msg, SIGN_KEYWORDS);
+        boolean msgRoom = ProductKeywords.has(msgKeywords, ProductKeywords.Group.ROOM);
 
-        boolean prodRoom = containsAny(productText, ROOM_KEYWORDS);
-        boolean prodSign = containsAny(productText, SIGN_KEYWORDS);
+        boolean prodRoom = ProductKeywords.has(d.fullTextKeywords(), ProductKeywords.Group.ROOM);
+        boolean prodSign = ProductKeywords.has(d.fullTextKeywords(), ProductKeywords.Group.SIGN);
 
         if (msgRoom && prodRoom) {
-            score += 15; // mejor aún si dice "sala" y el producto también
+            score += ROOM_BONUS; // mejor aún si dice "sala" y el producto también
         }
         if (msgRoom && prodSign) {
-            score -= 10; // el usuario habla de sala y el producto habla de letreros → menos relevante
+            score -= SIGN_PENALTY; // el usuario habla de sala y el producto habla de letreros → menos relevante
         }
 
         return score;
     }
 
     /**
-     * Palabras clave + sinónimos (para score).
-     */
-    private List<String> extractKeywordsWithSynonyms(String normalizedMsg) {
-        String[] parts = normalizedMsg.split("\\s+");
-        Set<String> result = new LinkedHashSet<>();
-
-        for (String raw : parts) {
-            String token = raw.trim();
-            if (token.length() < 3)
-                continue;
-            if (STOPWORDS.contains(token))
-                continue;
-            result.add(token);
-
-            if (SYNONYMS.containsKey(token)) {
-                SYNONYMS.get(token).forEach(s -> result.add(normalize(s)));
-            }
-        }
-
-        if (result.isEmpty()) {
-            result.add(normalizedMsg);
-        }
-
-        return new ArrayList<>(result);
-    }
-
-    /**
-     * Tokens centrales tal cual los escribió el usuario (sin sinónimos).
-     * Se usan para garantizar que el tipo de producto sea el correcto.
+     * Verifica que el producto contenga alguno de los tokens que el usuario escribió
+     * en nombre o categoría (el tipo de producto). Cuántos calzan y dónde ya lo
+     * pesa BM25F; exigir dos descartaba "lámpara para sala" si "sala" solo estaba
+     * en la descripción.
      */
-    private List<String> extractCoreTokens(String normalizedMsg) {
-        String[] parts = normalizedMsg.split("\\s+");
-        List<String> core = new ArrayList<>();
-        for (String raw : parts) {
-            String token = raw.trim();
-            if (token.length() < 3) continue;
-            if (STOPWORDS.contains(token)) continue;
-            core.add(token);
-        }
-        return core;
-    }
-
-    /**
-     * Verifica que el producto contenga varios de los tokens que el usuario escribió
-     * (en nombre o categoría).
-     * - Si el usuario dio 1 token relevante → pedimos al menos 1 match.
-     * - Si dio 2 o más tokens → pedimos al menos 2 matches para ser más estrictos.
-     */
-    private boolean matchesCoreTokens(Producto p, List<String> coreTokens) {
+    private boolean matchesCoreTokens(ProductSearchDocument d, List<String> coreTokens) {
         if (coreTokens == null || coreTokens.isEmpty()) {
             return true; // no hay tipo específico, no filtramos
         }
 
-        String nameCat = normalize(
-                (p.getNombre() == null ? "" : p.getNombre()) + " " +
-                (p.getCategoria() == null ? "" : p.getCategoria())
-        );
+        String nameCat = d.nombreCategoria();
 
         int hits = 0;
         for (String token : coreTokens) {
             if (token.length() < 3) continue;
-            String t = normalize(token);
+            String t = token; // ya viene normalizado del mensaje
             // soporte simple para plural → singular (focos / foco, lamparas / lampara)
             String singular = t.endsWith("s") && t.length() > 3 ? t.substring(0, t.length() - 1) : t;
 
@@ -617,9 +522,6 @@ public class ProductAdviceService {
             }
         }
 
-        if (coreTokens.size() >= 2) {
-            return hits >= 2; // al menos 2 tokens relevantes deben aparecer
-        }
         return hits >= 1;
     }
 
@@ -629,20 +531,12 @@ public class ProductAdviceService {
      *   no devolvemos cintas/mangueras puras.
      * - Si pide "tira led para letrero" y no menciona lámpara, no devolvemos lámparas.
      */
-    private boolean isProductClassCompatible(Producto p, String normalizedMsg) {
-        String msg = normalizedMsg;
-
-        String productText = normalize(
-                (p.getNombre() == null ? "" : p.getNombre()) + " " +
-                (p.getCategoria() == null ? "" : p.getCategoria()) + " " +
-                (p.getDescripcion() == null ? "" : p.getDescripcion())
-        );
-
-        boolean wantsLamp = containsAny(msg, LAMP_KEYWORDS);
-        boolean wantsStrip = containsAny(msg, STRIP_KEYWORDS);
+    private boolean isProductClassCompatible(ProductSearchDocument d, long msgKeywords) {
+        boolean wantsLamp = ProductKeywords.has(msgKeywords, ProductKeywords.Group.LAMP);
+        boolean wantsStrip = ProductKeywords.has(msgKeywords, ProductKeywords.Group.STRIP);
 
-        boolean productIsLamp = containsAny(productText, LAMP_KEYWORDS);
-        boolean productIsStrip = containsAny(productText, STRIP_KEYWORDS);
+        boolean productIsLamp = ProductKeywords.has(d.claseKeywords(), ProductKeywords.Group.LAMP);
+        boolean productIsStrip = ProductKeywords.has(d.claseKeywords(), ProductKeywords.Group.STRIP);
 
         if (wantsLamp && !wantsStrip) {
             // Usuario pidió lámpara → NO devolver solo cintas/mangueras
@@ -661,24 +555,10 @@ public class ProductAdviceService {
         return true;
     }
 
-    private boolean containsAny(String text, Set<String> tokens) {
-        if (text == null || text.isBlank() || tokens == null || tokens.isEmpty()) {
-            return false;
-        }
-        for (String t : tokens) {
-            if (text.contains(t)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private String normalize(String input) {
-        if (input == null)
-            return "";
-        String lower = input.toLowerCase(Locale.ROOT);
-        String normalized = Normalizer.normalize(lower, Normalizer.Form.NFD);
-        return normalized.replaceAll("\\p{M}", "");
+    private List<Producto> toProducts(List<ProductSearchDocument> docs) {
+        return docs.stream()
+                .map(ProductSearchDocument::producto)
+                .collect(Collectors.toList());
     }
 
     public String formatProductLine(Producto p) {
@@ -697,95 +577,23 @@ public class ProductAdviceService {
     // Precio
     // ==========================================================
 
-    private PriceRange extractPriceRange(String normalizedMsg) {
-        // 1) entre X y Y / de X a Y
-        Pattern betweenPattern = Pattern.compile(
-                "(?:entre|de)\\s+(\\d+(?:[.,]\\d+)?)\\s+(?:a|y)\\s+(\\d+(?:[.,]\\d+)?)"
-        );
-        Matcher mBetween = betweenPattern.matcher(normalizedMsg);
-        if (mBetween.find()) {
-            BigDecimal min = toBigDecimal(mBetween.group(1));
-            BigDecimal max = toBigDecimal(mBetween.group(2));
-            if (min != null && max != null) {
-                if (min.compareTo(max) > 0) {
-                    BigDecimal tmp = min;
-                    min = max;
-                    max = tmp;
-                }
-                return new PriceRange(min, max);
-            }
-        }
-
-        // 2) hasta X / máximo X / no más de X / menos de X / no mayor a X
-        Pattern maxPattern = Pattern.compile(
-                "(?:hasta|maximo|como maximo|no mas de|menos de|no mayor a|no mayor de|por debajo de)\\s+(\\d+(?:[.,]\\d+)?)"
-        );
-        Matcher mMax = maxPattern.matcher(normalizedMsg);
-        if (mMax.find()) {
-            BigDecimal max = toBigDecimal(mMax.group(1));
-            if (max != null) {
-                return new PriceRange(null, max);
-            }
-        }
-
-        // 3) desde X / mínimo X / al menos X / más de X / mayor a X
-        Pattern minPattern = Pattern.compile(
-                "(?:desde|a partir de|minimo|como minimo|al menos|mas de|mayor a|mayor de|por encima de)\\s+(\\d+(?:[.,]\\d+)?)"
-        );
-        Matcher mMin = minPattern.matcher(normalizedMsg);
-        if (mMin.find()) {
-            BigDecimal min = toBigDecimal(mMin.group(1));
-            if (min != null) {
-                return new PriceRange(min, null);
-            }
-        }
-
-        // 4) alrededor de X / cerca de X / aproximadamente X
-        Pattern approxPattern = Pattern.compile(
-                "(?:alrededor de|cerca de|aproximadamente|aprox(?:\\.)?|por unos)\\s+(\\d+(?:[.,]\\d+)?)"
-        );
-        Matcher mApprox = approxPattern.matcher(normalizedMsg);
-        if (mApprox.find()) {
-            BigDecimal center = toBigDecimal(mApprox.group(1));
-            if (center != null) {
-                BigDecimal twentyPercent = center.multiply(BigDecimal.valueOf(0.2));
-                BigDecimal min = center.subtract(twentyPercent);
-                BigDecimal max = center.add(twentyPercent);
-                if (min.compareTo(BigDecimal.ZERO) < 0)
-                    min = BigDecimal.ZERO;
-                return new PriceRange(min, max);
-            }
-        }
-
-        return null;
-    }
-
-    private BigDecimal toBigDecimal(String value) {
-        if (value == null)
-            return null;
-        try {
-            String normalized = value.replace(",", ".").trim();
-            return new BigDecimal(normalized);
-        } catch (Exception e) {
-            return null;
-        }
+    // Productos del catálogo dentro del rango pedido, resuelto con el índice de precios
+    private static BitSet priceFilter(CatalogSnapshot catalog, PriceRange range) {
+        return catalog.matchPriceRange(
+                range.min() == null ? null : Precio.minCentavos(range.min()),
+                range.max() == null ? null : Precio.maxCentavos(range.max()));
     }
 
-    private boolean isWithinPriceRange(Producto p, PriceRange range) {
-        if (p.getPrecio() == null || p.getPrecio().isBlank()) {
-            return false;
-        }
-        BigDecimal price = toBigDecimal(p.getPrecio());
-        if (price == null)
-            return false;
-
-        if (range.min() != null && price.compareTo(range.min()) < 0) {
-            return false;
-        }
-        if (range.max() != null && price.compareTo(range.max()) > 0) {
-            return false;
+    // Centro del rango en céntimos, con los mismos límites que priceFilter; null si no hay límites
+    private static Long midCentavos(PriceRange range) {
+        if (range.min() != null && range.max() != null) {
+            return (Precio.minCentavos(range.min()) + Precio.maxCentavos(range.max()) + 1) / 2;
+        } else if (range.min() != null) {
+            return Precio.minCentavos(range.min());
+        } else if (range.max() != null) {
+            return Precio.maxCentavos(range.max());
         }
-        return true;
+        return null;
     }
 
     private String buildPriceFilterText(PriceRange range) {
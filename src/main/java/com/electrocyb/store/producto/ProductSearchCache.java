@@ -0,0 +1,105 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.ProductAdviceService.PriceRange;
+import com.electrocyb.store.producto.ProductAdviceService.ProductSearchResult;
+import com.electrocyb.store.producto.ProductAdviceService.SearchType;
+import com.electrocyb.store.producto.search.CatalogSearchIndex;
+import com.electrocyb.store.producto.search.CatalogSnapshot;
+import com.electrocyb.store.producto.search.ProductSearchDocument;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Caché de resultados de ProductAdviceService.findProductsForMessage.
+ *
+ * La clave es el mensaje normalizado (QueryAnalysis.normalized: sin tildes ni
+ * mayúsculas, que es todo lo que mira la búsqueda) más las versiones de los índices
+ * y de la disponibilidad del snapshot: cuando cambia un texto o un precio los índices
+ * se reconstruyen, y cuando un producto se agota o vuelve a tener stock sube la
+ * disponibilidad; en ambos casos las entradas viejas dejan de usarse (también las
+ * vacías o de FALLBACK, que ahora podrían encontrar el producto repuesto). Un cambio
+ * de stock que no cruza el cero no mueve ninguna: solo se descartan las entradas
+ * que muestran alguno de esos productos.
+ * Se guardan solo los ids y se resuelven contra la misma foto del catálogo,
+ * así el stock y el precio siempre son los actuales.
+ *
+ * Dos mensajes iguales que llegan a la vez se calculan una sola vez (Caffeine
+ * bloquea por clave mientras se carga).
+ */
+@Component
+public class ProductSearchCache {
+
+    private record Key(long indexVersion, long availabilityVersion, String normalized) {
+    }
+
+    private record Entry(List<Long> productIds, PriceRange priceRange, SearchType type, boolean catalogTruncated) {
+    }
+
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final Cache<Key, Entry> cache;
+
+    public ProductSearchCache(
+            CatalogSearchIndex catalogSearchIndex,
+            @Value("${app.search.cache.max-size:2000}") long maxSize,
+            @Value("${app.search.cache.ttl:10m}") Duration ttl
+    ) {
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Resultado cacheado para el mensaje sobre esta foto del catálogo, o lo calcula con {@code search}.
+     */
+    public ProductSearchResult get(CatalogSnapshot catalog, QueryAnalysis query,
+                                   Supplier<ProductSearchResult> search) {
+        Key key = new Key(catalog.indexVersion(), catalog.availabilityVersion(), query.normalized());
+        Entry entry = cache.get(key, k -> {
+            ProductSearchResult result = search.get();
+            return new Entry(
+                    result.products().stream().map(Producto::getId).toList(),
+                    result.priceRange(),
+                    result.type(),
+                    result.catalogTruncated()
+            );
+        });
+
+        List<Producto> products = catalog.findByIds(entry.productIds()).stream()
+                .map(ProductSearchDocument::producto)
+                .toList();
+        return new ProductSearchResult(products, entry.priceRange(), entry.type(), entry.catalogTruncated());
+    }
+
+    /**
+     * Descarta las entradas de índices o disponibilidad anteriores y las que muestran
+     * productos afectados (corre después de que el índice aplicó el cambio).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        CatalogSnapshot current = catalogSearchIndex.current();
+        Set<Long> afectados = event.productIds();
+        cache.asMap().entrySet().removeIf(e -> e.getKey().indexVersion() < current.indexVersion()
+                || e.getKey().availabilityVersion() < current.availabilityVersion()
+                || e.getValue().productIds().stream().anyMatch(afectados::contains));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
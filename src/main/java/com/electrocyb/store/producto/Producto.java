@@ -1,10 +1,12 @@
 package com.electrocyb.store.producto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
-import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -28,13 +30,21 @@ public class Producto {
     // Ruta o URL relativa de la imagen (ej: "/uploads/productos/led-1.jpg")
     private String imagen;
 
-    // Usa el tipo que ya tengas en tu entidad (BigDecimal, Double, etc.)
-    private String precio;
+    // Precio en céntimos (S/ 35.50 → 3550). En JSON se sigue exponiendo como "precio": "35.50"
+    @JsonIgnore
+    @Column(name = "precio_centavos")
+    private Long precioCentavos;
 
     private Integer stock;
 
+    // Código del proveedor; identifica al producto en las cargas masivas (opcional)
+    @Column(unique = true, length = 64)
+    private String sku;
+
     // 👇 Mapeo de la tabla producto_caracteristicas
+    // BatchSize: si algún camino no usa el EntityGraph, se cargan de a 100 productos con un IN
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(
         name = "producto_caracteristicas",
         joinColumns = @JoinColumn(name = "producto_id")
@@ -42,4 +52,13 @@ public class Producto {
     @MapKeyColumn(name = "nombre") // columna para la clave (ej. "potencia")
     @Column(name = "valor")        // columna para el valor (ej. "12W")
     private Map<String, String> caracteristicas = new HashMap<>();
+
+    @JsonProperty("precio")
+    public String getPrecio() {
+        return Precio.format(precioCentavos);
+    }
+
+    public void setPrecio(String precio) {
+        this.precioCentavos = Precio.parseCentavos(precio);
+    }
 }
@@ -1,8 +1,18 @@
 package com.electrocyb.store.producto;
 
+import com.electrocyb.store.producto.dto.FacetSearchResponseDto;
+import com.electrocyb.store.producto.dto.ImportResultDto;
+import com.electrocyb.store.producto.dto.MasVendidoDto;
+import com.electrocyb.store.producto.dto.ProductoPageDto;
+import com.electrocyb.store.producto.dto.ProductoResumenDto;
+import com.electrocyb.store.producto.importacion.ProductImportService;
+import com.electrocyb.store.producto.search.SuggestIndex;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -11,9 +21,11 @@ import java.util.List;
 public class ProductoController {
 
     private final ProductoService service;
+    private final ProductImportService importService;
 
-    public ProductoController(ProductoService service) {
+    public ProductoController(ProductoService service, ProductImportService importService) {
         this.service = service;
+        this.importService = importService;
     }
 
     // GET /api/productos  → listado catálogo / admin
@@ -22,12 +34,64 @@ public class ProductoController {
         return service.listarTodos();
     }
 
+    // GET /api/productos/pagina?after=&size=&categoria=&precioMin=&precioMax=  → grilla de la tienda
+    @GetMapping("/pagina")
+    public ProductoPageDto pagina(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "size", defaultValue = "24") int size,
+            @RequestParam(value = "categoria", required = false) String categoria,
+            @RequestParam(value = "precioMin", required = false) BigDecimal precioMin,
+            @RequestParam(value = "precioMax", required = false) BigDecimal precioMax
+    ) {
+        return service.listarPagina(after, size, categoria, precioMin, precioMax);
+    }
+
+    // GET /api/productos/facetas?q=foco 12W&categoria=&precio=20-50&attr=potencia:12W  → filtros con conteos
+    @GetMapping("/facetas")
+    public FacetSearchResponseDto facetas(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "categoria", required = false, defaultValue = "") List<String> categorias,
+            @RequestParam(value = "precio", required = false, defaultValue = "") List<String> precios,
+            @RequestParam(value = "attr", required = false, defaultValue = "") List<String> atributos,
+            @RequestParam(value = "size", defaultValue = "24") int size
+    ) {
+        return service.buscarFacetado(q, noVacios(categorias), noVacios(precios), noVacios(atributos), size);
+    }
+
+    // GET /api/productos/suggest?q=lam&limit=8  → autocompletado de la caja de búsqueda
+    @GetMapping("/suggest")
+    public List<SuggestIndex.Suggestion> suggest(
+            @RequestParam(value = "q", defaultValue = "") String q,
+            @RequestParam(value = "limit", defaultValue = "8") int limit
+    ) {
+        return service.sugerir(q, limit);
+    }
+
     // GET /api/productos/{id}  → detalle
     @GetMapping("/{id}")
     public Producto obtener(@PathVariable Long id) {
         return service.obtenerPorId(id);
     }
 
+    // GET /api/productos/{id}/relacionados?limit=4  → "comprados juntos" (con stock)
+    @GetMapping("/{id}/relacionados")
+    public List<ProductoResumenDto> relacionados(
+            @PathVariable Long id,
+            @RequestParam(value = "limit", defaultValue = "4") int limit
+    ) {
+        return service.relacionados(id, limit);
+    }
+
+    // GET /api/productos/mas-vendidos?dias=7&categoria=&limit=8  → ranking por unidades (7 o 30 días)
+    @GetMapping("/mas-vendidos")
+    public List<MasVendidoDto> masVendidos(
+            @RequestParam(value = "dias", defaultValue = "7") int dias,
+            @RequestParam(value = "categoria", required = false) String categoria,
+            @RequestParam(value = "limit", defaultValue = "8") int limit
+    ) {
+        return service.masVendidos(dias, categoria, limit);
+    }
+
     // GET /api/productos/categoria/{categoria}
     @GetMapping("/categoria/{categoria}")
     public List<Producto> porCategoria(@PathVariable String categoria) {
@@ -41,6 +105,17 @@ public class ProductoController {
         return service.crear(p);
     }
 
+    // POST /api/productos/importar?formato=csv|jsonl  → carga masiva (ADMIN)
+    // El cuerpo es el archivo tal cual (text/csv o application/x-ndjson) y se lee en streaming
+    @PostMapping("/importar")
+    public ImportResultDto importar(
+            InputStream body,
+            @RequestParam(value = "formato", required = false) String formato,
+            @RequestHeader(value = "Content-Type", required = false) String contentType
+    ) throws IOException {
+        return importService.importar(body, ProductImportService.Formato.resolver(formato, contentType));
+    }
+
     // PUT /api/productos/{id}  → actualizar (ADMIN)
     @PutMapping("/{id}")
     public Producto actualizar(@PathVariable Long id, @RequestBody Producto p) {
@@ -53,4 +128,8 @@ public class ProductoController {
     public void eliminar(@PathVariable Long id) {
         service.eliminar(id);
     }
-}
\ No newline at end of file
+
+    private static List<String> noVacios(List<String> values) {
+        return values.stream().filter(v -> v != null && !v.isBlank()).toList();
+    }
+}
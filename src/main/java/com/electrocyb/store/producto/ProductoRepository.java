@@ -1,12 +1,36 @@
 package com.electrocyb.store.producto;
 
+import com.electrocyb.store.producto.dto.ProductoResumenDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
 
-    List<Producto> findByCategoriaIgnoreCase(String categoria);
+    // Listado paginado por keyset (id > after), sin cargar características
+    @Query("""
+            select new com.electrocyb.store.producto.dto.ProductoResumenDto(
+                p.id, p.nombre, p.categoria, p.imagen, p.precioCentavos, p.stock)
+            from Producto p
+            where p.id > :after
+              and (:categoria is null or lower(p.categoria) = lower(:categoria))
+              and (:minCentavos is null or p.precioCentavos >= :minCentavos)
+              and (:maxCentavos is null or p.precioCentavos <= :maxCentavos)
+            order by p.id
+            """)
+    List<ProductoResumenDto> findPage(@Param("after") Long after,
+                                      @Param("categoria") String categoria,
+                                      @Param("minCentavos") Long minCentavos,
+                                      @Param("maxCentavos") Long maxCentavos,
+                                      Limit limit);
+
+    @EntityGraph(attributePaths = "caracteristicas")
+    List<Producto> findByCategoriaIgnoreCaseOrderById(String categoria);
 
     List<Producto> findTop5ByNombreContainingIgnoreCase(String nombre);
 
@@ -20,4 +44,14 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
             String categoria,
             String descripcion
     );
+
+    // Catálogo completo con sus características en una sola consulta (índice de búsqueda)
+    @EntityGraph(attributePaths = "caracteristicas")
+    @Query("select p from Producto p order by p.id")
+    List<Producto> findAllWithCaracteristicas();
+
+    // Solo los productos indicados, con sus características (cambios puntuales del índice)
+    @EntityGraph(attributePaths = "caracteristicas")
+    @Query("select p from Producto p where p.id in :ids")
+    List<Producto> findAllWithCaracteristicasByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -1,22 +1,180 @@
 package com.electrocyb.store.producto;
 
+import com.electrocyb.store.producto.dto.FacetSearchResponseDto;
+import com.electrocyb.store.producto.dto.MasVendidoDto;
+import com.electrocyb.store.producto.dto.ProductoPageDto;
+import com.electrocyb.store.producto.dto.ProductoResumenDto;
+import com.electrocyb.store.producto.ranking.BestSellerLeaderboard;
+import com.electrocyb.store.producto.related.CoPurchaseIndex;
+import com.electrocyb.store.producto.search.AttributeIndex;
+import com.electrocyb.store.producto.search.CatalogSearchIndex;
+import com.electrocyb.store.producto.search.CatalogSnapshot;
+import com.electrocyb.store.producto.search.FacetIndex;
+import com.electrocyb.store.producto.search.ProductSearchDocument;
+import com.electrocyb.store.producto.search.SuggestIndex;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductoService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_RELACIONADOS = 10;
+    private static final int MAX_MAS_VENDIDOS = 50;
+
     private final ProductoRepository repo;
+    private final ApplicationEventPublisher events;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final CoPurchaseIndex coPurchaseIndex;
+    private final BestSellerLeaderboard bestSellers;
 
-    public ProductoService(ProductoRepository repo) {
+    public ProductoService(ProductoRepository repo, ApplicationEventPublisher events,
+                           CatalogSearchIndex catalogSearchIndex, CoPurchaseIndex coPurchaseIndex,
+                           BestSellerLeaderboard bestSellers) {
         this.repo = repo;
+        this.events = events;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.coPurchaseIndex = coPurchaseIndex;
+        this.bestSellers = bestSellers;
     }
 
+    // Con características en la misma consulta: serializar la lista no dispara una consulta por producto
     public List<Producto> listarTodos() {
-        return repo.findAll();
+        return repo.findAllWithCaracteristicas();
+    }
+
+    /**
+     * Página del catálogo por keyset: productos con id > after, en orden de id.
+     * Cuesta lo mismo la primera página que la número mil (no hay OFFSET).
+     */
+    public ProductoPageDto listarPagina(Long after, int size, String categoria,
+                                        BigDecimal precioMin, BigDecimal precioMax) {
+        int limite = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        String cat = (categoria == null || categoria.isBlank()) ? null : categoria.trim();
+        Long minCentavos = precioMin == null ? null : Precio.minCentavos(precioMin);
+        Long maxCentavos = precioMax == null ? null : Precio.maxCentavos(precioMax);
+
+        // Pedimos uno de más para saber si hay otra página
+        List<ProductoResumenDto> filas = repo.findPage(
+                after == null ? 0L : after, cat, minCentavos, maxCentavos, Limit.of(limite + 1));
+
+        if (filas.size() <= limite) {
+            return new ProductoPageDto(filas, null);
+        }
+        List<ProductoResumenDto> pagina = filas.subList(0, limite);
+        return new ProductoPageDto(List.copyOf(pagina), pagina.get(limite - 1).id());
+    }
+
+    /**
+     * Búsqueda facetada sobre el catálogo en memoria.
+     * Cada atributo viene como "clave:valor" (p. ej. "potencia:12W"); en {@code q} también
+     * se reconocen especificaciones sueltas ("12W luz cálida IP65").
+     */
+    public FacetSearchResponseDto buscarFacetado(String q, List<String> categorias, List<String> precios,
+                                                 List<String> atributos, int size) {
+        Map<String, Set<String>> porClave = new LinkedHashMap<>();
+        for (String atributo : atributos) {
+            int sep = atributo.indexOf(':');
+            if (sep <= 0 || sep == atributo.length() - 1) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Atributo inválido (use clave:valor): " + atributo);
+            }
+            porClave.computeIfAbsent(ProductSearchDocument.facetKey(atributo.substring(0, sep)), k -> new HashSet<>())
+                    .add(AttributeIndex.valueKey(atributo.substring(sep + 1)));
+        }
+        FacetIndex.Selection seleccion = new FacetIndex.Selection(
+                categorias.stream().map(ProductSearchDocument::facetKey).collect(Collectors.toSet()),
+                Set.copyOf(precios),
+                porClave
+        );
+
+        CatalogSnapshot.FacetedResult resultado = catalogSearchIndex.current().searchFacets(q, seleccion);
+        int limite = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<ProductoResumenDto> items = resultado.documents().stream()
+                .limit(limite)
+                .map(d -> ProductoResumenDto.of(d.producto()))
+                .toList();
+
+        return new FacetSearchResponseDto(
+                items,
+                resultado.documents().size(),
+                resultado.facets().categorias(),
+                resultado.facets().precios(),
+                resultado.facets().caracteristicas()
+        );
+    }
+
+    // Autocompletado de la caja de búsqueda: todo en memoria, una llamada por tecla
+    public List<SuggestIndex.Suggestion> sugerir(String q, int limit) {
+        int limite = Math.min(Math.max(limit, 1), SuggestIndex.TOP_K);
+        return catalogSearchIndex.current().suggest(q, limite);
+    }
+
+    /**
+     * "Comprados juntos" de un producto, desde la matriz de co-ocurrencia y el índice
+     * en memoria (sin consultas). Solo productos con stock.
+     */
+    public List<ProductoResumenDto> relacionados(Long id, int limit) {
+        CatalogSnapshot catalog = catalogSearchIndex.current();
+        if (catalog.find(id).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado");
+        }
+        int limite = Math.min(Math.max(limit, 1), MAX_RELACIONADOS);
+        return relacionadosDe(catalog, List.of(id), limite).stream()
+                .map(ProductoResumenDto::of)
+                .toList();
+    }
+
+    /**
+     * Productos que se suelen comprar con alguno de {@code ids} (sin repetir ni incluir esos ids),
+     * recorriendo los vecinos de cada uno en orden.
+     */
+    public List<Producto> relacionadosDe(Collection<Long> ids, int limit) {
+        return relacionadosDe(catalogSearchIndex.current(), ids, limit);
+    }
+
+    private List<Producto> relacionadosDe(CatalogSnapshot catalog, Collection<Long> ids, int limit) {
+        Set<Long> vistos = new HashSet<>(ids);
+        List<Producto> result = new ArrayList<>();
+        for (Long id : ids) {
+            for (Long vecino : coPurchaseIndex.neighbors(id)) {
+                if (result.size() >= limit) {
+                    return result;
+                }
+                if (!vistos.add(vecino)) continue;
+                catalog.find(vecino)
+                        .map(ProductSearchDocument::producto)
+                        .filter(p -> p.getStock() == null || p.getStock() > 0)
+                        .ifPresent(result::add);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Más vendidos de los últimos {@code dias} (7 o 30), global o de una categoría.
+     * El ranking ya está armado en memoria; aquí solo se filtra con el índice del catálogo.
+     */
+    public List<MasVendidoDto> masVendidos(int dias, String categoria, int limit) {
+        CatalogSnapshot catalog = catalogSearchIndex.current();
+        String cat = (categoria == null || categoria.isBlank()) ? null : ProductSearchDocument.facetKey(categoria);
+        int limite = Math.min(Math.max(limit, 1), MAX_MAS_VENDIDOS);
+
+        List<MasVendidoDto> result = new ArrayList<>();
+        for (BestSellerLeaderboard.Entry e : bestSellers.top(BestSellerLeaderboard.Window.ofDays(dias), limite,
+                id -> catalog.find(id)
+                        .filter(d -> cat == null || cat.equals(d.categoriaFacet()))
+                        .filter(d -> d.producto().getStock() == null || d.producto().getStock() > 0)
+                        .isPresent())) {
+            catalog.find(e.productoId()).ifPresent(d -> result.add(MasVendidoDto.of(d.producto(), e.unidades())));
+        }
+        return result;
     }
 
     public Producto obtenerPorId(Long id) {
@@ -25,7 +183,7 @@ public class ProductoService {
     }
 
     public List<Producto> buscarPorCategoria(String categoria) {
-        return repo.findByCategoriaIgnoreCase(categoria);
+        return repo.findByCategoriaIgnoreCaseOrderById(categoria);
     }
 
     public Producto crear(Producto p) {
@@ -33,7 +191,9 @@ public class ProductoService {
         if (p.getCaracteristicas() == null) {
             p.setCaracteristicas(new HashMap<>());
         }
-        return repo.save(p);
+        Producto guardado = repo.save(p);
+        events.publishEvent(new CatalogChangeEvent.ProductCreated(guardado.getId()));
+        return guardado;
     }
 
     public Producto actualizar(Long id, Producto datos) {
@@ -58,7 +218,9 @@ public class ProductoService {
             existente.getCaracteristicas().putAll(nuevas);
         }
 
-        return repo.save(existente);
+        Producto guardado = repo.save(existente);
+        events.publishEvent(new CatalogChangeEvent.ProductUpdated(guardado.getId()));
+        return guardado;
     }
 
     public void eliminar(Long id) {
@@ -66,5 +228,6 @@ public class ProductoService {
             throw new RuntimeException("Producto no existe");
         }
         repo.deleteById(id);
+        events.publishEvent(new CatalogChangeEvent.ProductDeleted(id));
     }
 }
\ No newline at end of file
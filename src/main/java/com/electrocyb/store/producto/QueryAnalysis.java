@@ -0,0 +1,285 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.ProductAdviceService.PriceRange;
+import com.electrocyb.store.producto.search.ProductKeywords;
+import com.electrocyb.store.producto.search.SpellCorrector;
+import com.electrocyb.store.producto.search.TextNormalizer;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mensaje del cliente ya analizado, en una sola pasada: texto normalizado,
+ * palabras, tokens centrales, palabras clave con sinónimos, rango de precio
+ * y grupos de ProductKeywords (ambiente, letrero, clase, pedido de catálogo).
+ *
+ * ChatService lo arma una vez por mensaje y se lo pasa a ProductAdviceService,
+ * así nadie vuelve a normalizar ni a partir el mismo texto.
+ * Es inmutable y se puede compartir entre hilos.
+ */
+public final class QueryAnalysis {
+
+    // Stopwords simples (en minúsculas, sin tilde)
+    private static final Set<String> STOPWORDS = Set.of(
+            "quiero", "busco", "necesito", "una", "un", "para", "que", "cual",
+            "producto", "productos", "me", "recomiendame", "recomiendeme", "recomienda",
+            "hasta", "maximo", "minimo", "entre", "desde", "soles", "s", "aprox",
+            "al", "menos", "mas", "de", "a", "y", "como", "el", "la", "los", "las",
+            "todos", "todas", "catalogo", "catalogo.", "catalogo,", "catálogo", "lista", "completa",
+            "dame", "muestrame", "muéstrame", "ensename", "enséname", "quiero comprar",
+            "precio", "barato", "barata", "caro", "cara", "tipo", "hay", "tienen",
+            "por", "favor", "podrias", "podrías", "alrededor", "alrededor de",
+            "aproximadamente", "cerca", "cerca de"
+    );
+
+    // Rangos de precio, compilados una sola vez
+    // 1) entre X y Y / de X a Y
+    private static final Pattern BETWEEN_PATTERN = Pattern.compile(
+            "(?:entre|de)\\s+(\\d+(?:[.,]\\d+)?)\\s+(?:a|y)\\s+(\\d+(?:[.,]\\d+)?)"
+    );
+    // 2) hasta X / máximo X / no más de X / menos de X / no mayor a X
+    private static final Pattern MAX_PATTERN = Pattern.compile(
+            "(?:hasta|maximo|como maximo|no mas de|menos de|no mayor a|no mayor de|por debajo de)\\s+(\\d+(?:[.,]\\d+)?)"
+    );
+    // 3) desde X / mínimo X / al menos X / más de X / mayor a X
+    private static final Pattern MIN_PATTERN = Pattern.compile(
+            "(?:desde|a partir de|minimo|como minimo|al menos|mas de|mayor a|mayor de|por encima de)\\s+(\\d+(?:[.,]\\d+)?)"
+    );
+    // 4) alrededor de X / cerca de X / aproximadamente X
+    private static final Pattern APPROX_PATTERN = Pattern.compile(
+            "(?:alrededor de|cerca de|aproximadamente|aprox(?:\\.)?|por unos)\\s+(\\d+(?:[.,]\\d+)?)"
+    );
+
+    private final String message;
+    private final String normalized;
+    private final List<String> tokens;
+    private final List<String> coreTokens;
+    private final List<String> expandedKeywords;
+    private final PriceRange priceRange;
+    private final long keywords;
+
+    private QueryAnalysis(String message, String normalized, List<String> tokens) {
+        this.message = message;
+        this.normalized = normalized;
+        this.tokens = tokens;
+
+        List<String> core = new ArrayList<>(tokens.size());
+        Set<String> expanded = new LinkedHashSet<>();
+        for (String token : tokens) {
+            if (token.length() < 3 || STOPWORDS.contains(token))
+                continue;
+            core.add(token);
+            expanded.add(token);
+            // Los sinónimos ya vienen normalizados
+            List<String> synonyms = ProductKeywords.SYNONYMS.get(token);
+            if (synonyms != null) {
+                expanded.addAll(synonyms);
+            }
+        }
+        if (expanded.isEmpty()) {
+            expanded.add(normalized);
+        }
+        this.coreTokens = List.copyOf(core);
+        this.expandedKeywords = List.copyOf(expanded);
+        this.priceRange = extractPriceRange(normalized);
+        // Una sola pasada para ambientes, letreros, clase y pedido de catálogo
+        this.keywords = ProductKeywords.match(normalized);
+    }
+
+    /**
+     * Analiza un mensaje tal cual llega del cliente (puede ser null).
+     */
+    public static QueryAnalysis of(String message) {
+        String trimmed = message == null ? "" : message.trim();
+        String normalized = TextNormalizer.normalize(trimmed);
+        return new QueryAnalysis(trimmed, normalized, split(normalized));
+    }
+
+    /**
+     * Reemplaza los tokens que no existen en el catálogo por la palabra más cercana
+     * (SymSpell, 1–2 errores). Stopwords, números y palabras conocidas no se tocan,
+     * así que un mensaje bien escrito devuelve este mismo análisis sin recalcular nada.
+     */
+    public QueryAnalysis withSpelling(SpellCorrector corrector) {
+        String[] corrected = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (STOPWORDS.contains(token) || corrector.isKnown(token))
+                continue;
+            String fixed = corrector.correct(token);
+            if (!fixed.equals(token)) {
+                if (corrected == null) {
+                    corrected = tokens.toArray(new String[0]);
+                }
+                corrected[i] = fixed;
+            }
+        }
+        if (corrected == null) {
+            return this;
+        }
+        return new QueryAnalysis(message, String.join(" ", corrected), List.of(corrected));
+    }
+
+    // ==========================================================
+    // Resultado del análisis
+    // ==========================================================
+
+    /**
+     * Mensaje original, sin espacios al inicio ni al final.
+     */
+    public String message() {
+        return message;
+    }
+
+    public boolean isBlank() {
+        return message.isEmpty();
+    }
+
+    /**
+     * Minúsculas y sin tildes (y ya corregido, si pasó por {@link #withSpelling}).
+     */
+    public String normalized() {
+        return normalized;
+    }
+
+    /**
+     * Palabras del texto normalizado, separadas por espacios.
+     */
+    public List<String> tokens() {
+        return tokens;
+    }
+
+    /**
+     * Tokens centrales tal cual los escribió el usuario (sin stopwords ni sinónimos).
+     * Se usan para garantizar que el tipo de producto sea el correcto.
+     */
+    public List<String> coreTokens() {
+        return coreTokens;
+    }
+
+    /**
+     * Palabras clave + sinónimos (para score). Si no queda ninguna, el mensaje completo.
+     */
+    public List<String> expandedKeywords() {
+        return expandedKeywords;
+    }
+
+    /**
+     * Rango de precio pedido ("hasta 50", "entre 40 y 80", "alrededor de 30"), o null.
+     */
+    public PriceRange priceRange() {
+        return priceRange;
+    }
+
+    /**
+     * Grupos de ProductKeywords presentes en el mensaje, como máscara de bits.
+     */
+    public long keywords() {
+        return keywords;
+    }
+
+    public boolean has(ProductKeywords.Group group) {
+        return ProductKeywords.has(keywords, group);
+    }
+
+    static boolean isStopword(String token) {
+        return STOPWORDS.contains(token);
+    }
+
+    // ==========================================================
+    // Tokenizador y precio
+    // ==========================================================
+
+    // Mismos separadores que \s (espacio, tab, saltos de línea, \u000B, \f)
+    private static List<String> split(String text) {
+        List<String> parts = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean space = i == text.length() || isSpace(text.charAt(i));
+            if (!space && start < 0) {
+                start = i;
+            } else if (space && start >= 0) {
+                parts.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return List.copyOf(parts);
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    static PriceRange extractPriceRange(String normalizedMsg) {
+        // Sin dígitos no hay precio: se evita correr los cuatro patrones
+        if (!hasDigit(normalizedMsg)) {
+            return null;
+        }
+
+        Matcher mBetween = BETWEEN_PATTERN.matcher(normalizedMsg);
+        if (mBetween.find()) {
+            BigDecimal min = toBigDecimal(mBetween.group(1));
+            BigDecimal max = toBigDecimal(mBetween.group(2));
+            if (min != null && max != null) {
+                if (min.compareTo(max) > 0) {
+                    BigDecimal tmp = min;
+                    min = max;
+                    max = tmp;
+                }
+                return new PriceRange(min, max);
+            }
+        }
+
+        Matcher mMax = MAX_PATTERN.matcher(normalizedMsg);
+        if (mMax.find()) {
+            BigDecimal max = toBigDecimal(mMax.group(1));
+            if (max != null) {
+                return new PriceRange(null, max);
+            }
+        }
+
+        Matcher mMin = MIN_PATTERN.matcher(normalizedMsg);
+        if (mMin.find()) {
+            BigDecimal min = toBigDecimal(mMin.group(1));
+            if (min != null) {
+                return new PriceRange(min, null);
+            }
+        }
+
+        Matcher mApprox = APPROX_PATTERN.matcher(normalizedMsg);
+        if (mApprox.find()) {
+            BigDecimal center = toBigDecimal(mApprox.group(1));
+            if (center != null) {
+                BigDecimal twentyPercent = center.multiply(BigDecimal.valueOf(0.2));
+                BigDecimal min = center.subtract(twentyPercent);
+                BigDecimal max = center.add(twentyPercent);
+                if (min.compareTo(BigDecimal.ZERO) < 0)
+                    min = BigDecimal.ZERO;
+                return new PriceRange(min, max);
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean hasDigit(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') return true;
+        }
+        return false;
+    }
+
+    private static BigDecimal toBigDecimal(String value) {
+        if (value == null)
+            return null;
+        try {
+            String normalized = value.replace(",", ".").trim();
+            return new BigDecimal(normalized);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
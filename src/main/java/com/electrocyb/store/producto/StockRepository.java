@@ -0,0 +1,63 @@
+package com.electrocyb.store.producto;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Descuento de stock sin leer-modificar-escribir.
+ *
+ * Cada producto se descuenta con un UPDATE condicionado (stock >= cantidad): la
+ * comprobación y la resta ocurren en la misma sentencia, bajo el lock de la fila,
+ * así que dos checkouts simultáneos no pueden vender la misma unidad.
+ * Todo el carrito va en un solo batch y siempre en orden de id, para que dos
+ * pedidos con los mismos productos bloqueen las filas en el mismo orden (sin deadlocks).
+ *
+ * Se ejecuta en la transacción de quien llama: si algún producto no alcanza,
+ * quien llama lanza la excepción y el rollback devuelve lo ya descontado.
+ */
+@Repository
+public class StockRepository {
+
+    private static final String DESCONTAR_SQL =
+            "UPDATE productos SET stock = stock - ? WHERE id = ? AND stock >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Descuenta las unidades de cada producto (id → cantidad, cantidades > 0).
+     *
+     * @return ids que no se pudieron descontar (no existen o sin stock suficiente),
+     *         en orden de id; vacío si se descontó todo
+     */
+    public List<Long> descontar(Map<Long, Integer> unidades) {
+        if (unidades.isEmpty()) {
+            return List.of();
+        }
+        List<Map.Entry<Long, Integer>> ordenadas = new ArrayList<>(new TreeMap<>(unidades).entrySet());
+
+        int[] filas = jdbcTemplate.batchUpdate(DESCONTAR_SQL, ordenadas, ordenadas.size(), (ps, e) -> {
+            ps.setInt(1, e.getValue());
+            ps.setLong(2, e.getKey());
+            ps.setInt(3, e.getValue());
+        })[0];
+
+        List<Long> rechazados = new ArrayList<>();
+        for (int i = 0; i < filas.length; i++) {
+            // SUCCESS_NO_INFO: el driver no informa filas; se toma como descontado
+            if (filas[i] == 0 || filas[i] == Statement.EXECUTE_FAILED) {
+                rechazados.add(ordenadas.get(i).getKey());
+            }
+        }
+        return rechazados;
+    }
+}
@@ -0,0 +1,14 @@
+package com.electrocyb.store.producto.dto;
+
+import com.electrocyb.store.producto.search.FacetIndex;
+
+import java.util.List;
+
+// Resultado de la búsqueda facetada: primera página de productos + conteos por faceta
+public record FacetSearchResponseDto(
+        List<ProductoResumenDto> items,
+        int total,
+        List<FacetIndex.Count> categorias,
+        List<FacetIndex.Count> precios,
+        List<FacetIndex.AttributeCounts> caracteristicas
+) {}
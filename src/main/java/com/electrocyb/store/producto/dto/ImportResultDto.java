@@ -0,0 +1,15 @@
+package com.electrocyb.store.producto.dto;
+
+import java.util.List;
+
+// Resumen de una carga masiva: conteos y el detalle de las filas que no se importaron
+public record ImportResultDto(
+        int filas,
+        int creados,
+        int actualizados,
+        int conError,
+        List<FilaConError> errores
+) {
+    public record FilaConError(int fila, String sku, String mensaje) {
+    }
+}
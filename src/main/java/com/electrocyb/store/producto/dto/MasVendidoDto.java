@@ -0,0 +1,19 @@
+package com.electrocyb.store.producto.dto;
+
+import com.electrocyb.store.producto.Producto;
+
+// Fila de "más vendidos": la del grid más las unidades vendidas en la ventana pedida
+public record MasVendidoDto(
+        Long id,
+        String nombre,
+        String categoria,
+        String imagen,
+        String precio,
+        Integer stock,
+        long unidadesVendidas
+) {
+    public static MasVendidoDto of(Producto p, long unidadesVendidas) {
+        return new MasVendidoDto(p.getId(), p.getNombre(), p.getCategoria(), p.getImagen(), p.getPrecio(),
+                p.getStock(), unidadesVendidas);
+    }
+}
@@ -0,0 +1,9 @@
+package com.electrocyb.store.producto.dto;
+
+import java.util.List;
+
+// Página del listado; nextCursor es el "after" de la siguiente (null si no hay más)
+public record ProductoPageDto(
+        List<ProductoResumenDto> items,
+        Long nextCursor
+) {}
@@ -0,0 +1,24 @@
+package com.electrocyb.store.producto.dto;
+
+import com.electrocyb.store.producto.Precio;
+import com.electrocyb.store.producto.Producto;
+
+// Fila liviana para la grilla de la tienda (sin descripción ni características)
+public record ProductoResumenDto(
+        Long id,
+        String nombre,
+        String categoria,
+        String imagen,
+        String precio,
+        Integer stock
+) {
+    // Usado por la proyección JPQL (precio en céntimos)
+    public ProductoResumenDto(Long id, String nombre, String categoria, String imagen,
+                              Long precioCentavos, Integer stock) {
+        this(id, nombre, categoria, imagen, Precio.format(precioCentavos), stock);
+    }
+
+    public static ProductoResumenDto of(Producto p) {
+        return new ProductoResumenDto(p.getId(), p.getNombre(), p.getCategoria(), p.getImagen(), p.getPrecio(), p.getStock());
+    }
+}
@@ -0,0 +1,102 @@
+package com.electrocyb.store.producto.importacion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector CSV (RFC 4180) registro por registro, sin cargar el archivo en memoria:
+ * campos entre comillas con separadores, saltos de línea y comillas dobles ("").
+ * Acepta fin de línea \n o \r\n y el BOM que agrega Excel.
+ */
+final class CsvReader {
+
+    private final Reader in;
+    private char separator;
+    private int pushedBack = -2;
+    private int line = 1;
+    private int recordLine;
+    private boolean started;
+
+    CsvReader(Reader in, char separator) {
+        this.in = in;
+        this.separator = separator;
+    }
+
+    void separator(char separator) {
+        this.separator = separator;
+    }
+
+    /**
+     * Línea del archivo donde empezó el último registro leído.
+     */
+    int recordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Siguiente registro, o null al final del archivo.
+     *
+     * @throws IllegalArgumentException si unas comillas no se cierran
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Comillas sin cerrar desde la línea " + recordLine);
+                }
+                if (c == '"') {
+                    int n = read();
+                    if (n != '"') {
+                        quoted = false;
+                        c = n;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r') {
+                int n = read();
+                if (n != '\n') pushedBack = n;
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != -2) {
+            c = pushedBack;
+            pushedBack = -2;
+        } else {
+            c = in.read();
+        }
+        if (c == '\n') line++;
+        return c;
+    }
+}
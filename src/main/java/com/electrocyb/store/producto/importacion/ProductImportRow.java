@@ -0,0 +1,117 @@
+package com.electrocyb.store.producto.importacion;
+
+import com.electrocyb.store.producto.Precio;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fila ya validada de una carga masiva, lista para el INSERT / UPDATE.
+ * {@code fila} es la línea del archivo, para reportar errores.
+ */
+record ProductImportRow(
+        int fila,
+        String sku,
+        String nombre,
+        String categoria,
+        String descripcion,
+        String imagen,
+        Long precioCentavos,
+        Integer stock,
+        Map<String, String> caracteristicas
+) {
+
+    // "id" se acepta (viene en la exportación del catálogo) pero no se usa: la clave es el SKU
+    static final Set<String> CAMPOS = Set.of(
+            "id", "sku", "nombre", "categoria", "descripcion", "imagen", "precio", "stock", "caracteristicas");
+
+    // Largos de las columnas (varchar(255) salvo los indicados en Producto)
+    private static final int MAX_SKU = 64;
+    private static final int MAX_TEXTO = 255;
+    private static final int MAX_DESCRIPCION = 1000;
+
+    /**
+     * Valida los campos de texto de una fila (ya separados por CSV o JSON).
+     *
+     * @throws IllegalArgumentException con el motivo, si la fila no se puede importar
+     */
+    static ProductImportRow of(int fila, Map<String, String> campos, Map<String, String> caracteristicas) {
+        String nombre = texto(campos, "nombre", MAX_TEXTO);
+        if (nombre == null) {
+            throw new IllegalArgumentException("Falta el nombre");
+        }
+
+        Long precioCentavos = Precio.parseCentavos(campos.get("precio"));
+
+        Integer stock = null;
+        String stockTexto = texto(campos, "stock", MAX_TEXTO);
+        if (stockTexto != null) {
+            try {
+                stock = Integer.parseInt(stockTexto);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Stock inválido: " + stockTexto);
+            }
+            if (stock < 0) {
+                throw new IllegalArgumentException("Stock negativo: " + stock);
+            }
+        }
+
+        Map<String, String> specs = new LinkedHashMap<>();
+        caracteristicas.forEach((clave, valor) -> {
+            String k = clave == null ? "" : clave.trim();
+            String v = valor == null ? "" : valor.trim();
+            if (k.isEmpty() || v.isEmpty()) {
+                throw new IllegalArgumentException("Característica incompleta: " + clave + "=" + valor);
+            }
+            if (k.length() > MAX_TEXTO || v.length() > MAX_TEXTO) {
+                throw new IllegalArgumentException("Característica demasiado larga: " + k);
+            }
+            specs.put(k, v);
+        });
+
+        return new ProductImportRow(
+                fila,
+                texto(campos, "sku", MAX_SKU),
+                nombre,
+                texto(campos, "categoria", MAX_TEXTO),
+                texto(campos, "descripcion", MAX_DESCRIPCION),
+                texto(campos, "imagen", MAX_TEXTO),
+                precioCentavos,
+                stock,
+                specs
+        );
+    }
+
+    /**
+     * Características en una sola celda CSV: "potencia=12W;color=Luz cálida".
+     */
+    static Map<String, String> parseCaracteristicas(String celda) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (celda == null || celda.isBlank()) {
+            return result;
+        }
+        for (String par : celda.split(";")) {
+            if (par.isBlank()) continue;
+            int igual = par.indexOf('=');
+            if (igual < 0) {
+                throw new IllegalArgumentException("Característica sin '=': " + par.trim());
+            }
+            result.put(par.substring(0, igual), par.substring(igual + 1));
+        }
+        return result;
+    }
+
+    // Campo recortado; vacío → null
+    private static String texto(Map<String, String> campos, String campo, int max) {
+        String valor = campos.get(campo);
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        valor = valor.trim();
+        if (valor.length() > max) {
+            throw new IllegalArgumentException("El campo " + campo + " supera " + max + " caracteres");
+        }
+        return valor;
+    }
+}
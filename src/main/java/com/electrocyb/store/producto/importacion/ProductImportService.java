@@ -0,0 +1,390 @@
+package com.electrocyb.store.producto.importacion;
+
+import com.electrocyb.store.producto.CatalogChangeEvent;
+import com.electrocyb.store.producto.dto.ImportResultDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Carga masiva de productos (catálogos de proveedores) en CSV o JSON Lines.
+ *
+ * El archivo se lee en streaming, fila por fila; las filas válidas se juntan en
+ * bloques de {@code app.import.batch-size} y cada bloque se guarda en su propia
+ * transacción con sentencias JDBC en lote (productos y características), sin pasar
+ * por JPA. Un producto con SKU que ya existe se actualiza; sin SKU, se crea.
+ *
+ * Las filas inválidas (o las de un bloque que falló) se reportan con su línea y el
+ * resto sigue. Al terminar se reconstruye el índice de búsqueda una sola vez.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    public enum Formato {
+        CSV,
+        JSONL;
+
+        /**
+         * ?formato=csv|jsonl, o si no viene, según el Content-Type.
+         */
+        public static Formato resolver(String formato, String contentType) {
+            String valor = formato != null && !formato.isBlank() ? formato : contentType;
+            String v = valor == null ? "" : valor.toLowerCase(Locale.ROOT);
+            if (v.contains("csv")) return CSV;
+            if (v.contains("json")) return JSONL;
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                    "Formato no soportado: usa text/csv o application/x-ndjson");
+        }
+    }
+
+    // Filas con error que se detallan en la respuesta (el conteo incluye todas)
+    private static final int MAX_ERRORES = 500;
+
+    private static final String INSERT_PRODUCTO = """
+            INSERT INTO productos (sku, nombre, categoria, descripcion, imagen, precio_centavos, stock)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPDATE_PRODUCTO = """
+            UPDATE productos
+            SET nombre = ?, categoria = ?, descripcion = ?, imagen = ?, precio_centavos = ?, stock = ?
+            WHERE id = ?
+            """;
+
+    private static final String BORRAR_CARACTERISTICAS = "DELETE FROM producto_caracteristicas WHERE producto_id = ?";
+
+    private static final String INSERT_CARACTERISTICA =
+            "INSERT INTO producto_caracteristicas (producto_id, nombre, valor) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher events;
+    private final int batchSize;
+
+    public ProductImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher events,
+            @Value("${app.import.batch-size:500}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.events = events;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public ImportResultDto importar(InputStream body, Formato formato) throws IOException {
+        Importacion importacion = new Importacion();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        if (formato == Formato.CSV) {
+            leerCsv(reader, importacion);
+        } else {
+            leerJsonLines(reader, importacion);
+        }
+        importacion.guardarBloque();
+
+        // Los bloques ya están confirmados: el índice se reconstruye una vez, no por producto
+        if (!importacion.ids.isEmpty()) {
+            events.publishEvent(new CatalogChangeEvent.CatalogImported(importacion.ids));
+        }
+        log.info("Carga masiva ({}): {} filas, {} creados, {} actualizados, {} con error",
+                formato, importacion.filas, importacion.creados, importacion.actualizados, importacion.conError);
+        return importacion.resultado();
+    }
+
+    // ==========================================================
+    // Lectura
+    // ==========================================================
+
+    private void leerCsv(BufferedReader reader, Importacion importacion) throws IOException {
+        CsvReader csv = new CsvReader(reader, ',');
+        List<String> cabecera = csv.next();
+        if (cabecera == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El archivo está vacío");
+        }
+        // Excel en español guarda el CSV con ';'
+        if (cabecera.size() == 1 && cabecera.get(0).contains(";")) {
+            cabecera = List.of(cabecera.get(0).split(";", -1));
+            csv.separator(';');
+        }
+        List<String> columnas = cabecera.stream().map(c -> c.trim().toLowerCase(Locale.ROOT)).toList();
+        for (String columna : columnas) {
+            if (!ProductImportRow.CAMPOS.contains(columna)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Columna desconocida: " + columna);
+            }
+        }
+        if (!columnas.contains("nombre")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Falta la columna nombre");
+        }
+
+        while (true) {
+            List<String> valores;
+            try {
+                valores = csv.next();
+            } catch (IllegalArgumentException e) {
+                // Comillas sin cerrar: el resto del archivo quedó dentro de un campo
+                importacion.rechazar(csv.recordLine(), null, e.getMessage());
+                return;
+            }
+            if (valores == null) {
+                return;
+            }
+            if (valores.size() == 1 && valores.get(0).isBlank()) {
+                continue; // línea vacía
+            }
+            int fila = csv.recordLine();
+            if (valores.size() != columnas.size()) {
+                importacion.rechazar(fila, null,
+                        "Se esperaban " + columnas.size() + " columnas y hay " + valores.size());
+                continue;
+            }
+            Map<String, String> campos = new HashMap<>();
+            for (int i = 0; i < columnas.size(); i++) {
+                campos.put(columnas.get(i), valores.get(i));
+            }
+            importacion.agregar(fila, campos.get("sku"), () -> ProductImportRow.of(fila, campos,
+                    ProductImportRow.parseCaracteristicas(campos.get("caracteristicas"))));
+        }
+    }
+
+    private void leerJsonLines(BufferedReader reader, Importacion importacion) throws IOException {
+        String linea;
+        int numero = 0;
+        while ((linea = reader.readLine()) != null) {
+            numero++;
+            if (linea.isBlank()) {
+                continue;
+            }
+            int fila = numero;
+            JsonNode nodo;
+            try {
+                nodo = objectMapper.readTree(linea);
+            } catch (JsonProcessingException e) {
+                importacion.rechazar(fila, null, "JSON inválido: " + e.getOriginalMessage());
+                continue;
+            }
+            importacion.agregar(fila, nodo.path("sku").asText(null), () -> fromJson(fila, nodo));
+        }
+    }
+
+    // {"sku": "...", "nombre": "...", "precio": 35.5, "caracteristicas": {"potencia": "12W"}}
+    private static ProductImportRow fromJson(int fila, JsonNode nodo) {
+        if (!nodo.isObject()) {
+            throw new IllegalArgumentException("Se esperaba un objeto JSON por línea");
+        }
+        Map<String, String> campos = new HashMap<>();
+        Map<String, String> caracteristicas = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> campo : nodo.properties()) {
+            String nombre = campo.getKey();
+            JsonNode valor = campo.getValue();
+            if (!ProductImportRow.CAMPOS.contains(nombre)) {
+                throw new IllegalArgumentException("Campo desconocido: " + nombre);
+            }
+            if (nombre.equals("caracteristicas")) {
+                if (valor.isNull()) continue;
+                if (!valor.isObject()) {
+                    throw new IllegalArgumentException("caracteristicas debe ser un objeto");
+                }
+                valor.properties().forEach(e -> caracteristicas.put(e.getKey(), e.getValue().asText()));
+            } else if (!valor.isNull()) {
+                if (valor.isContainerNode()) {
+                    throw new IllegalArgumentException("El campo " + nombre + " debe ser texto o número");
+                }
+                campos.put(nombre, valor.asText());
+            }
+        }
+        return ProductImportRow.of(fila, campos, caracteristicas);
+    }
+
+    // ==========================================================
+    // Escritura
+    // ==========================================================
+
+    private record Guardado(int creados, int actualizados, List<Long> ids) {
+    }
+
+    // Un bloque, dentro de una transacción: 1 SELECT + sentencias en lote
+    private Guardado guardar(List<ProductImportRow> filas) {
+        // 1) Los que ya existen, por SKU (una sola consulta)
+        Map<String, Long> existentes = idsPorSku(filas);
+        List<ProductImportRow> nuevos = new ArrayList<>();
+        List<ProductImportRow> cambios = new ArrayList<>();
+        List<Long> idsCambios = new ArrayList<>();
+        for (ProductImportRow fila : filas) {
+            Long id = fila.sku() == null ? null : existentes.get(fila.sku());
+            if (id == null) {
+                nuevos.add(fila);
+            } else {
+                cambios.add(fila);
+                idsCambios.add(id);
+            }
+        }
+
+        // 2) UPDATE en lote; sus características se reemplazan completas
+        if (!cambios.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(cambios.size());
+            for (int i = 0; i < cambios.size(); i++) {
+                ProductImportRow f = cambios.get(i);
+                args.add(new Object[]{f.nombre(), f.categoria(), f.descripcion(), f.imagen(),
+                        f.precioCentavos(), f.stock(), idsCambios.get(i)});
+            }
+            jdbcTemplate.batchUpdate(UPDATE_PRODUCTO, args);
+            jdbcTemplate.batchUpdate(BORRAR_CARACTERISTICAS, idsCambios.stream().map(id -> new Object[]{id}).toList());
+        }
+
+        // 3) INSERT en lote, recuperando los ids generados
+        List<Long> idsNuevos = insertar(nuevos);
+
+        // 4) Características de todos, en un solo lote
+        List<Object[]> specs = new ArrayList<>();
+        agregarCaracteristicas(cambios, idsCambios, specs);
+        agregarCaracteristicas(nuevos, idsNuevos, specs);
+        if (!specs.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CARACTERISTICA, specs);
+        }
+
+        List<Long> ids = new ArrayList<>(idsCambios);
+        ids.addAll(idsNuevos);
+        return new Guardado(nuevos.size(), cambios.size(), ids);
+    }
+
+    private Map<String, Long> idsPorSku(List<ProductImportRow> filas) {
+        List<String> skus = filas.stream().map(ProductImportRow::sku).filter(Objects::nonNull).toList();
+        if (skus.isEmpty()) {
+            return Map.of();
+        }
+        String sql = "SELECT id, sku FROM productos WHERE sku IN (" + String.join(", ", Collections.nCopies(skus.size(), "?")) + ")";
+        Map<String, Long> result = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(rs.getString(2), rs.getLong(1));
+        }, skus.toArray());
+        return result;
+    }
+
+    private List<Long> insertar(List<ProductImportRow> nuevos) {
+        if (nuevos.isEmpty()) {
+            return List.of();
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_PRODUCTO, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ProductImportRow f = nuevos.get(i);
+                        new ArgumentPreparedStatementSetter(new Object[]{f.sku(), f.nombre(), f.categoria(),
+                                f.descripcion(), f.imagen(), f.precioCentavos(), f.stock()}).setValues(ps);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return nuevos.size();
+                    }
+                }, keys);
+        return keys.getKeyList().stream()
+                .map(key -> ((Number) key.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    private static void agregarCaracteristicas(List<ProductImportRow> filas, List<Long> ids, List<Object[]> out) {
+        for (int i = 0; i < filas.size(); i++) {
+            Long id = ids.get(i);
+            filas.get(i).caracteristicas().forEach((clave, valor) -> out.add(new Object[]{id, clave, valor}));
+        }
+    }
+
+    // Estado de una carga: bloque pendiente, conteos y errores
+    private final class Importacion {
+        private final List<ProductImportRow> bloque = new ArrayList<>();
+        private final Set<String> skusVistos = new HashSet<>();
+        private final Set<Long> ids = new HashSet<>();
+        private final List<ImportResultDto.FilaConError> errores = new ArrayList<>();
+        private int filas;
+        private int creados;
+        private int actualizados;
+        private int conError;
+
+        void agregar(int fila, String sku, Supplier<ProductImportRow> parser) {
+            ProductImportRow row;
+            try {
+                row = parser.get();
+            } catch (IllegalArgumentException e) {
+                rechazar(fila, sku, e.getMessage());
+                return;
+            }
+            filas++;
+            if (row.sku() != null && !skusVistos.add(row.sku())) {
+                error(fila, row.sku(), "SKU repetido en el archivo");
+                return;
+            }
+            bloque.add(row);
+            if (bloque.size() >= batchSize) {
+                guardarBloque();
+            }
+        }
+
+        void rechazar(int fila, String sku, String mensaje) {
+            filas++;
+            error(fila, sku, mensaje);
+        }
+
+        void guardarBloque() {
+            if (bloque.isEmpty()) {
+                return;
+            }
+            List<ProductImportRow> pendientes = List.copyOf(bloque);
+            bloque.clear();
+            try {
+                Guardado guardado = transactionTemplate.execute(status -> guardar(pendientes));
+                creados += guardado.creados();
+                actualizados += guardado.actualizados();
+                ids.addAll(guardado.ids());
+            } catch (RuntimeException e) {
+                // Se deshizo el bloque completo: se reporta cada fila y se sigue con el siguiente
+                String motivo = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                log.warn("Carga masiva: falló un bloque de {} filas: {}", pendientes.size(), motivo);
+                for (ProductImportRow row : pendientes) {
+                    error(row.fila(), row.sku(), "No se pudo guardar: " + motivo);
+                }
+            }
+        }
+
+        private void error(int fila, String sku, String mensaje) {
+            conError++;
+            if (errores.size() < MAX_ERRORES) {
+                errores.add(new ImportResultDto.FilaConError(fila, sku, mensaje));
+            }
+        }
+
+        ImportResultDto resultado() {
+            return new ImportResultDto(filas, creados, actualizados, conError, List.copyOf(errores));
+        }
+    }
+}
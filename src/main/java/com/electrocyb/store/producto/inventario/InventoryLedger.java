@@ -0,0 +1,443 @@
+package com.electrocyb.store.producto.inventario;
+
+import com.electrocyb.store.producto.CatalogChangeEvent;
+import com.electrocyb.store.producto.StockRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock disponible en memoria para el checkout (pensado para ofertas relámpago).
+ *
+ * Reservar no toca la base: cada producto tiene su contador, protegido por uno de
+ * {@value #STRIPES} locks (por hash del id). Un carrito toma sus locks en orden de
+ * índice, comprueba y descuenta todo junto, y los suelta: la sección crítica es de
+ * unos pocos enteros, así que un producto muy pedido no hace cola en el lock de su
+ * fila en PostgreSQL y productos distintos se reservan en paralelo.
+ *
+ * La reserva se confirma cuando la transacción del pedido hace commit y se devuelve
+ * si hace rollback; si nunca llega ninguna de las dos, vence a los
+ * {@code app.inventory.reservation-ttl}. Lo confirmado se escribe en productos.stock
+ * en segundo plano, en un lote cada {@code app.inventory.flush-interval}.
+ *
+ * Por producto: disponible + reservado + pendiente = stock en la base (mientras no
+ * haya una escritura en curso). Al arrancar, y cuando el admin cambia un producto,
+ * el contador se recalcula desde la base con esa igualdad.
+ *
+ * Lo confirmado llega a la base recién en la siguiente escritura: si el proceso
+ * muere antes, esas unidades vuelven a estar a la venta al recalcular. Y con varias
+ * instancias cada una tendría su propio contador. Por eso está apagado por defecto
+ * ({@code app.inventory.in-memory=false}: UPDATE condicionado en la base,
+ * StockRepository) y solo conviene encenderlo con una instancia del backend.
+ */
+@Slf4j
+@Component
+public class InventoryLedger {
+
+    static final int STRIPES = 64;
+
+    private static final String STOCK_SQL = "SELECT id, stock FROM productos";
+    private static final String ESCRIBIR_SQL = "UPDATE productos SET stock = stock - ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockRepository stockRepository;
+    private final ApplicationEventPublisher events;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final long ttlNanos;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final Map<Long, Reserva> reservas = new ConcurrentHashMap<>();
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong secuencia = new AtomicLong();
+    // Escritura a la base y recálculo desde la base: nunca a la vez (ver la igualdad de arriba)
+    private final Object dbLock = new Object();
+    private ScheduledExecutorService scheduler;
+
+    public InventoryLedger(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            StockRepository stockRepository,
+            ApplicationEventPublisher events,
+            @Value("${app.inventory.in-memory:false}") boolean enabled,
+            @Value("${app.inventory.flush-interval:1s}") Duration flushInterval,
+            @Value("${app.inventory.reservation-ttl:2m}") Duration reservationTtl
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stockRepository = stockRepository;
+        this.events = events;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.ttlNanos = reservationTtl.toNanos();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // Carga los contadores desde la base y recién entonces arranca la escritura periódica
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onApplicationReady() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        rebuild();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1, flushInterval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::tick, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            flush();
+        }
+    }
+
+    /**
+     * Reserva las unidades de cada producto (id → cantidad, cantidades > 0), todo o nada.
+     *
+     * Dentro de una transacción la reserva se confirma con su commit y se devuelve con
+     * su rollback; fuera de una transacción se confirma en el acto.
+     *
+     * @return ids que no alcanzan (no existen o sin stock suficiente), en orden de id;
+     *         vacío si se reservó todo
+     */
+    public List<Long> reservar(Map<Long, Integer> unidades) {
+        if (unidades.isEmpty()) {
+            return List.of();
+        }
+        if (!enabled) {
+            List<Long> rechazados = stockRepository.descontar(unidades);
+            if (rechazados.isEmpty()) {
+                events.publishEvent(new CatalogChangeEvent.StockChanged(unidades.keySet()));
+            }
+            return rechazados;
+        }
+
+        SortedMap<Long, Integer> ordenadas = new TreeMap<>(unidades);
+        cargarFaltantes(ordenadas.keySet());
+
+        int[] indices = ordenadas.keySet().stream().mapToInt(InventoryLedger::stripe).distinct().sorted().toArray();
+        Reserva reserva;
+        lock(indices);
+        try {
+            List<Long> rechazados = new ArrayList<>();
+            ordenadas.forEach((id, cantidad) -> {
+                Slot slot = slots.get(id);
+                if (slot == null || slot.disponible < cantidad) {
+                    rechazados.add(id);
+                }
+            });
+            if (!rechazados.isEmpty()) {
+                return rechazados;
+            }
+            ordenadas.forEach((id, cantidad) -> {
+                Slot slot = slots.get(id);
+                slot.disponible -= cantidad;
+                slot.reservado += cantidad;
+            });
+            reserva = new Reserva(secuencia.incrementAndGet(), Map.copyOf(ordenadas), System.nanoTime() + ttlNanos);
+            reservas.put(reserva.id(), reserva);
+        } finally {
+            unlock(indices);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        confirmar(reserva);
+                    } else {
+                        liberar(reserva);
+                    }
+                }
+            });
+        } else {
+            confirmar(reserva);
+        }
+        return List.of();
+    }
+
+    /**
+     * Unidades que se pueden reservar ahora (0 si el producto no está cargado).
+     */
+    public int disponible(Long productoId) {
+        Slot slot = slots.get(productoId);
+        if (slot == null) {
+            return 0;
+        }
+        ReentrantLock lock = stripes[stripe(productoId)];
+        lock.lock();
+        try {
+            return slot.disponible;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Relee el stock de todos los productos.
+     */
+    public void rebuild() {
+        synchronized (dbLock) {
+            Map<Long, Integer> stock = new HashMap<>();
+            jdbcTemplate.query(STOCK_SQL, rs -> {
+                stock.put(rs.getLong(1), rs.getInt(2));
+            });
+            slots.keySet().removeIf(id -> !stock.containsKey(id));
+            stock.forEach(this::recalcular);
+            log.info("Inventario en memoria: {} productos", stock.size());
+        }
+    }
+
+    /**
+     * El admin cambió productos (o los borró): su stock se vuelve a leer de la base.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event instanceof CatalogChangeEvent.StockChanged) {
+            // Lo publica este mismo inventario al escribir en la base
+            return;
+        }
+        if (event instanceof CatalogChangeEvent.CatalogImported) {
+            rebuild();
+        } else if (event instanceof CatalogChangeEvent.ProductDeleted) {
+            event.productIds().forEach(slots::remove);
+        } else {
+            event.productIds().forEach(this::releer);
+        }
+    }
+
+    /**
+     * Escribe en productos.stock lo confirmado desde la última vez, en un solo lote.
+     */
+    public void flush() {
+        Set<Long> escritos = escribir();
+        if (!escritos.isEmpty()) {
+            // Fuera del lock: el índice relee estos productos de la base
+            events.publishEvent(new CatalogChangeEvent.StockChanged(escritos));
+        }
+    }
+
+    private Set<Long> escribir() {
+        synchronized (dbLock) {
+            SortedMap<Long, Integer> lote = new TreeMap<>();
+            for (Iterator<Long> it = pendientes.iterator(); it.hasNext(); ) {
+                Long id = it.next();
+                it.remove();
+                Slot slot = slots.get(id);
+                if (slot == null) {
+                    continue;
+                }
+                ReentrantLock lock = stripes[stripe(id)];
+                lock.lock();
+                try {
+                    if (slot.pendiente != 0) {
+                        lote.put(id, slot.pendiente);
+                        slot.pendiente = 0;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (lote.isEmpty()) {
+                return Set.of();
+            }
+
+            List<Map.Entry<Long, Integer>> filas = new ArrayList<>(lote.entrySet());
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(ESCRIBIR_SQL, filas, filas.size(), (ps, e) -> {
+                            ps.setInt(1, e.getValue());
+                            ps.setLong(2, e.getKey());
+                        }));
+            } catch (DataAccessException e) {
+                // Se reintenta en la próxima vuelta
+                log.warn("No se pudo escribir el stock de {} productos: {}", lote.size(), e.getMessage());
+                lote.forEach(this::sumarPendiente);
+                return Set.of();
+            }
+            return lote.keySet();
+        }
+    }
+
+    // Devuelve las reservas vencidas (transacciones que nunca terminaron)
+    void liberarVencidas(long ahora) {
+        for (Reserva reserva : reservas.values()) {
+            if (ahora - reserva.vence() > 0) {
+                log.warn("Reserva de inventario {} vencida: se devuelven {}", reserva.id(), reserva.unidades());
+                liberar(reserva);
+            }
+        }
+    }
+
+    private void tick() {
+        try {
+            liberarVencidas(System.nanoTime());
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Inventario: error en la escritura periódica", e);
+        }
+    }
+
+    private void confirmar(Reserva reserva) {
+        boolean vigente = reservas.remove(reserva.id()) != null;
+        int[] indices = indices(reserva);
+        lock(indices);
+        try {
+            reserva.unidades().forEach((id, cantidad) -> {
+                Slot slot = slots.get(id);
+                if (slot == null) {
+                    return;
+                }
+                if (vigente) {
+                    slot.reservado -= cantidad;
+                } else {
+                    // Venció antes del commit: sus unidades ya se habían devuelto
+                    slot.disponible -= cantidad;
+                    if (slot.disponible < 0) {
+                        log.warn("Producto {}: stock en memoria negativo ({}) por una reserva vencida",
+                                id, slot.disponible);
+                    }
+                }
+                slot.pendiente += cantidad;
+            });
+        } finally {
+            unlock(indices);
+        }
+        pendientes.addAll(reserva.unidades().keySet());
+    }
+
+    private void liberar(Reserva reserva) {
+        if (reservas.remove(reserva.id()) == null) {
+            return;
+        }
+        int[] indices = indices(reserva);
+        lock(indices);
+        try {
+            reserva.unidades().forEach((id, cantidad) -> {
+                Slot slot = slots.get(id);
+                if (slot != null) {
+                    slot.reservado -= cantidad;
+                    slot.disponible += cantidad;
+                }
+            });
+        } finally {
+            unlock(indices);
+        }
+    }
+
+    private void sumarPendiente(Long id, int cantidad) {
+        Slot slot = slots.get(id);
+        if (slot == null) {
+            return;
+        }
+        ReentrantLock lock = stripes[stripe(id)];
+        lock.lock();
+        try {
+            slot.pendiente += cantidad;
+        } finally {
+            lock.unlock();
+        }
+        pendientes.add(id);
+    }
+
+    // Productos que aún no están en memoria (p. ej. creados por otra vía): se leen de la base
+    private void cargarFaltantes(Collection<Long> ids) {
+        for (Long id : ids) {
+            if (!slots.containsKey(id)) {
+                synchronized (dbLock) {
+                    if (!slots.containsKey(id)) {
+                        releer(id);
+                    }
+                }
+            }
+        }
+    }
+
+    private void releer(Long id) {
+        synchronized (dbLock) {
+            List<Integer> stock = jdbcTemplate.query("SELECT stock FROM productos WHERE id = ?",
+                    (rs, i) -> rs.getInt(1), id);
+            if (stock.isEmpty()) {
+                slots.remove(id);
+            } else {
+                recalcular(id, stock.get(0));
+            }
+        }
+    }
+
+    // disponible = stock en la base − reservado − pendiente (bajo dbLock: no hay escritura en curso)
+    private void recalcular(Long id, int stockEnBase) {
+        Slot slot = slots.computeIfAbsent(id, k -> new Slot());
+        ReentrantLock lock = stripes[stripe(id)];
+        lock.lock();
+        try {
+            slot.disponible = stockEnBase - slot.reservado - slot.pendiente;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int[] indices(Reserva reserva) {
+        return reserva.unidades().keySet().stream().mapToInt(InventoryLedger::stripe).distinct().sorted().toArray();
+    }
+
+    private void lock(int[] indices) {
+        for (int i : indices) {
+            stripes[i].lock();
+        }
+    }
+
+    private void unlock(int[] indices) {
+        for (int i = indices.length - 1; i >= 0; i--) {
+            stripes[indices[i]].unlock();
+        }
+    }
+
+    static int stripe(Long id) {
+        return Long.hashCode(id * 0x9E3779B97F4A7C15L) & (STRIPES - 1);
+    }
+
+    // Contadores de un producto; solo se leen y escriben con el lock de su franja
+    private static final class Slot {
+        int disponible;
+        int reservado;
+        int pendiente;
+    }
+
+    private record Reserva(long id, Map<Long, Integer> unidades, long vence) {
+    }
+}
@@ -0,0 +1,247 @@
+package com.electrocyb.store.producto.ranking;
+
+import com.electrocyb.store.producto.related.OrderPlacedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.LongPredicate;
+
+/**
+ * "Más vendidos": unidades vendidas por producto en ventanas móviles de 7 y 30 días.
+ *
+ * Las ventas se guardan en cubetas por día (las últimas 30, en anillo). Cada ventana
+ * lleva su total por producto y un ranking ordenado que se actualiza al vuelo:
+ * un pedido suma sus unidades, y al cambiar el día se restan solo las cubetas que
+ * salen de cada ventana. Así el top-N es recorrer el inicio del ranking, sin
+ * agregaciones sobre order_items; la base solo se lee una vez, al arrancar.
+ */
+@Slf4j
+@Component
+public class BestSellerLeaderboard {
+
+    /**
+     * Ventanas del ranking, en días calendario (hoy incluido).
+     */
+    public enum Window {
+        LAST_7_DAYS(7),
+        LAST_30_DAYS(30);
+
+        private final int days;
+
+        Window(int days) {
+            this.days = days;
+        }
+
+        public int days() {
+            return days;
+        }
+
+        // ?dias=7 → 7 días; cualquier otro valor → 30 días
+        public static Window ofDays(int dias) {
+            return dias <= LAST_7_DAYS.days ? LAST_7_DAYS : LAST_30_DAYS;
+        }
+    }
+
+    public record Entry(Long productoId, long unidades) {
+    }
+
+    // Los días se cortan a medianoche de la tienda, no en UTC
+    static final ZoneId ZONE = ZoneId.of("America/Lima");
+    private static final int DAYS = Window.LAST_30_DAYS.days;
+
+    private static final String RECENT_SALES_SQL = """
+            SELECT p.id, p.fecha, oi.producto_id, oi.cantidad
+            FROM order_items oi
+            JOIN pedidos p ON p.id = oi.pedido_id
+            WHERE p.fecha >= ? AND oi.producto_id IS NOT NULL AND oi.cantidad IS NOT NULL
+            """;
+
+    // Más unidades primero; empates: id menor primero
+    private static final Comparator<Entry> BY_UNITS = Comparator
+            .comparingLong(Entry::unidades).reversed()
+            .thenComparing(Entry::productoId);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Cubeta del día d en la posición d % 30; bucketDay dice qué día guarda cada una
+    private final List<Map<Long, Long>> buckets = new ArrayList<>(DAYS);
+    private final long[] bucketDay = new long[DAYS];
+    private final Map<Window, Tally> tallies = new EnumMap<>(Window.class);
+    // Día (epoch day) al que están al corriente las ventanas
+    private long today;
+    // Último pedido leído al reconstruir: sus eventos ya están contados
+    private long loadedUpTo;
+
+    public BestSellerLeaderboard(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (int i = 0; i < DAYS; i++) {
+            buckets.add(new HashMap<>());
+        }
+        for (Window window : Window.values()) {
+            tallies.put(window, new Tally());
+        }
+        reset(LocalDate.now(ZONE).toEpochDay());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Relee las ventas de los últimos 30 días y reemplaza las cubetas.
+     */
+    public synchronized void rebuild() {
+        LocalDate hoy = LocalDate.now(ZONE);
+        reset(hoy.toEpochDay());
+        Instant desde = hoy.minusDays(DAYS - 1).atStartOfDay(ZONE).toInstant();
+
+        SalesReader reader = new SalesReader();
+        jdbcTemplate.query(RECENT_SALES_SQL, reader, Timestamp.from(desde));
+        loadedUpTo = reader.lastPedidoId;
+        log.info("Más vendidos: {} líneas de pedido en {} días, {} productos vendidos",
+                reader.lineas, DAYS, tallies.get(Window.LAST_30_DAYS).units.size());
+    }
+
+    /**
+     * Suma las unidades del pedido (después del commit de crearPedido).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderPlaced(OrderPlacedEvent event) {
+        if (event.pedidoId() != null && event.pedidoId() <= loadedUpTo) {
+            return;
+        }
+        Instant fecha = event.fecha() != null ? event.fecha() : Instant.now();
+        advanceTo(LocalDate.now(ZONE).toEpochDay());
+        long day = dayOf(fecha);
+        event.unidades().forEach((productoId, cantidad) -> add(day, productoId, cantidad));
+    }
+
+    /**
+     * Hasta {@code limit} productos de la ventana, del más vendido al menos vendido,
+     * saltando los que {@code accept} rechaza (categoría, stock, precio...).
+     */
+    public List<Entry> top(Window window, int limit, LongPredicate accept) {
+        return top(window, limit, accept, LocalDate.now(ZONE));
+    }
+
+    synchronized List<Entry> top(Window window, int limit, LongPredicate accept, LocalDate hoy) {
+        advanceTo(hoy.toEpochDay());
+        List<Entry> result = new ArrayList<>(Math.min(limit, 16));
+        for (Entry entry : tallies.get(window).ranking) {
+            if (result.size() >= limit) break;
+            if (accept.test(entry.productoId())) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    // Unidades vendidas el día indicado; ignora ventas fuera de la ventana más larga
+    synchronized void add(long day, Long productoId, long cantidad) {
+        if (productoId == null || cantidad <= 0 || day <= today - DAYS) {
+            return;
+        }
+        day = Math.min(day, today); // reloj adelantado: cuenta como hoy
+        int pos = (int) Math.floorMod(day, (long) DAYS);
+        if (bucketDay[pos] != day) {
+            return;
+        }
+        buckets.get(pos).merge(productoId, cantidad, Long::sum);
+        for (Window window : Window.values()) {
+            if (day > today - window.days) {
+                tallies.get(window).add(productoId, cantidad);
+            }
+        }
+    }
+
+    // Mueve las ventanas hasta el día indicado: lo que sale de cada una se resta de su total
+    private void advanceTo(long day) {
+        if (day <= today) {
+            return;
+        }
+        if (day - today >= DAYS) {
+            reset(day);
+            return;
+        }
+        for (long d = today + 1; d <= day; d++) {
+            for (Window window : Window.values()) {
+                long leaving = d - window.days;
+                int pos = (int) Math.floorMod(leaving, (long) DAYS);
+                if (bucketDay[pos] == leaving) {
+                    Tally tally = tallies.get(window);
+                    buckets.get(pos).forEach((id, units) -> tally.add(id, -units));
+                }
+            }
+            int pos = (int) Math.floorMod(d, (long) DAYS);
+            buckets.get(pos).clear();
+            bucketDay[pos] = d;
+        }
+        today = day;
+    }
+
+    private void reset(long day) {
+        today = day;
+        for (int i = 0; i < DAYS; i++) {
+            buckets.get(i).clear();
+        }
+        // Cada posición guarda el día de los últimos 30 que le corresponde
+        for (long d = day - DAYS + 1; d <= day; d++) {
+            bucketDay[(int) Math.floorMod(d, (long) DAYS)] = d;
+        }
+        tallies.values().forEach(Tally::clear);
+    }
+
+    private static long dayOf(Instant instant) {
+        return instant.atZone(ZONE).toLocalDate().toEpochDay();
+    }
+
+    // Total por producto de una ventana y su ranking ordenado (mismo contenido)
+    private static final class Tally {
+        private final Map<Long, Long> units = new HashMap<>();
+        private final NavigableSet<Entry> ranking = new TreeSet<>(BY_UNITS);
+
+        void add(Long productoId, long delta) {
+            long before = units.getOrDefault(productoId, 0L);
+            long after = before + delta;
+            if (before > 0) {
+                ranking.remove(new Entry(productoId, before));
+            }
+            if (after > 0) {
+                units.put(productoId, after);
+                ranking.add(new Entry(productoId, after));
+            } else {
+                units.remove(productoId);
+            }
+        }
+
+        void clear() {
+            units.clear();
+            ranking.clear();
+        }
+    }
+
+    private final class SalesReader implements RowCallbackHandler {
+        private long lastPedidoId;
+        private int lineas;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            lastPedidoId = Math.max(lastPedidoId, rs.getLong(1));
+            add(dayOf(rs.getTimestamp(2).toInstant()), rs.getLong(3), rs.getInt(4));
+            lineas++;
+        }
+    }
+}
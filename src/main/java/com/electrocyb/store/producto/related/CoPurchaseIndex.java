@@ -0,0 +1,159 @@
+package com.electrocyb.store.producto.related;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Comprados juntos": matriz ítem–ítem de co-ocurrencia sobre los pedidos.
+ *
+ * Al arrancar se lee order_items una sola vez (en streaming, agrupado por pedido);
+ * después cada pedido confirmado suma sus pares y recalcula solo las filas de sus
+ * productos. La matriz es dispersa (solo pares que se compraron juntos alguna vez)
+ * y de cada fila se publica la lista de los N vecinos más frecuentes.
+ *
+ * Leer los relacionados de un producto es un get sobre un mapa concurrente,
+ * sin locks y sin tocar el historial de pedidos.
+ */
+@Slf4j
+@Component
+public class CoPurchaseIndex {
+
+    private static final String BASKETS_SQL = """
+            SELECT pedido_id, producto_id
+            FROM order_items
+            WHERE pedido_id IS NOT NULL AND producto_id IS NOT NULL
+            ORDER BY pedido_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxNeighbors;
+    private final int minSupport;
+
+    // producto → (producto comprado en el mismo pedido → nº de pedidos con ambos); solo bajo el lock
+    private final Map<Long, Map<Long, Integer>> counts = new HashMap<>();
+    // producto → top-N vecinos (listas inmutables), para lectores sin lock
+    private final Map<Long, List<Long>> neighbors = new ConcurrentHashMap<>();
+    // Último pedido leído al reconstruir: sus eventos ya están contados
+    private long loadedUpTo;
+
+    public CoPurchaseIndex(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.related.max-neighbors:10}") int maxNeighbors,
+            @Value("${app.related.min-support:1}") int minSupport
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxNeighbors = Math.max(1, maxNeighbors);
+        this.minSupport = Math.max(1, minSupport);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Relee todos los pedidos y reemplaza la matriz.
+     */
+    public synchronized void rebuild() {
+        counts.clear();
+        BasketReader reader = new BasketReader();
+        jdbcTemplate.query(BASKETS_SQL, reader);
+        reader.flush();
+        loadedUpTo = reader.lastPedidoId;
+
+        neighbors.clear();
+        refresh(counts.keySet());
+        log.info("Comprados juntos: {} pedidos, {} productos con relacionados", reader.pedidos, neighbors.size());
+    }
+
+    /**
+     * Suma los pares del pedido (después del commit de crearPedido).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderPlaced(OrderPlacedEvent event) {
+        if (event.pedidoId() != null && event.pedidoId() <= loadedUpTo) {
+            return;
+        }
+        count(event.productIds());
+        refresh(event.productIds());
+    }
+
+    /**
+     * Hasta N productos comprados junto con este, del más frecuente al menos frecuente.
+     */
+    public List<Long> neighbors(Long productoId) {
+        return neighbors.getOrDefault(productoId, List.of());
+    }
+
+    private void count(Collection<Long> basket) {
+        if (basket.size() < 2) {
+            return;
+        }
+        for (Long a : basket) {
+            Map<Long, Integer> row = counts.computeIfAbsent(a, k -> new HashMap<>());
+            for (Long b : basket) {
+                if (!a.equals(b)) {
+                    row.merge(b, 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    // Recalcula el top-N de las filas indicadas (empates: id menor primero)
+    private void refresh(Collection<Long> productoIds) {
+        for (Long id : productoIds) {
+            Map<Long, Integer> row = counts.get(id);
+            if (row == null) {
+                continue;
+            }
+            List<Long> top = row.entrySet().stream()
+                    .filter(e -> e.getValue() >= minSupport)
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(maxNeighbors)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            if (top.isEmpty()) {
+                neighbors.remove(id);
+            } else {
+                neighbors.put(id, top);
+            }
+        }
+    }
+
+    // Filas ordenadas por pedido: junta los productos de cada pedido y los cuenta al cambiar de pedido
+    private final class BasketReader implements RowCallbackHandler {
+        private final Set<Long> basket = new LinkedHashSet<>();
+        private long current = Long.MIN_VALUE;
+        private long lastPedidoId;
+        private int pedidos;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long pedidoId = rs.getLong(1);
+            if (pedidoId != current) {
+                flush();
+                current = pedidoId;
+                lastPedidoId = Math.max(lastPedidoId, pedidoId);
+                pedidos++;
+            }
+            basket.add(rs.getLong(2));
+        }
+
+        void flush() {
+            count(basket);
+            basket.clear();
+        }
+    }
+}
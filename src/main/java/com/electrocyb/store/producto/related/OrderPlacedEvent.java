@@ -0,0 +1,20 @@
+package com.electrocyb.store.producto.related;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Se registró un pedido: fecha y unidades por producto. Lo publica PedidoService dentro
+ * de la transacción de crearPedido; CoPurchaseIndex y BestSellerLeaderboard lo procesan
+ * después del commit.
+ */
+public record OrderPlacedEvent(Long pedidoId, Instant fecha, Map<Long, Integer> unidades) {
+    public OrderPlacedEvent {
+        unidades = Map.copyOf(unidades);
+    }
+
+    public Set<Long> productIds() {
+        return unidades.keySet();
+    }
+}
@@ -0,0 +1,249 @@
+package com.electrocyb.store.producto.search;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Índice de especificaciones de producto (producto_caracteristicas):
+ * clave → valor → BitSet con las posiciones de los productos que lo declaran.
+ *
+ * Los valores con número y unidad se guardan en forma canónica, así
+ * "12W", "12 w" y "12,0 W" son el mismo valor, y "150cm" es "1.5m".
+ * Con esto un texto como "12W luz cálida IP65" se resuelve a menciones de
+ * atributos (potencia, color, protección) que se combinan con ANDs de bits,
+ * en lugar de buscar cada palabra dentro del texto concatenado del producto.
+ */
+public final class AttributeIndex {
+
+    // Frases de valor más largas que se intentan reconocer ("luz calida", "control remoto")
+    private static final int MAX_VALUE_WORDS = 4;
+
+    private record Unit(String symbol, BigDecimal factor) {
+    }
+
+    private static final Unit WATTS = new Unit("w", BigDecimal.ONE);
+    private static final Unit VOLTS = new Unit("v", BigDecimal.ONE);
+    private static final Unit METERS = new Unit("m", BigDecimal.ONE);
+    private static final Unit MAH = new Unit("mah", BigDecimal.ONE);
+    private static final Unit KELVIN = new Unit("k", BigDecimal.ONE);
+    private static final Unit LUMENS = new Unit("lm", BigDecimal.ONE);
+
+    // Unidades que se escriben después del número (alias normalizados → unidad canónica)
+    private static final Map<String, Unit> UNITS = Map.ofEntries(
+            Map.entry("w", WATTS), Map.entry("watt", WATTS), Map.entry("watts", WATTS),
+            Map.entry("vatio", WATTS), Map.entry("vatios", WATTS),
+            Map.entry("kw", new Unit("w", BigDecimal.valueOf(1000))),
+            Map.entry("v", VOLTS), Map.entry("volt", VOLTS), Map.entry("voltios", VOLTS), Map.entry("vac", VOLTS),
+            Map.entry("m", METERS), Map.entry("mt", METERS), Map.entry("metro", METERS), Map.entry("metros", METERS),
+            Map.entry("cm", new Unit("m", new BigDecimal("0.01"))),
+            Map.entry("mm", new Unit("m", new BigDecimal("0.001"))),
+            Map.entry("mah", MAH),
+            Map.entry("k", KELVIN), Map.entry("kelvin", KELVIN),
+            Map.entry("lm", LUMENS), Map.entry("lumenes", LUMENS)
+    );
+
+    // Grado de protección: la unidad va antes del número ("IP65")
+    private static final String IP = "ip";
+
+    /**
+     * Valor numérico con unidad canónica ("12W" → 12 w, "150cm" → 1.5 m, "IP65" → ip 65).
+     */
+    public record Quantity(BigDecimal value, String unit) {
+
+        /**
+         * Forma canónica usada como valor en el índice ("12w", "1.5m", "ip65").
+         */
+        public String key() {
+            String number = value.stripTrailingZeros().toPlainString();
+            return IP.equals(unit) ? IP + number : number + unit;
+        }
+    }
+
+    /**
+     * Atributo reconocido en un texto: palabras {@code [from, to)}, valor canónico,
+     * claves donde existe ese valor (o esa unidad), productos que lo tienen y
+     * productos que declaran alguna de esas claves.
+     */
+    record Mention(int from, int to, String valor, Set<String> claves, BitSet matches, BitSet declared) {
+    }
+
+    private final int size;
+    private final Map<String, BitSet> declared;
+    private final Map<String, Map<String, BitSet>> values;
+    private final Map<String, Set<String>> keysByValue;
+    private final Map<String, Set<String>> keysByUnit;
+
+    private AttributeIndex(int size, Map<String, BitSet> declared, Map<String, Map<String, BitSet>> values,
+                           Map<String, Set<String>> keysByValue, Map<String, Set<String>> keysByUnit) {
+        this.size = size;
+        this.declared = declared;
+        this.values = values;
+        this.keysByValue = keysByValue;
+        this.keysByUnit = keysByUnit;
+    }
+
+    static AttributeIndex build(List<ProductSearchDocument> documents) {
+        int n = documents.size();
+        Map<String, BitSet> declared = new HashMap<>();
+        Map<String, Map<String, BitSet>> values = new HashMap<>();
+        Map<String, Set<String>> keysByValue = new HashMap<>();
+        Map<String, Set<String>> keysByUnit = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            for (Map.Entry<String, String> e : documents.get(i).caracteristicasFacet().entrySet()) {
+                String key = e.getKey();
+                Quantity quantity = parseQuantity(e.getValue().replace(" ", ""));
+                String value = quantity != null ? quantity.key() : e.getValue();
+
+                declared.computeIfAbsent(key, k -> new BitSet(n)).set(i);
+                values.computeIfAbsent(key, k -> new HashMap<>())
+                        .computeIfAbsent(value, v -> new BitSet(n))
+                        .set(i);
+                keysByValue.computeIfAbsent(value, v -> new TreeSet<>()).add(key);
+                if (quantity != null) {
+                    keysByUnit.computeIfAbsent(quantity.unit(), u -> new TreeSet<>()).add(key);
+                }
+            }
+        }
+        return new AttributeIndex(n, declared, values, keysByValue, keysByUnit);
+    }
+
+    // ==========================================================
+    // Consultas
+    // ==========================================================
+
+    /**
+     * Atributos mencionados en las palabras de un texto normalizado, de izquierda a
+     * derecha. Las cantidades solo cuentan si alguna clave del catálogo usa esa unidad;
+     * los valores de texto, si existen tal cual en alguna clave.
+     */
+    List<Mention> mentions(List<String> tokens) {
+        List<String> words = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            words.add(trimPunctuation(token));
+        }
+
+        List<Mention> result = new ArrayList<>();
+        int i = 0;
+        while (i < words.size()) {
+            int to = mentionAt(words, i, result);
+            i = to > i ? to : i + 1;
+        }
+        return result;
+    }
+
+    // Reconoce un atributo que empieza en la palabra i; devuelve dónde termina (o i si no hay)
+    private int mentionAt(List<String> words, int i, List<Mention> out) {
+        // Cantidad en una palabra ("12w", "ip65") o en dos ("12 w", "ip 65")
+        Quantity quantity = parseQuantity(words.get(i));
+        int to = i + 1;
+        if (quantity == null && i + 1 < words.size()) {
+            quantity = parseQuantity(words.get(i) + words.get(i + 1));
+            to = i + 2;
+        }
+        if (quantity != null) {
+            Set<String> claves = keysByUnit.get(quantity.unit());
+            if (claves != null) {
+                out.add(mention(i, to, quantity.key(), claves));
+                return to;
+            }
+        }
+
+        // Valor de texto: primero la frase más larga ("luz calida" antes que "luz")
+        for (int len = Math.min(MAX_VALUE_WORDS, words.size() - i); len >= 1; len--) {
+            String phrase = String.join(" ", words.subList(i, i + len));
+            if (phrase.length() < 3 || !hasLetter(phrase))
+                continue;
+            Set<String> claves = keysByValue.get(phrase);
+            if (claves != null) {
+                out.add(mention(i, i + len, phrase, claves));
+                return i + len;
+            }
+        }
+        return i;
+    }
+
+    private Mention mention(int from, int to, String valor, Set<String> claves) {
+        BitSet matches = new BitSet(size);
+        BitSet declaredBy = new BitSet(size);
+        for (String clave : claves) {
+            BitSet bits = values.get(clave).get(valor);
+            if (bits != null) matches.or(bits);
+            declaredBy.or(declared.get(clave));
+        }
+        return new Mention(from, to, valor, claves, matches, declaredBy);
+    }
+
+    // ==========================================================
+    // Valores
+    // ==========================================================
+
+    /**
+     * Valor de atributo normalizado; si es una cantidad, en forma canónica ("12 W" → "12w").
+     */
+    public static String valueKey(String raw) {
+        String value = ProductSearchDocument.facetKey(raw);
+        Quantity quantity = parseQuantity(value.replace(" ", ""));
+        return quantity != null ? quantity.key() : value;
+    }
+
+    /**
+     * Cantidad de un valor normalizado y sin espacios ("12w", "12,5w", "220v", "ip65"), o null.
+     * Un número sin unidad no es cantidad.
+     */
+    public static Quantity parseQuantity(String value) {
+        if (value.startsWith(IP)) {
+            String digits = value.substring(IP.length());
+            return !digits.isEmpty() && digits.length() <= 2 && allDigits(digits)
+                    ? new Quantity(new BigDecimal(digits), IP)
+                    : null;
+        }
+
+        int end = numberEnd(value);
+        if (end == 0 || end == value.length())
+            return null;
+        Unit unit = UNITS.get(value.substring(end));
+        if (unit == null)
+            return null;
+        BigDecimal number = new BigDecimal(value.substring(0, end).replace(',', '.'));
+        return new Quantity(number.multiply(unit.factor()), unit.symbol());
+    }
+
+    // Fin del número inicial: dígitos con, a lo más, un separador decimal entre dígitos
+    private static int numberEnd(String value) {
+        int i = 0;
+        while (i < value.length() && isDigit(value.charAt(i))) i++;
+        if (i > 0 && i + 1 < value.length() && (value.charAt(i) == '.' || value.charAt(i) == ',')
+                && isDigit(value.charAt(i + 1))) {
+            i++;
+            while (i < value.length() && isDigit(value.charAt(i))) i++;
+        }
+        return i;
+    }
+
+    private static String trimPunctuation(String token) {
+        int from = 0;
+        int to = token.length();
+        while (from < to && !Character.isLetterOrDigit(token.charAt(from))) from++;
+        while (to > from && !Character.isLetterOrDigit(token.charAt(to - 1))) to--;
+        return token.substring(from, to);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean allDigits(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (!isDigit(s.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean hasLetter(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isLetter(s.charAt(i))) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,236 @@
+package com.electrocyb.store.producto.search;
+
+import java.util.*;
+
+/**
+ * Relevancia BM25F del catálogo, con estadísticas precalculadas por término.
+ *
+ * Cada producto tiene cuatro campos con peso propio (nombre, categoría,
+ * características, descripción). Al armar el snapshot se calcula, para cada
+ * término y producto, la frecuencia combinada de BM25F ya saturada con k1,
+ * y el idf de cada término; puntuar una consulta es recorrer las postings de
+ * sus términos y sumar, sin tocar el texto de los productos.
+ *
+ * Los términos pasan por un stemming liviano (plural y vocal final), así
+ * "focos", "foco", "lamparas" y "lámpara" caen en el mismo término.
+ */
+public final class Bm25fIndex {
+
+    // Saturación de la frecuencia
+    private static final double K1 = 1.2;
+
+    enum Field {
+        NOMBRE(3.0, 0.5),
+        CATEGORIA(2.0, 0.3),
+        CARACTERISTICAS(1.2, 0.5),
+        DESCRIPCION(1.0, 0.75);
+
+        final double weight;
+        // Normalización por largo del campo (0 = ninguna, 1 = completa)
+        final double b;
+
+        Field(double weight, double b) {
+            this.weight = weight;
+            this.b = b;
+        }
+    }
+
+    /**
+     * Productos de un término: posiciones en el snapshot (ascendentes) y, para cada una,
+     * tf' / (k1 + tf'), donde tf' es la frecuencia ponderada y normalizada de BM25F.
+     */
+    private record Postings(int[] ords, float[] saturated, double idf) {
+    }
+
+    /**
+     * Producto que contiene algún término de la consulta y su relevancia,
+     * relativa a la suma de idf de los términos con peso completo (1.0 = todos, con saturación máxima).
+     */
+    public record Scored(int ord, double relevance) {
+    }
+
+    private final int size;
+    private final Map<String, Postings> postings;
+
+    private Bm25fIndex(int size, Map<String, Postings> postings) {
+        this.size = size;
+        this.postings = postings;
+    }
+
+    static Bm25fIndex build(List<ProductSearchDocument> documents) {
+        int n = documents.size();
+        Field[] fields = Field.values();
+        Map<String, List<int[]>> tfs = new HashMap<>();    // término → [ord, tf por campo...]
+        int[][] lengths = new int[n][fields.length];
+        double[] totalLength = new double[fields.length];
+
+        for (int ord = 0; ord < n; ord++) {
+            ProductSearchDocument d = documents.get(ord);
+            for (Field field : fields) {
+                List<String> terms = terms(text(d, field));
+                lengths[ord][field.ordinal()] = terms.size();
+                totalLength[field.ordinal()] += terms.size();
+                for (String term : terms) {
+                    List<int[]> list = tfs.computeIfAbsent(term, k -> new ArrayList<>());
+                    int[] last = list.isEmpty() ? null : list.get(list.size() - 1);
+                    if (last == null || last[0] != ord) {
+                        last = new int[fields.length + 1];
+                        last[0] = ord;
+                        list.add(last);
+                    }
+                    last[field.ordinal() + 1]++;
+                }
+            }
+        }
+
+        double[] avgLength = new double[fields.length];
+        for (Field field : fields) {
+            avgLength[field.ordinal()] = n == 0 ? 0 : Math.max(1.0, totalLength[field.ordinal()] / n);
+        }
+
+        Map<String, Postings> postings = new HashMap<>(tfs.size() * 2);
+        tfs.forEach((term, list) -> {
+            int[] ords = new int[list.size()];
+            float[] saturated = new float[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                int[] entry = list.get(i);
+                ords[i] = entry[0];
+                double tf = 0;
+                for (Field field : fields) {
+                    int count = entry[field.ordinal() + 1];
+                    if (count == 0) continue;
+                    double norm = 1 - field.b + field.b * lengths[entry[0]][field.ordinal()] / avgLength[field.ordinal()];
+                    tf += field.weight * count / norm;
+                }
+                saturated[i] = (float) (tf / (K1 + tf));
+            }
+            double df = list.size();
+            double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            postings.put(term, new Postings(ords, saturated, idf));
+        });
+
+        return new Bm25fIndex(n, postings);
+    }
+
+    /**
+     * Puntúa los productos que contienen al menos un término.
+     *
+     * Las postings de cada término ya están ordenadas por posición: se recorren juntas
+     * como en un merge, sumando cada producto cuando aparece, así el costo es el total
+     * de las postings de la consulta y no depende del tamaño del catálogo.
+     *
+     * @param queryTerms término (ya pasado por {@link #stem}) → peso en la consulta;
+     *                   1.0 para lo que escribió el usuario, menos para sinónimos
+     * @return solo productos con puntaje, en orden de posición
+     */
+    public List<Scored> score(Map<String, Double> queryTerms) {
+        List<Postings> lists = new ArrayList<>(queryTerms.size());
+        double[] weights = new double[queryTerms.size()];
+        double maxScore = 0;
+        double synonymsMax = 0;
+        int total = 0;
+        for (Map.Entry<String, Double> q : queryTerms.entrySet()) {
+            Postings p = postings.get(q.getKey());
+            if (p == null) continue;
+            double w = q.getValue() * p.idf();
+            if (q.getValue() >= 1.0) {
+                maxScore += w;
+            }
+            synonymsMax += w;
+            weights[lists.size()] = w;
+            lists.add(p);
+            total += p.ords().length;
+        }
+        if (lists.isEmpty()) {
+            return List.of();
+        }
+        if (maxScore == 0) {
+            // Solo sinónimos en el catálogo: se comparan contra su propio máximo
+            maxScore = synonymsMax;
+        }
+
+        int[] next = new int[lists.size()];
+        List<Scored> result = new ArrayList<>(Math.min(total, size));
+        while (true) {
+            int ord = Integer.MAX_VALUE;
+            for (int k = 0; k < lists.size(); k++) {
+                int[] ords = lists.get(k).ords();
+                if (next[k] < ords.length && ords[next[k]] < ord) {
+                    ord = ords[next[k]];
+                }
+            }
+            if (ord == Integer.MAX_VALUE) {
+                break;
+            }
+            double acc = 0;
+            for (int k = 0; k < lists.size(); k++) {
+                Postings p = lists.get(k);
+                if (next[k] < p.ords().length && p.ords()[next[k]] == ord) {
+                    acc += weights[k] * p.saturated()[next[k]];
+                    next[k]++;
+                }
+            }
+            result.add(new Scored(ord, acc / maxScore));
+        }
+        return result;
+    }
+
+    // ==========================================================
+    // Análisis de texto
+    // ==========================================================
+
+    /**
+     * Palabras de un texto normalizado (letras y dígitos; la puntuación separa).
+     */
+    public static List<String> tokens(String normalizedText) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalizedText.length(); i++) {
+            boolean word = i < normalizedText.length() && Character.isLetterOrDigit(normalizedText.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(normalizedText.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Stemming liviano para español: quita la "s" del plural y luego la vocal final
+     * ("plafones" → "plafon", "lamparas"/"lampara" → "lampar", "focos"/"foco" → "foc").
+     * Palabras cortas y con dígitos ("led", "12w") quedan igual.
+     */
+    public static String stem(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isDigit(token.charAt(i))) return token;
+        }
+        String t = token;
+        if (t.length() > 3 && t.endsWith("s")) {
+            t = t.substring(0, t.length() - 1);
+        }
+        if (t.length() > 3 && "aeo".indexOf(t.charAt(t.length() - 1)) >= 0) {
+            t = t.substring(0, t.length() - 1);
+        }
+        return t;
+    }
+
+    static List<String> terms(String normalizedText) {
+        List<String> tokens = tokens(normalizedText);
+        List<String> terms = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            terms.add(stem(token));
+        }
+        return terms;
+    }
+
+    private static String text(ProductSearchDocument d, Field field) {
+        return switch (field) {
+            case NOMBRE -> d.nombre();
+            case CATEGORIA -> d.categoria();
+            case CARACTERISTICAS -> d.caracteristicasText();
+            case DESCRIPCION -> d.descripcion();
+        };
+    }
+}
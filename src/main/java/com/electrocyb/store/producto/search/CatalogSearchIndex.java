@@ -0,0 +1,116 @@
+package com.electrocyb.store.producto.search;
+
+import com.electrocyb.store.producto.CatalogChangeEvent;
+import com.electrocyb.store.producto.Producto;
+import com.electrocyb.store.producto.ProductoRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Índice invertido en memoria del catálogo (token → lista de productos).
+ * Se construye al arrancar y se actualiza con cada CatalogChangeEvent,
+ * así el chatbot puede buscar sin ir a la base de datos en cada mensaje.
+ *
+ * Los datos viven en un CatalogSnapshot inmutable que se reemplaza de forma
+ * atómica: los lectores toman {@link #current()} y nunca ven un índice a medio
+ * construir. Solo se recalculan los documentos de los productos afectados, y si
+ * ninguno cambió algo indexado (el caso de StockChanged) ni siquiera se reconstruyen
+ * los índices: el snapshot nuevo comparte los del anterior y solo reemplaza esos
+ * documentos. El orden del autocompletado por stock se pone al día en la próxima
+ * reconstrucción.
+ */
+@Component
+public class CatalogSearchIndex {
+
+    private final ProductoRepository productoRepository;
+
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+
+    public CatalogSearchIndex(ProductoRepository productoRepository) {
+        this.productoRepository = productoRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Aplica un cambio del catálogo (después del commit si vino de una transacción).
+     * Corre antes que los demás oyentes, que así ya ven la versión nueva.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (event instanceof CatalogChangeEvent.CatalogImported) {
+            // Una sola lectura del catálogo en vez de recargar miles de productos por id
+            rebuild();
+        } else if (event instanceof CatalogChangeEvent.ProductDeleted) {
+            remove(event.productIds());
+        } else {
+            reload(event.productIds());
+        }
+    }
+
+    /**
+     * Foto actual del catálogo. Para una búsqueda coherente, tomarla una sola vez.
+     */
+    public CatalogSnapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Relee todo el catálogo (una sola consulta, con características) y reemplaza el índice.
+     * Los documentos de productos cuyos textos no cambiaron se reutilizan.
+     */
+    public synchronized void rebuild() {
+        Map<Long, ProductSearchDocument> previous = snapshot.byId();
+        List<ProductSearchDocument> documents = new ArrayList<>();
+        for (Producto p : productoRepository.findAllWithCaracteristicas()) {
+            ProductSearchDocument old = previous.get(p.getId());
+            documents.add(old != null ? old.refreshedFor(p) : ProductSearchDocument.of(p));
+        }
+        publish(documents);
+    }
+
+    /**
+     * Relee solo los productos indicados; los que ya no existen salen del índice.
+     */
+    private synchronized void reload(Set<Long> productoIds) {
+        Map<Long, ProductSearchDocument> documents = snapshot.byId();
+        Set<Long> missing = new HashSet<>(productoIds);
+        List<ProductSearchDocument> refreshed = new ArrayList<>(productoIds.size());
+        boolean sameIndexes = true;
+        for (Producto p : productoRepository.findAllWithCaracteristicasByIdIn(productoIds)) {
+            missing.remove(p.getId());
+            ProductSearchDocument old = documents.get(p.getId());
+            ProductSearchDocument d = old != null ? old.refreshedFor(p) : ProductSearchDocument.of(p);
+            sameIndexes &= old != null && old.indexesSameAs(d);
+            refreshed.add(d);
+        }
+        if (sameIndexes && missing.isEmpty()) {
+            snapshot = snapshot.withDocuments(snapshot.version() + 1, refreshed);
+            return;
+        }
+        refreshed.forEach(d -> documents.put(d.id(), d));
+        missing.forEach(documents::remove);
+        publish(documents.values());
+    }
+
+    private synchronized void remove(Set<Long> productoIds) {
+        Map<Long, ProductSearchDocument> documents = snapshot.byId();
+        if (documents.keySet().removeAll(productoIds)) {
+            publish(documents.values());
+        }
+    }
+
+    private void publish(Collection<ProductSearchDocument> documents) {
+        snapshot = CatalogSnapshot.build(snapshot.version() + 1, documents, snapshot);
+    }
+}
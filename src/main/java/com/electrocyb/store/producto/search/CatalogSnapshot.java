@@ -0,0 +1,480 @@
+package com.electrocyb.store.producto.search;
+
+import java.util.*;
+
+/**
+ * Foto inmutable y versionada del catálogo: documentos de búsqueda, índice
+ * invertido (token → productos), relevancia BM25F, especificaciones, corrector ortográfico
+ * y autocompletado.
+ *
+ * CatalogSearchIndex la reemplaza entera en cada cambio; quien la obtiene una vez
+ * con {@code current()} trabaja sobre datos coherentes durante toda su búsqueda
+ * sin tomar locks, aunque mientras tanto se publique una versión nueva.
+ *
+ * Los tokens se obtienen partiendo por espacios el texto normalizado
+ * (igual que hace ProductAdviceService), por lo que cualquier "contains"
+ * sobre el texto del producto se puede resolver primero contra el vocabulario
+ * ({@link TokenIndex}, que encuentra los tokens por subcadena sin recorrerlo).
+ */
+public final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = build(0, List.of());
+
+    private final long version;
+    private final long indexVersion;
+    private final long availabilityVersion;
+    // Ordenados por id del producto
+    private final List<ProductSearchDocument> documents;
+    private final Map<Long, Integer> ordById;
+    // token normalizado → posiciones (ordenadas) dentro de documents
+    private final TokenIndex textPostings;
+    private final TokenIndex namePostings;
+    private final SpellCorrector spellCorrector;
+    // Índice de precios: céntimos ascendentes y la posición del producto (los sin precio no entran)
+    private final long[] sortedPrices;
+    private final int[] ordsByPrice;
+    private final FacetIndex facets;
+    private final AttributeIndex attributes;
+    private final SuggestIndex suggestions;
+    private final Bm25fIndex bm25f;
+
+    private CatalogSnapshot(long version, List<ProductSearchDocument> documents,
+                            TokenIndex textPostings, TokenIndex namePostings,
+                            SpellCorrector spellCorrector, CatalogSnapshot previous) {
+        this.version = version;
+        this.indexVersion = version;
+        this.availabilityVersion = version;
+        this.documents = documents;
+        this.ordById = new HashMap<>(documents.size() * 2);
+        for (int i = 0; i < documents.size(); i++) {
+            ordById.put(documents.get(i).id(), i);
+        }
+        this.textPostings = textPostings;
+        this.namePostings = namePostings;
+        this.spellCorrector = spellCorrector;
+
+        Integer[] priced = new Integer[documents.size()];
+        int count = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            if (documents.get(i).precioCentavos() != null) priced[count++] = i;
+        }
+        Arrays.sort(priced, 0, count, Comparator
+                .comparingLong((Integer ord) -> documents.get(ord).precioCentavos())
+                .thenComparingInt(ord -> ord));
+        this.sortedPrices = new long[count];
+        this.ordsByPrice = new int[count];
+        for (int i = 0; i < count; i++) {
+            ordsByPrice[i] = priced[i];
+            sortedPrices[i] = documents.get(priced[i]).precioCentavos();
+        }
+
+        this.facets = previous == null
+                ? FacetIndex.build(documents)
+                : previous.facets.updated(previous.documents, documents);
+        this.attributes = AttributeIndex.build(documents);
+        this.suggestions = SuggestIndex.build(documents, this::textCandidates);
+        this.bm25f = Bm25fIndex.build(documents);
+    }
+
+    // Mismos índices que base, con otros documentos en las mismas posiciones
+    private CatalogSnapshot(CatalogSnapshot base, long version, long availabilityVersion,
+                            List<ProductSearchDocument> documents) {
+        this.version = version;
+        this.indexVersion = base.indexVersion;
+        this.availabilityVersion = availabilityVersion;
+        this.documents = documents;
+        this.ordById = base.ordById;
+        this.textPostings = base.textPostings;
+        this.namePostings = base.namePostings;
+        this.spellCorrector = base.spellCorrector;
+        this.sortedPrices = base.sortedPrices;
+        this.ordsByPrice = base.ordsByPrice;
+        this.facets = base.facets;
+        this.attributes = base.attributes;
+        this.suggestions = base.suggestions;
+        this.bm25f = base.bm25f;
+    }
+
+    static CatalogSnapshot build(long version, Collection<ProductSearchDocument> source) {
+        return build(version, source, null);
+    }
+
+    /**
+     * Igual que {@link #build(long, Collection)}, reutilizando lo que se pueda de {@code previous}
+     * (las facetas de los productos que no cambiaron).
+     */
+    static CatalogSnapshot build(long version, Collection<ProductSearchDocument> source, CatalogSnapshot previous) {
+        List<ProductSearchDocument> documents = source.stream()
+                .sorted(Comparator.comparing(ProductSearchDocument::id, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+
+        Map<String, List<Integer>> text = new HashMap<>();
+        Map<String, List<Integer>> name = new HashMap<>();
+        Map<String, Integer> vocabulary = new HashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            ProductSearchDocument d = documents.get(i);
+            for (String token : d.nameTokens()) {
+                if (!token.isEmpty()) addPosting(name, token, i);
+            }
+            for (String token : tokens(d.fullText())) {
+                addPosting(text, token, i);
+            }
+            // Descripciones no: tienen verbos y relleno que no conviene "corregir" hacia ellos
+            for (String token : new HashSet<>(tokens(d.nombreCategoria()))) {
+                vocabulary.merge(token, 1, Integer::sum);
+            }
+        }
+        for (Set<String> table : List.of(ProductKeywords.LAMP_KEYWORDS, ProductKeywords.STRIP_KEYWORDS,
+                ProductKeywords.ROOM_KEYWORDS, ProductKeywords.SIGN_KEYWORDS)) {
+            for (String keyword : table) {
+                for (String token : tokens(keyword)) {
+                    vocabulary.merge(token, 1, Integer::sum);
+                }
+            }
+        }
+
+        return new CatalogSnapshot(version, documents, TokenIndex.of(freeze(text)), TokenIndex.of(freeze(name)), SpellCorrector.of(vocabulary), previous);
+    }
+
+    /**
+     * Copia con los documentos indicados en lugar de los del mismo producto, reutilizando
+     * todos los índices: cuesta una copia de la lista, no una reconstrucción. Cada reemplazo
+     * tiene que estar ya en el snapshot e indexar lo mismo que el anterior
+     * ({@link ProductSearchDocument#indexesSameAs}), como cuando solo cambió el stock.
+     */
+    CatalogSnapshot withDocuments(long version, Collection<ProductSearchDocument> replacements) {
+        List<ProductSearchDocument> copy = new ArrayList<>(documents);
+        boolean availabilityChanged = false;
+        for (ProductSearchDocument d : replacements) {
+            Integer ord = ordById.get(d.id());
+            if (ord == null || !documents.get(ord).indexesSameAs(d)) {
+                throw new IllegalArgumentException("El producto " + d.id() + " cambió algo indexado");
+            }
+            availabilityChanged |= inStock(documents.get(ord)) != inStock(d);
+            copy.set(ord, d);
+        }
+        return new CatalogSnapshot(this, version, availabilityChanged ? version : availabilityVersion,
+                List.copyOf(copy));
+    }
+
+    /**
+     * Número de versión; crece en uno con cada cambio aplicado al catálogo.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Versión de los índices: cambia cuando se reconstruyen, no cuando
+     * {@link #withDocuments} solo reemplaza documentos (stock).
+     */
+    public long indexVersion() {
+        return indexVersion;
+    }
+
+    /**
+     * Versión de la disponibilidad: además de con los índices, cambia cuando algún
+     * producto pasa de tener stock a agotarse o al revés, que es lo que mira el
+     * chatbot del stock (ver ProductAdviceService.hasStockOrNoStockField).
+     */
+    public long availabilityVersion() {
+        return availabilityVersion;
+    }
+
+    public boolean isEmpty() {
+        return documents.isEmpty();
+    }
+
+    /**
+     * Todos los documentos, ordenados por id del producto.
+     */
+    public List<ProductSearchDocument> documents() {
+        return documents;
+    }
+
+    public Optional<ProductSearchDocument> find(Long productoId) {
+        Integer ord = ordById.get(productoId);
+        return ord == null ? Optional.empty() : Optional.of(documents.get(ord));
+    }
+
+    /**
+     * Corrector ortográfico sobre las palabras de nombres, categorías y tablas de ProductKeywords.
+     */
+    public SpellCorrector spellCorrector() {
+        return spellCorrector;
+    }
+
+    /**
+     * Autocompletado: sugerencias (categorías, búsquedas y productos) para lo que lleva escrito
+     * el usuario, sin importar tildes ni mayúsculas.
+     */
+    public List<SuggestIndex.Suggestion> suggest(String prefix, int limit) {
+        return suggestions.suggest(prefix, limit);
+    }
+
+    /**
+     * Búsqueda facetada: productos que contienen todas las palabras de {@code query}
+     * (vacío = todo el catálogo) y cumplen la selección, más los conteos por faceta.
+     */
+    public FacetedResult searchFacets(String query, FacetIndex.Selection selection) {
+        String normalized = query == null ? "" : TextNormalizer.normalize(query).trim();
+        BitSet base = new BitSet(documents.size());
+        base.set(0, documents.size());
+        if (!normalized.isEmpty()) {
+            // Las especificaciones ("12W", "IP65") salen del índice de atributos; el resto, del texto
+            List<String> words = tokens(normalized);
+            List<AttributeIndex.Mention> mentions = attributes.mentions(words);
+            if (!mentions.isEmpty()) {
+                base.and(intersectMentions(mentions));
+                words = withoutMentions(words, mentions);
+            }
+            if (!words.isEmpty()) {
+                base.and(textCandidates(String.join(" ", words)));
+            }
+        }
+        FacetIndex.Result result = facets.search(base, selection);
+        return new FacetedResult(toDocuments(result.matches()), result);
+    }
+
+    public record FacetedResult(List<ProductSearchDocument> documents, FacetIndex.Result facets) {
+    }
+
+    /**
+     * Productos que cumplen las especificaciones mencionadas en el mensaje ("foco 12W luz cálida"),
+     * o null si no menciona ninguna que exista en el catálogo.
+     *
+     * Menciones de una misma clave se combinan con OR ("12w o 18w") y claves distintas con AND.
+     * Quien declara la clave tiene que tener el valor; quien no la declara pasa solo si
+     * el valor aparece en su texto (catálogos con características incompletas).
+     */
+    public BitSet matchAttributes(String normalizedMsg) {
+        List<AttributeIndex.Mention> mentions = attributes.mentions(tokens(normalizedMsg));
+        return mentions.isEmpty() ? null : intersectMentions(mentions);
+    }
+
+    /**
+     * Productos con precio dentro del rango (en céntimos, extremos incluidos; null = sin límite).
+     * Dos búsquedas binarias sobre el índice de precios: solo se recorren los que entran.
+     * Los productos sin precio nunca entran.
+     */
+    public BitSet matchPriceRange(Long minCentavos, Long maxCentavos) {
+        int from = minCentavos == null ? 0 : lowerBound(minCentavos);
+        int to = maxCentavos == null ? sortedPrices.length : lowerBound(maxCentavos + 1);
+        BitSet result = new BitSet(documents.size());
+        for (int i = from; i < to; i++) {
+            result.set(ordsByPrice[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Si el producto está entre las posiciones de {@code ords}
+     * (por ejemplo, {@link #matchPriceRange} o {@link #matchAttributes}).
+     */
+    public boolean contains(BitSet ords, Long productoId) {
+        Integer ord = ordById.get(productoId);
+        return ord != null && ords.get(ord);
+    }
+
+    /**
+     * Como findTop{limit}ByNombreContainingIgnoreCase, pero tampoco distingue tildes:
+     * recibe el texto ya normalizado (ver TextNormalizer) y lo busca en el nombre normalizado.
+     */
+    public List<ProductSearchDocument> findByNameContaining(String normalizedQuery, int limit) {
+        List<ProductSearchDocument> result = new ArrayList<>();
+        BitSet candidates = textCandidates(normalizedQuery);
+        for (int i = candidates.nextSetBit(0); i >= 0 && result.size() < limit; i = candidates.nextSetBit(i + 1)) {
+            ProductSearchDocument d = documents.get(i);
+            if (d.nombre().contains(normalizedQuery)) {
+                result.add(d);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Documentos de los ids indicados, respetando el orden recibido
+     * (ids que ya no están en el índice se ignoran).
+     */
+    public List<ProductSearchDocument> findByIds(List<Long> ids) {
+        List<ProductSearchDocument> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Integer ord = ordById.get(id);
+            if (ord != null) {
+                result.add(documents.get(ord));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Productos cuyo nombre PUEDE coincidir con el mensaje (superconjunto de
+     * los que aceptaría ProductAdviceService.nameMatchesUserInput).
+     */
+    public List<ProductSearchDocument> findNameCandidates(String normalizedMsg) {
+        return toDocuments(nameCandidates(normalizedMsg));
+    }
+
+    /**
+     * Relevancia BM25F de los productos que contienen algún término de la consulta
+     * (ver Bm25fIndex.score), en orden de id. Cuesta lo que suman las postings de los términos.
+     */
+    public List<ScoredDocument> scoreRelevance(Map<String, Double> queryTerms) {
+        return scoreRelevance(queryTerms, null);
+    }
+
+    /**
+     * Igual que {@link #scoreRelevance(Map)}, solo con los productos de {@code within}
+     * (por ejemplo, {@link #matchAttributes}); null = todos.
+     */
+    public List<ScoredDocument> scoreRelevance(Map<String, Double> queryTerms, BitSet within) {
+        List<Bm25fIndex.Scored> scored = bm25f.score(queryTerms);
+        List<ScoredDocument> result = new ArrayList<>(scored.size());
+        for (Bm25fIndex.Scored s : scored) {
+            if (within == null || within.get(s.ord())) {
+                result.add(new ScoredDocument(documents.get(s.ord()), s.relevance()));
+            }
+        }
+        return result;
+    }
+
+    public record ScoredDocument(ProductSearchDocument document, double relevance) {
+    }
+
+    // ==========================================================
+    // Internos
+    // ==========================================================
+
+    Map<Long, ProductSearchDocument> byId() {
+        Map<Long, ProductSearchDocument> result = new LinkedHashMap<>();
+        for (ProductSearchDocument d : documents) {
+            result.put(d.id(), d);
+        }
+        return result;
+    }
+
+    /**
+     * Posiciones cuyo texto completo puede contener el fragmento.
+     * Cada pedazo sin espacios del fragmento tiene que estar dentro de algún token.
+     */
+    private BitSet textCandidates(String fragment) {
+        return intersectPieces(textPostings, fragment);
+    }
+
+    private BitSet intersectMentions(List<AttributeIndex.Mention> mentions) {
+        Map<Set<String>, BitSet> byClaves = new LinkedHashMap<>();
+        for (AttributeIndex.Mention m : mentions) {
+            BitSet accepted = textCandidates(m.valor());
+            accepted.andNot(m.declared());
+            accepted.or(m.matches());
+            byClaves.merge(m.claves(), accepted, (a, b) -> {
+                a.or(b);
+                return a;
+            });
+        }
+        BitSet result = new BitSet(documents.size());
+        result.set(0, documents.size());
+        byClaves.values().forEach(result::and);
+        return result;
+    }
+
+    private static List<String> withoutMentions(List<String> words, List<AttributeIndex.Mention> mentions) {
+        List<String> rest = new ArrayList<>(words.size());
+        int next = 0;
+        for (AttributeIndex.Mention m : mentions) {
+            rest.addAll(words.subList(next, m.from()));
+            next = m.to();
+        }
+        rest.addAll(words.subList(next, words.size()));
+        return rest;
+    }
+
+    private BitSet nameCandidates(String normalizedMsg) {
+        BitSet result = new BitSet(documents.size());
+
+        // Nombre (o alguna de sus palabras) contenido en el mensaje: los tokens no tienen
+        // espacios, así que basta probar los pedazos de cada palabra del mensaje
+        int maxLength = namePostings.maxTokenLength();
+        for (String word : tokens(normalizedMsg)) {
+            for (int from = 0; from < word.length(); from++) {
+                for (int to = from + 1; to <= Math.min(word.length(), from + maxLength); to++) {
+                    int[] ords = namePostings.get(word.substring(from, to));
+                    if (ords != null) {
+                        for (int ord : ords) result.set(ord);
+                    }
+                }
+            }
+        }
+
+        // Mensaje contenido en el nombre
+        if (normalizedMsg.length() >= 4) {
+            result.or(intersectPieces(namePostings, normalizedMsg));
+        }
+        return result;
+    }
+
+    // Primera posición de sortedPrices con precio >= centavos
+    private int lowerBound(long centavos) {
+        int lo = 0;
+        int hi = sortedPrices.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedPrices[mid] < centavos) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private List<ProductSearchDocument> toDocuments(BitSet ords) {
+        List<ProductSearchDocument> result = new ArrayList<>(ords.cardinality());
+        for (int i = ords.nextSetBit(0); i >= 0; i = ords.nextSetBit(i + 1)) {
+            result.add(documents.get(i));
+        }
+        return result;
+    }
+
+    private BitSet intersectPieces(TokenIndex postings, String fragment) {
+        BitSet result = null;
+        for (String piece : tokens(fragment)) {
+            BitSet matches = new BitSet(documents.size());
+            postings.orContaining(piece, matches);
+            if (result == null) {
+                result = matches;
+            } else {
+                result.and(matches);
+            }
+            if (result.isEmpty()) break;
+        }
+        return result != null ? result : new BitSet();
+    }
+
+    // Igual que ProductAdviceService: sin campo stock cuenta como disponible
+    private static boolean inStock(ProductSearchDocument d) {
+        Integer stock = d.producto().getStock();
+        return stock == null || stock > 0;
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String part : text.split("\\s+")) {
+            if (!part.isEmpty()) tokens.add(part);
+        }
+        return tokens;
+    }
+
+    private static void addPosting(Map<String, List<Integer>> postings, String token, int ord) {
+        List<Integer> list = postings.computeIfAbsent(token, k -> new ArrayList<>());
+        if (list.isEmpty() || list.get(list.size() - 1) != ord) {
+            list.add(ord);
+        }
+    }
+
+    private static Map<String, int[]> freeze(Map<String, List<Integer>> postings) {
+        Map<String, int[]> result = new HashMap<>(postings.size() * 2);
+        postings.forEach((token, ords) -> result.put(token, ords.stream().mapToInt(Integer::intValue).toArray()));
+        return result;
+    }
+}
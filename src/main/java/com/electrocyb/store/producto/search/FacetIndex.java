@@ -0,0 +1,308 @@
+package com.electrocyb.store.producto.search;
+
+import java.util.*;
+
+/**
+ * Índices de facetas del catálogo: para cada categoría, tramo de precio y par
+ * característica/valor, un BitSet con las posiciones de los productos que lo tienen.
+ *
+ * Se arma junto con cada CatalogSnapshot a partir de los valores ya normalizados de
+ * cada ProductSearchDocument (que solo se recalculan para el producto que cambió),
+ * así contar facetas son ANDs y cardinalidades de bits, sin GROUP BY en BD. Cuando
+ * cambian productos existentes, el snapshot nuevo parte del índice anterior y solo
+ * copia y corrige los bits de esos productos (ver {@link #updated}).
+ *
+ * Semántica de filtros: valores de una misma faceta se combinan con OR y facetas
+ * distintas con AND. El conteo de cada faceta ignora su propio filtro, para que
+ * la tienda pueda mostrar cuántos habría al marcar otra opción.
+ */
+public final class FacetIndex {
+
+    // Tramos de precio en céntimos: [min, max)
+    public static final List<PriceBucket> PRICE_BUCKETS = List.of(
+            new PriceBucket("0-20", 0L, 2_000L),
+            new PriceBucket("20-50", 2_000L, 5_000L),
+            new PriceBucket("50-100", 5_000L, 10_000L),
+            new PriceBucket("100-200", 10_000L, 20_000L),
+            new PriceBucket("200+", 20_000L, null)
+    );
+
+    public record PriceBucket(String label, long minCentavos, Long maxCentavos) {
+        boolean contains(long centavos) {
+            return centavos >= minCentavos && (maxCentavos == null || centavos < maxCentavos);
+        }
+    }
+
+    // Valor de faceta con la etiqueta original (la primera que se vio) y sus productos
+    private record Facet(String label, BitSet bits) {
+    }
+
+    /**
+     * Filtros elegidos, con valores ya normalizados (ver ProductSearchDocument.facetKey;
+     * los de características, AttributeIndex.valueKey, así "12W" y "12 w" son el mismo).
+     * Colecciones vacías = sin filtro en esa faceta.
+     */
+    public record Selection(Set<String> categorias,
+                            Set<String> precios,
+                            Map<String, Set<String>> caracteristicas) {
+    }
+
+    public record Count(String valor, String label, int count) {
+    }
+
+    public record AttributeCounts(String clave, String label, List<Count> valores) {
+    }
+
+    public record Result(BitSet matches,
+                         List<Count> categorias,
+                         List<Count> precios,
+                         List<AttributeCounts> caracteristicas) {
+    }
+
+    private final int size;
+    private final Map<String, Facet> categorias;
+    private final Map<String, Facet> precios;
+    private final Map<String, String> caracteristicaLabels;
+    private final Map<String, Map<String, Facet>> caracteristicas;
+
+    private FacetIndex(int size, Map<String, Facet> categorias, Map<String, Facet> precios,
+                       Map<String, String> caracteristicaLabels, Map<String, Map<String, Facet>> caracteristicas) {
+        this.size = size;
+        this.categorias = categorias;
+        this.precios = precios;
+        this.caracteristicaLabels = caracteristicaLabels;
+        this.caracteristicas = caracteristicas;
+    }
+
+    static FacetIndex build(List<ProductSearchDocument> documents) {
+        Builder builder = new Builder(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            builder.add(i, documents.get(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Índice para {@code documents} partiendo de este, que se armó con {@code previous}.
+     * Si ningún producto entró ni salió (mismas posiciones), solo se tocan los bits de los
+     * que cambiaron de categoría, tramo de precio o características: se copian los BitSet
+     * afectados y el resto se comparte con este índice. Si no, se arma de cero.
+     */
+    FacetIndex updated(List<ProductSearchDocument> previous, List<ProductSearchDocument> documents) {
+        if (previous.size() != size || documents.size() != size) {
+            return build(documents);
+        }
+        Builder builder = null;
+        for (int i = 0; i < size; i++) {
+            ProductSearchDocument before = previous.get(i);
+            ProductSearchDocument after = documents.get(i);
+            if (!Objects.equals(before.id(), after.id())) {
+                return build(documents);
+            }
+            if (before != after && !sameFacets(before, after)) {
+                if (builder == null) builder = new Builder(this);
+                builder.remove(i, before);
+                builder.add(i, after);
+            }
+        }
+        return builder == null ? this : builder.build();
+    }
+
+    private static boolean sameFacets(ProductSearchDocument a, ProductSearchDocument b) {
+        return Objects.equals(a.producto().getCategoria(), b.producto().getCategoria())
+                && Objects.equals(bucket(a.precioCentavos()), bucket(b.precioCentavos()))
+                && a.caracteristicas().equals(b.caracteristicas());
+    }
+
+    private static PriceBucket bucket(Long centavos) {
+        if (centavos == null) return null;
+        for (PriceBucket bucket : PRICE_BUCKETS) {
+            if (bucket.contains(centavos)) return bucket;
+        }
+        return null;
+    }
+
+    /**
+     * Arma los mapas de facetas. Los BitSet (y mapas de valores de características) que
+     * vienen de otro índice se copian la primera vez que se modifican, así ese índice,
+     * que puede estar en uso, nunca cambia.
+     */
+    private static final class Builder {
+
+        private final int n;
+        private final Map<String, Facet> categorias;
+        private final Map<String, Facet> precios;
+        private final Map<String, String> caracteristicaLabels;
+        private final Map<String, Map<String, Facet>> caracteristicas;
+        private final Set<Object> propios = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Builder(int n) {
+            this.n = n;
+            this.categorias = new TreeMap<>();
+            this.precios = new LinkedHashMap<>();
+            this.caracteristicaLabels = new TreeMap<>();
+            this.caracteristicas = new TreeMap<>();
+            for (PriceBucket bucket : PRICE_BUCKETS) {
+                precios.put(bucket.label(), nuevo(bucket.label()));
+            }
+        }
+
+        Builder(FacetIndex base) {
+            this.n = base.size;
+            this.categorias = new TreeMap<>(base.categorias);
+            this.precios = new LinkedHashMap<>(base.precios);
+            this.caracteristicaLabels = new TreeMap<>(base.caracteristicaLabels);
+            this.caracteristicas = new TreeMap<>(base.caracteristicas);
+        }
+
+        void add(int ord, ProductSearchDocument d) {
+            if (!d.categoriaFacet().isEmpty()) {
+                bits(categorias, d.categoriaFacet(), d.producto().getCategoria().trim()).set(ord);
+            }
+            PriceBucket bucket = bucket(d.precioCentavos());
+            if (bucket != null) {
+                bits(precios, bucket.label(), bucket.label()).set(ord);
+            }
+            for (Map.Entry<String, String> raw : d.caracteristicas().entrySet()) {
+                String key = ProductSearchDocument.facetKey(raw.getKey());
+                String value = AttributeIndex.valueKey(raw.getValue());
+                if (key.isEmpty() || value.isEmpty()) continue;
+                caracteristicaLabels.putIfAbsent(key, raw.getKey().trim());
+                bits(valores(key), value, raw.getValue().trim()).set(ord);
+            }
+        }
+
+        // Valores que quedan sin productos no se borran: los conteos ya omiten los vacíos
+        void remove(int ord, ProductSearchDocument d) {
+            if (!d.categoriaFacet().isEmpty()) {
+                bits(categorias, d.categoriaFacet(), null).clear(ord);
+            }
+            PriceBucket bucket = bucket(d.precioCentavos());
+            if (bucket != null) {
+                bits(precios, bucket.label(), null).clear(ord);
+            }
+            for (Map.Entry<String, String> raw : d.caracteristicas().entrySet()) {
+                String key = ProductSearchDocument.facetKey(raw.getKey());
+                String value = AttributeIndex.valueKey(raw.getValue());
+                if (key.isEmpty() || value.isEmpty()) continue;
+                bits(valores(key), value, null).clear(ord);
+            }
+        }
+
+        FacetIndex build() {
+            return new FacetIndex(n, categorias, precios, caracteristicaLabels, caracteristicas);
+        }
+
+        private Map<String, Facet> valores(String key) {
+            Map<String, Facet> valores = caracteristicas.get(key);
+            if (valores == null || !propios.contains(valores)) {
+                valores = valores == null ? new TreeMap<>() : new TreeMap<>(valores);
+                propios.add(valores);
+                caracteristicas.put(key, valores);
+            }
+            return valores;
+        }
+
+        // BitSet del valor listo para modificar (label: la del valor si hay que crearlo)
+        private BitSet bits(Map<String, Facet> facets, String value, String label) {
+            Facet facet = facets.get(value);
+            if (facet == null) {
+                facet = nuevo(label);
+                facets.put(value, facet);
+            } else if (!propios.contains(facet.bits())) {
+                facet = new Facet(facet.label(), (BitSet) facet.bits().clone());
+                propios.add(facet.bits());
+                facets.put(value, facet);
+            }
+            return facet.bits();
+        }
+
+        private Facet nuevo(String label) {
+            Facet facet = new Facet(label, new BitSet(n));
+            propios.add(facet.bits());
+            return facet;
+        }
+    }
+
+    /**
+     * Aplica la selección sobre {@code base} (productos que ya pasaron el texto de búsqueda)
+     * y cuenta cada valor de faceta.
+     */
+    public Result search(BitSet base, Selection selection) {
+        BitSet categoriaMask = union(categorias, selection.categorias());
+        BitSet precioMask = union(precios, selection.precios());
+        Map<String, BitSet> caracteristicaMasks = new LinkedHashMap<>();
+        selection.caracteristicas().forEach((key, values) -> {
+            if (!values.isEmpty()) {
+                caracteristicaMasks.put(key, union(caracteristicas.getOrDefault(key, Map.of()), values));
+            }
+        });
+
+        // Productos que cumplen todo menos los filtros de atributos
+        BitSet sinAtributos = and(base, categoriaMask, precioMask);
+        BitSet atributos = all();
+        caracteristicaMasks.values().forEach(atributos::and);
+
+        BitSet matches = and(sinAtributos, atributos, null);
+
+        List<Count> categoriaCounts = count(categorias, and(base, precioMask, atributos), selection.categorias(), true);
+        List<Count> precioCounts = count(precios, and(base, categoriaMask, atributos), selection.precios(), false);
+
+        List<AttributeCounts> caracteristicaCounts = new ArrayList<>();
+        caracteristicas.forEach((key, values) -> {
+            BitSet context = (BitSet) sinAtributos.clone();
+            caracteristicaMasks.forEach((otherKey, mask) -> {
+                if (!otherKey.equals(key)) context.and(mask);
+            });
+            List<Count> counts = count(values, context, selection.caracteristicas().getOrDefault(key, Set.of()), true);
+            if (!counts.isEmpty()) {
+                caracteristicaCounts.add(new AttributeCounts(key, caracteristicaLabels.get(key), counts));
+            }
+        });
+
+        return new Result(matches, categoriaCounts, precioCounts, caracteristicaCounts);
+    }
+
+    private BitSet all() {
+        BitSet bits = new BitSet(size);
+        bits.set(0, size);
+        return bits;
+    }
+
+    private BitSet union(Map<String, Facet> facets, Set<String> selected) {
+        if (selected.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet(size);
+        for (String value : selected) {
+            Facet facet = facets.get(value);
+            if (facet != null) result.or(facet.bits());
+        }
+        return result;
+    }
+
+    private static BitSet and(BitSet base, BitSet a, BitSet b) {
+        BitSet result = (BitSet) base.clone();
+        if (a != null) result.and(a);
+        if (b != null) result.and(b);
+        return result;
+    }
+
+    // Valores con al menos un producto (o elegidos); los tramos de precio conservan su orden
+    private static List<Count> count(Map<String, Facet> facets, BitSet context, Set<String> selected,
+                                     boolean byCount) {
+        List<Count> result = new ArrayList<>();
+        facets.forEach((value, facet) -> {
+            BitSet hits = (BitSet) context.clone();
+            hits.and(facet.bits());
+            int count = hits.cardinality();
+            if (count > 0 || selected.contains(value)) {
+                result.add(new Count(value, facet.label(), count));
+            }
+        });
+        if (byCount) {
+            result.sort(Comparator.comparingInt(Count::count).reversed());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,199 @@
+package com.electrocyb.store.producto.search;
+
+import java.util.*;
+
+/**
+ * Buscador multi-patrón (Aho–Corasick) compilado una sola vez a partir de
+ * tablas de palabras clave. En una sola pasada lineal sobre el texto reporta
+ * qué grupos tienen al menos una palabra contenida, con la misma semántica
+ * que encadenar {@code text.contains(...)} por cada palabra.
+ *
+ * El texto debe venir ya normalizado igual que las palabras (minúsculas, sin tildes).
+ * Es inmutable y se puede compartir entre hilos.
+ *
+ * @param <K> grupo al que pertenece cada palabra (máximo 64 grupos)
+ */
+public final class KeywordMatcher<K extends Enum<K>> {
+
+    private static final int ROOT = 0;
+
+    private final Class<K> keyType;
+    private final K[] keys;
+
+    // Clase de carácter: 0 = carácter que no aparece en ninguna palabra
+    private final int[] asciiClass;
+    private final Map<Character, Integer> otherClass;
+    private final int width;
+
+    // Autómata determinista: delta[estado * width + clase] → estado siguiente
+    private final int[] delta;
+    // Grupos reconocidos al llegar a cada estado (incluye los de los enlaces de fallo)
+    private final long[] output;
+
+    private KeywordMatcher(Class<K> keyType, int[] asciiClass, Map<Character, Integer> otherClass,
+                           int width, int[] delta, long[] output) {
+        this.keyType = keyType;
+        this.keys = keyType.getEnumConstants();
+        this.asciiClass = asciiClass;
+        this.otherClass = otherClass;
+        this.width = width;
+        this.delta = delta;
+        this.output = output;
+    }
+
+    public static <K extends Enum<K>> Builder<K> builder(Class<K> keyType) {
+        return new Builder<>(keyType);
+    }
+
+    /**
+     * Grupos con al menos una palabra contenida en el texto, como máscara de bits por ordinal.
+     */
+    public long matchMask(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0L;
+        }
+        int state = ROOT;
+        long mask = 0L;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = delta[state * width + classOf(text.charAt(i))];
+            mask |= output[state];
+        }
+        return mask;
+    }
+
+    /**
+     * Grupos con al menos una palabra contenida en el texto.
+     */
+    public EnumSet<K> match(String text) {
+        return toSet(matchMask(text));
+    }
+
+    public EnumSet<K> toSet(long mask) {
+        EnumSet<K> result = EnumSet.noneOf(keyType);
+        while (mask != 0) {
+            int ordinal = Long.numberOfTrailingZeros(mask);
+            result.add(keys[ordinal]);
+            mask &= mask - 1;
+        }
+        return result;
+    }
+
+    public static boolean has(long mask, Enum<?> key) {
+        return (mask & (1L << key.ordinal())) != 0;
+    }
+
+    private int classOf(char c) {
+        if (c < asciiClass.length) {
+            return asciiClass[c];
+        }
+        Integer cls = otherClass.get(c);
+        return cls == null ? 0 : cls;
+    }
+
+    // ==========================================================
+    // Construcción
+    // ==========================================================
+
+    public static final class Builder<K extends Enum<K>> {
+
+        private final Class<K> keyType;
+        private final Map<String, Long> patterns = new LinkedHashMap<>();
+
+        private Builder(Class<K> keyType) {
+            if (keyType.getEnumConstants().length > 64) {
+                throw new IllegalArgumentException("KeywordMatcher admite como máximo 64 grupos");
+            }
+            this.keyType = keyType;
+        }
+
+        public Builder<K> add(K key, String... keywords) {
+            return add(key, Arrays.asList(keywords));
+        }
+
+        public Builder<K> add(K key, Collection<String> keywords) {
+            for (String kw : keywords) {
+                if (kw == null || kw.isEmpty()) continue;
+                patterns.merge(kw, 1L << key.ordinal(), (a, b) -> a | b);
+            }
+            return this;
+        }
+
+        public KeywordMatcher<K> build() {
+            // 1) Alfabeto compacto: solo los caracteres que aparecen en las palabras
+            int[] asciiClass = new int[128];
+            Map<Character, Integer> otherClass = new HashMap<>();
+            int width = 1;
+            for (String p : patterns.keySet()) {
+                for (char c : p.toCharArray()) {
+                    if (c < 128) {
+                        if (asciiClass[c] == 0) asciiClass[c] = width++;
+                    } else if (!otherClass.containsKey(c)) {
+                        otherClass.put(c, width++);
+                    }
+                }
+            }
+
+            // 2) Trie
+            List<int[]> gotoTable = new ArrayList<>();
+            List<Long> out = new ArrayList<>();
+            gotoTable.add(newRow(width));
+            out.add(0L);
+            for (Map.Entry<String, Long> e : patterns.entrySet()) {
+                int state = ROOT;
+                for (char c : e.getKey().toCharArray()) {
+                    int cls = c < 128 ? asciiClass[c] : otherClass.get(c);
+                    int next = gotoTable.get(state)[cls];
+                    if (next < 0) {
+                        next = gotoTable.size();
+                        gotoTable.add(newRow(width));
+                        out.add(0L);
+                        gotoTable.get(state)[cls] = next;
+                    }
+                    state = next;
+                }
+                out.set(state, out.get(state) | e.getValue());
+            }
+
+            // 3) Enlaces de fallo por BFS y autómata completo
+            int states = gotoTable.size();
+            int[] delta = new int[states * width];
+            long[] output = new long[states];
+            int[] fail = new int[states];
+            for (int s = 0; s < states; s++) output[s] = out.get(s);
+
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int cls = 0; cls < width; cls++) {
+                int next = gotoTable.get(ROOT)[cls];
+                if (next > 0 && cls != 0) {
+                    delta[cls] = next;
+                    fail[next] = ROOT;
+                    queue.add(next);
+                } else {
+                    delta[cls] = ROOT;
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                output[state] |= output[fail[state]];
+                for (int cls = 0; cls < width; cls++) {
+                    int next = gotoTable.get(state)[cls];
+                    if (next > 0 && cls != 0) {
+                        fail[next] = delta[fail[state] * width + cls];
+                        delta[state * width + cls] = next;
+                        queue.add(next);
+                    } else {
+                        delta[state * width + cls] = delta[fail[state] * width + cls];
+                    }
+                }
+            }
+
+            return new KeywordMatcher<>(keyType, asciiClass, Map.copyOf(otherClass), width, delta, output);
+        }
+
+        private static int[] newRow(int width) {
+            int[] row = new int[width];
+            Arrays.fill(row, -1);
+            return row;
+        }
+    }
+}
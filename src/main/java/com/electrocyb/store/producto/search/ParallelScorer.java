@@ -0,0 +1,169 @@
+package com.electrocyb.store.producto.search;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Puntaje y selección del top-k de candidatos del buscador.
+ *
+ * Con pocos candidatos todo corre en el hilo del request. A partir de
+ * {@code app.search.scoring.parallel-threshold} el trabajo se parte en tramos
+ * sobre un ForkJoinPool propio y acotado (no el común, que comparten los
+ * parallel streams de toda la aplicación).
+ *
+ * El top-k se elige con un heap de tamaño k por tramo, sin ordenar la lista
+ * completa. El orden es total (puntaje descendente y, a igual puntaje, posición
+ * ascendente), así que el resultado es el mismo en secuencial y en paralelo.
+ */
+@Component
+public class ParallelScorer {
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelScorer(
+            @Value("${app.search.scoring.threads:0}") int threads,
+            @Value("${app.search.scoring.parallel-threshold:4096}") int threshold
+    ) {
+        int parallelism = threads > 0 ? threads : Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        this.pool = new ForkJoinPool(parallelism);
+        this.threshold = Math.max(1, threshold);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Puntaje de las posiciones 0..n-1.
+     */
+    public double[] score(int n, IntToDoubleFunction scorer) {
+        double[] scores = new double[n];
+        if (n < threshold) {
+            for (int i = 0; i < n; i++) {
+                scores[i] = scorer.applyAsDouble(i);
+            }
+        } else {
+            pool.invoke(new ScoreTask(scores, scorer, 0, n));
+        }
+        return scores;
+    }
+
+    /**
+     * Hasta {@code k} posiciones que cumplen {@code accept}, de mejor a peor puntaje.
+     */
+    public int[] topK(double[] scores, int k, IntPredicate accept) {
+        if (k <= 0) {
+            return new int[0];
+        }
+        if (scores.length < threshold) {
+            return select(scores, k, accept, 0, scores.length);
+        }
+        return pool.invoke(new TopKTask(scores, k, accept, 0, scores.length));
+    }
+
+    // Tamaño de tramo: unas 4 tareas por hilo, nunca menos que el umbral
+    private int chunk(int n) {
+        return Math.max(threshold, n / (pool.getParallelism() * 4) + 1);
+    }
+
+    // Las tareas de ForkJoin son Serializable, pero estas solo viven dentro del pool
+    @SuppressWarnings("serial")
+    private final class ScoreTask extends RecursiveAction {
+        private final double[] scores;
+        private final IntToDoubleFunction scorer;
+        private final int from;
+        private final int to;
+
+        ScoreTask(double[] scores, IntToDoubleFunction scorer, int from, int to) {
+            this.scores = scores;
+            this.scorer = scorer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk(scores.length)) {
+                for (int i = from; i < to; i++) {
+                    scores[i] = scorer.applyAsDouble(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreTask(scores, scorer, from, mid), new ScoreTask(scores, scorer, mid, to));
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class TopKTask extends RecursiveTask<int[]> {
+        private final double[] scores;
+        private final int k;
+        private final IntPredicate accept;
+        private final int from;
+        private final int to;
+
+        TopKTask(double[] scores, int k, IntPredicate accept, int from, int to) {
+            this.scores = scores;
+            this.k = k;
+            this.accept = accept;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= chunk(scores.length)) {
+                return select(scores, k, accept, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            TopKTask left = new TopKTask(scores, k, accept, from, mid);
+            left.fork();
+            int[] right = new TopKTask(scores, k, accept, mid, to).compute();
+            return merge(scores, k, left.join(), right);
+        }
+    }
+
+    private static int[] select(double[] scores, int k, IntPredicate accept, int from, int to) {
+        // Heap con el peor de los k mejores arriba
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, (a, b) -> better(scores, b, a));
+        for (int i = from; i < to; i++) {
+            if (heap.size() == k && better(scores, heap.peek(), i) <= 0)
+                continue;
+            if (!accept.test(i))
+                continue;
+            heap.add(i);
+            if (heap.size() > k) heap.poll();
+        }
+        int[] result = new int[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = heap.poll();
+        }
+        return result;
+    }
+
+    private static int[] merge(double[] scores, int k, int[] a, int[] b) {
+        int[] result = new int[Math.min(k, a.length + b.length)];
+        int i = 0;
+        int j = 0;
+        for (int n = 0; n < result.length; n++) {
+            result[n] = j >= b.length || (i < a.length && better(scores, a[i], b[j]) < 0) ? a[i++] : b[j++];
+        }
+        return result;
+    }
+
+    // < 0 si la posición a va antes que b (más puntaje; a igual puntaje, menor posición)
+    private static int better(double[] scores, int a, int b) {
+        int byScore = Double.compare(scores[b], scores[a]);
+        return byScore != 0 ? byScore : Integer.compare(a, b);
+    }
+}
@@ -0,0 +1,93 @@
+package com.electrocyb.store.producto.search;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tablas de palabras clave de producto (ambientes, letreros, clase lámpara/tira,
+ * pedido de catálogo completo) compiladas en un solo KeywordMatcher.
+ * Así el mensaje y cada producto se clasifican en una sola pasada.
+ */
+public final class ProductKeywords {
+
+    public enum Group {
+        ROOM,
+        SIGN,
+        LAMP,
+        STRIP,
+        CATALOG_MENTION,
+        WANTS_EVERYTHING
+    }
+
+    // Tipo de producto: lámparas / plafones / focos
+    public static final Set<String> LAMP_KEYWORDS = Set.of(
+            "lampara", "lamparas", "plafon", "plafones", "panel", "paneles",
+            "foco", "focos", "spot", "dicroico", "dicroicos"
+    );
+
+    // Tipo de producto: tiras / cintas / mangueras
+    public static final Set<String> STRIP_KEYWORDS = Set.of(
+            "tira", "tiras", "tira led",
+            "cinta", "cintas", "cinta led",
+            "manguera", "mangueras", "manguera led",
+            "neon", "neón", "cinta led neon"
+    );
+
+    // Palabras de ambientes (para sumar puntos si calza, pero no filtramos duro)
+    public static final Set<String> ROOM_KEYWORDS = Set.of(
+            "sala", "comedor", "dormitorio", "habitacion", "habitación",
+            "cocina", "baño", "bano", "pasillo", "pasadizo"
+    );
+
+    public static final Set<String> SIGN_KEYWORDS = Set.of(
+            "letrero", "letreros", "aviso", "avisos", "cartel", "carteles"
+    );
+
+    // Sinónimos básicos por dominio (normalizados, sin tildes)
+    public static final Map<String, List<String>> SYNONYMS = Map.ofEntries(
+            Map.entry("foco", List.of("bombilla", "ampolleta", "foco", "luz", "led")),
+            Map.entry("focos", List.of("foco", "bombilla", "ampolleta", "luz", "led")),
+            Map.entry("lampara", List.of("lampara", "spot", "plafon", "panel")),
+            Map.entry("lamparas", List.of("lampara", "spot", "plafon", "panel")),
+            Map.entry("lampara techo", List.of("lampara techo", "plafon", "panel led")),
+            Map.entry("reflector", List.of("reflector", "proyector")),
+            Map.entry("sensor", List.of("sensor", "sensor de movimiento", "sensor movimiento", "sensor pir")),
+            Map.entry("camara", List.of("camara", "camara de seguridad", "cctv")),
+            Map.entry("tira", List.of("tira led", "cinta led", "strip led")),
+            Map.entry("tira led", List.of("tira led", "cinta led", "strip led")),
+            Map.entry("kit", List.of("kit", "kit solar", "kit de iluminacion")),
+            Map.entry("kit solar", List.of("kit solar", "panel solar", "linterna solar"))
+    );
+
+    // "catálogo de focos" no basta: tiene que mencionar catálogo Y pedir todo
+    public static final Set<String> CATALOG_MENTION_KEYWORDS = Set.of(
+            "catalogo", "catálogo", "lista de productos", "lista completa"
+    );
+
+    public static final Set<String> WANTS_EVERYTHING_KEYWORDS = Set.of(
+            "todos los productos", "todo el catalogo", "todo el catálogo",
+            "todo tu catalogo", "todo su catalogo", "todo tu catálogo",
+            "ver todo", "todo lo que tienes"
+    );
+
+    public static final KeywordMatcher<Group> MATCHER = KeywordMatcher.builder(Group.class)
+            .add(Group.ROOM, ROOM_KEYWORDS)
+            .add(Group.SIGN, SIGN_KEYWORDS)
+            .add(Group.LAMP, LAMP_KEYWORDS)
+            .add(Group.STRIP, STRIP_KEYWORDS)
+            .add(Group.CATALOG_MENTION, CATALOG_MENTION_KEYWORDS)
+            .add(Group.WANTS_EVERYTHING, WANTS_EVERYTHING_KEYWORDS)
+            .build();
+
+    private ProductKeywords() {
+    }
+
+    public static long match(String normalizedText) {
+        return MATCHER.matchMask(normalizedText);
+    }
+
+    public static boolean has(long mask, Group group) {
+        return KeywordMatcher.has(mask, group);
+    }
+}
@@ -0,0 +1,263 @@
+package com.electrocyb.store.producto.search;
+
+import com.electrocyb.store.producto.Producto;
+
+import java.util.*;
+
+/**
+ * Textos ya normalizados de un producto, listos para el buscador.
+ * Se calculan una vez por versión del producto (nombre, categoría, descripción
+ * y características); mientras no cambien, las búsquedas solo hacen lecturas.
+ */
+public final class ProductSearchDocument {
+
+    private final Producto producto;
+    // Precio con el que entró a los índices (el de producto puede cambiar después)
+    private final Long precioCentavos;
+
+    // Normalizados (minúsculas, sin tildes)
+    private final String nombre;
+    private final String categoria;
+    private final String descripcion;
+    private final String caracteristicasText;
+    private final String fullText;          // nombre + categoría + descripción + características
+    private final String nombreCategoria;   // tokens centrales del usuario
+    private final String claseText;         // nombre + categoría + descripción (lámpara vs tira)
+    private final List<String> nameTokens;
+
+    // Valores de faceta normalizados (clave → valor de característica)
+    private final String categoriaFacet;
+    private final Map<String, String> caracteristicasFacet;
+
+    // Grupos de ProductKeywords presentes (ambiente/letrero en fullText, clase en claseText)
+    private final long fullTextKeywords;
+    private final long claseKeywords;
+
+    // En minúsculas pero con tildes, para emular ContainingIgnoreCase de BD
+    private final String nombreLower;
+    private final String categoriaLower;
+    private final String descripcionLower;
+
+    // Origen de los textos, para saber si el documento sigue vigente
+    private final String sourceNombre;
+    private final String sourceCategoria;
+    private final String sourceDescripcion;
+    private final Map<String, String> sourceCaracteristicas;
+
+    private ProductSearchDocument(Producto producto, ProductSearchDocument base) {
+        this.producto = producto;
+        this.precioCentavos = producto.getPrecioCentavos();
+        this.nombre = base.nombre;
+        this.categoria = base.categoria;
+        this.descripcion = base.descripcion;
+        this.caracteristicasText = base.caracteristicasText;
+        this.fullText = base.fullText;
+        this.nombreCategoria = base.nombreCategoria;
+        this.claseText = base.claseText;
+        this.nameTokens = base.nameTokens;
+        this.categoriaFacet = base.categoriaFacet;
+        this.caracteristicasFacet = base.caracteristicasFacet;
+        this.fullTextKeywords = base.fullTextKeywords;
+        this.claseKeywords = base.claseKeywords;
+        this.nombreLower = base.nombreLower;
+        this.categoriaLower = base.categoriaLower;
+        this.descripcionLower = base.descripcionLower;
+        this.sourceNombre = base.sourceNombre;
+        this.sourceCategoria = base.sourceCategoria;
+        this.sourceDescripcion = base.sourceDescripcion;
+        this.sourceCaracteristicas = base.sourceCaracteristicas;
+    }
+
+    private ProductSearchDocument(Producto p) {
+        this.producto = p;
+        this.precioCentavos = p.getPrecioCentavos();
+        this.sourceNombre = p.getNombre();
+        this.sourceCategoria = p.getCategoria();
+        this.sourceDescripcion = p.getDescripcion();
+        this.sourceCaracteristicas = p.getCaracteristicas() == null
+                ? Map.of()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(p.getCaracteristicas()));
+
+        String n = sourceNombre == null ? "" : sourceNombre;
+        String c = sourceCategoria == null ? "" : sourceCategoria;
+        String d = sourceDescripcion == null ? "" : sourceDescripcion;
+
+        this.nombre = TextNormalizer.normalize(n);
+        this.categoria = TextNormalizer.normalize(c);
+        this.descripcion = TextNormalizer.normalize(d);
+        this.caracteristicasText = buildCaracteristicasText(sourceCaracteristicas);
+        this.nombreCategoria = TextNormalizer.normalize(n + " " + c);
+        this.claseText = TextNormalizer.normalize(n + " " + c + " " + d);
+        this.fullText = buildFullText(p);
+        this.nameTokens = List.of(nombre.split("\\s+"));
+        this.categoriaFacet = facetKey(c);
+        this.caracteristicasFacet = buildCaracteristicasFacet(sourceCaracteristicas);
+        this.fullTextKeywords = ProductKeywords.match(fullText);
+        this.claseKeywords = ProductKeywords.match(claseText);
+
+        this.nombreLower = n.toLowerCase(Locale.ROOT);
+        this.categoriaLower = c.toLowerCase(Locale.ROOT);
+        this.descripcionLower = d.toLowerCase(Locale.ROOT);
+    }
+
+    public static ProductSearchDocument of(Producto p) {
+        return new ProductSearchDocument(p);
+    }
+
+    /**
+     * Reutiliza este documento si los textos del producto no cambiaron
+     * (por ejemplo, cuando solo se movió el stock); si no, lo recalcula.
+     */
+    public ProductSearchDocument refreshedFor(Producto p) {
+        if (Objects.equals(sourceNombre, p.getNombre())
+                && Objects.equals(sourceCategoria, p.getCategoria())
+                && Objects.equals(sourceDescripcion, p.getDescripcion())
+                && sourceCaracteristicas.equals(p.getCaracteristicas() == null ? Map.of() : p.getCaracteristicas())) {
+            return producto == p ? this : new ProductSearchDocument(p, this);
+        }
+        return of(p);
+    }
+
+    /**
+     * Si {@code other} aporta a los índices lo mismo que este documento: mismos textos,
+     * características y precio. Solo pueden diferir el stock y los campos que no se indexan.
+     */
+    public boolean indexesSameAs(ProductSearchDocument other) {
+        return Objects.equals(sourceNombre, other.sourceNombre)
+                && Objects.equals(sourceCategoria, other.sourceCategoria)
+                && Objects.equals(sourceDescripcion, other.sourceDescripcion)
+                && sourceCaracteristicas.equals(other.sourceCaracteristicas)
+                && Objects.equals(precioCentavos, other.precioCentavos);
+    }
+
+    /**
+     * Valor de faceta: normalizado y sin espacios sobrantes ("  Focos LED " → "focos led").
+     */
+    public static String facetKey(String value) {
+        return value == null ? "" : TextNormalizer.normalize(value).trim().replaceAll("\\s+", " ");
+    }
+
+    private static Map<String, String> buildCaracteristicasFacet(Map<String, String> caracteristicas) {
+        Map<String, String> result = new LinkedHashMap<>();
+        caracteristicas.forEach((k, v) -> {
+            String key = facetKey(k);
+            String value = facetKey(v);
+            if (!key.isEmpty() && !value.isEmpty()) {
+                result.put(key, value);
+            }
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static String buildCaracteristicasText(Map<String, String> caracteristicas) {
+        StringBuilder sb = new StringBuilder();
+        caracteristicas.forEach((k, v) -> {
+            if (k != null)
+                sb.append(k).append(" ");
+            if (v != null)
+                sb.append(v).append(" ");
+        });
+        return TextNormalizer.normalize(sb.toString());
+    }
+
+    private static String buildFullText(Producto p) {
+        StringBuilder sb = new StringBuilder();
+        if (p.getNombre() != null)
+            sb.append(p.getNombre()).append(" ");
+        if (p.getCategoria() != null)
+            sb.append(p.getCategoria()).append(" ");
+        if (p.getDescripcion() != null)
+            sb.append(p.getDescripcion()).append(" ");
+        if (p.getCaracteristicas() != null && !p.getCaracteristicas().isEmpty()) {
+            p.getCaracteristicas().forEach((k, v) -> {
+                if (k != null)
+                    sb.append(k).append(" ");
+                if (v != null)
+                    sb.append(v).append(" ");
+            });
+        }
+        return TextNormalizer.normalize(sb.toString());
+    }
+
+    public Producto producto() {
+        return producto;
+    }
+
+    public Long id() {
+        return producto.getId();
+    }
+
+    public Long precioCentavos() {
+        return precioCentavos;
+    }
+
+    public String nombre() {
+        return nombre;
+    }
+
+    public String categoria() {
+        return categoria;
+    }
+
+    public String descripcion() {
+        return descripcion;
+    }
+
+    /**
+     * Claves y valores de las características, normalizados.
+     */
+    public String caracteristicasText() {
+        return caracteristicasText;
+    }
+
+    public String fullText() {
+        return fullText;
+    }
+
+    public String nombreCategoria() {
+        return nombreCategoria;
+    }
+
+    public String claseText() {
+        return claseText;
+    }
+
+    public List<String> nameTokens() {
+        return nameTokens;
+    }
+
+    public String categoriaFacet() {
+        return categoriaFacet;
+    }
+
+    public Map<String, String> caracteristicasFacet() {
+        return caracteristicasFacet;
+    }
+
+    /**
+     * Características tal como las cargó el admin (para mostrar etiquetas).
+     */
+    public Map<String, String> caracteristicas() {
+        return sourceCaracteristicas;
+    }
+
+    public long fullTextKeywords() {
+        return fullTextKeywords;
+    }
+
+    public long claseKeywords() {
+        return claseKeywords;
+    }
+
+    public String nombreLower() {
+        return nombreLower;
+    }
+
+    public String categoriaLower() {
+        return categoriaLower;
+    }
+
+    public String descripcionLower() {
+        return descripcionLower;
+    }
+}
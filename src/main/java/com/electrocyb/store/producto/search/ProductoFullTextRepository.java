@@ -0,0 +1,106 @@
+package com.electrocyb.store.producto.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Búsqueda de texto completo en PostgreSQL sobre productos.
+ *
+ * Usa una columna generada {@code search_vector} (configuración 'spanish' + unaccent,
+ * pesos A/B/C para nombre/categoría/descripción) con índice GIN. Así el filtro no hace
+ * {@code lower(x) like '%q%'} con escaneo secuencial.
+ *
+ * Hibernate (ddl-auto) no conoce la columna, por eso se instala al arrancar
+ * con sentencias idempotentes. Si la BD no lo permite (p. ej. sin permiso para
+ * crear la extensión) queda deshabilitada y se sigue usando el índice en memoria.
+ */
+@Slf4j
+@Repository
+public class ProductoFullTextRepository {
+
+    private static final List<String> SCHEMA = List.of(
+            "CREATE EXTENSION IF NOT EXISTS unaccent",
+            // unaccent() no es IMMUTABLE; las columnas generadas lo exigen
+            """
+            CREATE OR REPLACE FUNCTION electrocyb_unaccent(text) RETURNS text
+            LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+            AS $$ SELECT public.unaccent('public.unaccent'::regdictionary, $1) $$
+            """,
+            """
+            ALTER TABLE productos ADD COLUMN IF NOT EXISTS search_vector tsvector
+            GENERATED ALWAYS AS (
+                setweight(to_tsvector('spanish', electrocyb_unaccent(coalesce(nombre, ''))), 'A') ||
+                setweight(to_tsvector('spanish', electrocyb_unaccent(coalesce(categoria, ''))), 'B') ||
+                setweight(to_tsvector('spanish', electrocyb_unaccent(coalesce(descripcion, ''))), 'C')
+            ) STORED
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_productos_search_vector ON productos USING gin (search_vector)"
+    );
+
+    // Sin ORDER BY ni LIMIT: el ranking lo hace el índice en memoria, aquí solo se filtra
+    private static final String SEARCH_SQL = """
+            SELECT p.id
+            FROM productos p
+            WHERE p.search_vector @@ to_tsquery('spanish', ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean available = false;
+
+    public ProductoFullTextRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void installSchema() {
+        try {
+            SCHEMA.forEach(jdbcTemplate::execute);
+            available = true;
+        } catch (Exception e) {
+            log.warn("No se pudo instalar la búsqueda de texto completo de productos: {}", e.getMessage());
+            available = false;
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Ids de todos los productos que contienen alguno de los términos (OR, con prefijo).
+     * Los términos ya vienen normalizados (sin tildes); un término con espacios
+     * ("tira led") exige todas sus palabras.
+     */
+    public Set<Long> matchingIds(Collection<String> terms) {
+        String query = toTsQuery(terms);
+        if (query.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(SEARCH_SQL, Long.class, query));
+    }
+
+    static String toTsQuery(Collection<String> terms) {
+        Set<String> alternatives = new LinkedHashSet<>();
+        for (String term : terms) {
+            List<String> words = new ArrayList<>();
+            for (String word : term.split("\\s+")) {
+                String clean = word.replaceAll("[^a-z0-9]", "");
+                if (clean.length() >= 3) {
+                    words.add(clean + ":*");
+                }
+            }
+            if (words.size() == 1) {
+                alternatives.add(words.get(0));
+            } else if (words.size() > 1) {
+                alternatives.add("(" + String.join(" & ", words) + ")");
+            }
+        }
+        return String.join(" | ", alternatives);
+    }
+}
@@ -0,0 +1,168 @@
+package com.electrocyb.store.producto.search;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Corrector ortográfico estilo SymSpell sobre el vocabulario del catálogo.
+ *
+ * Se precalculan todas las formas con 1 o 2 letras borradas de cada palabra;
+ * corregir un token es generar sus propios borrados, buscarlos en el diccionario
+ * y verificar la distancia real de los pocos candidatos (microsegundos por token).
+ * "lampra" → "lampara", "reflectr" → "reflector", "movimento" → "movimiento".
+ */
+public final class SpellCorrector {
+
+    private static final int MIN_WORD_LENGTH = 4;
+    private static final int MAX_DISTANCE = 2;
+    private static final Pattern EDGE_PUNCTUATION = Pattern.compile("^[^a-z0-9]+|[^a-z0-9]+$");
+
+    // palabra → frecuencia (en cuántos productos aparece)
+    private final Map<String, Integer> vocabulary;
+    // forma con letras borradas → palabras del vocabulario que la generan
+    private final Map<String, List<String>> deletes;
+
+    private SpellCorrector(Map<String, Integer> vocabulary) {
+        this.vocabulary = vocabulary;
+        this.deletes = new HashMap<>();
+        for (String word : vocabulary.keySet()) {
+            for (String d : deletesOf(word, MAX_DISTANCE)) {
+                deletes.computeIfAbsent(d, k -> new ArrayList<>(2)).add(word);
+            }
+        }
+    }
+
+    /**
+     * @param vocabulary palabra normalizada → frecuencia; se quita la puntuación de los
+     *                   extremos y se ignoran las que tienen números u otros símbolos
+     */
+    public static SpellCorrector of(Map<String, Integer> vocabulary) {
+        Map<String, Integer> words = new HashMap<>();
+        vocabulary.forEach((token, freq) -> {
+            String word = EDGE_PUNCTUATION.matcher(token).replaceAll("");
+            if (word.length() >= MIN_WORD_LENGTH && isAlphabetic(word)) {
+                words.merge(word, freq, Integer::sum);
+            }
+        });
+        return new SpellCorrector(words);
+    }
+
+    public boolean isKnown(String word) {
+        return vocabulary.containsKey(word);
+    }
+
+    /**
+     * Palabra del vocabulario más parecida, o la misma si ya es conocida o
+     * no hay ninguna lo bastante cerca. Hasta 7 letras se tolera 1 error,
+     * desde 8 letras se toleran 2.
+     */
+    public String correct(String word) {
+        if (word.length() < MIN_WORD_LENGTH + 1 || !isAlphabetic(word) || vocabulary.containsKey(word)) {
+            return word;
+        }
+        int maxDistance = word.length() >= 8 ? 2 : 1;
+
+        String best = word;
+        int bestDistance = Integer.MAX_VALUE;
+        int bestFrequency = -1;
+        Set<String> seen = new HashSet<>();
+
+        List<String> probes = new ArrayList<>();
+        probes.add(word);
+        probes.addAll(deletesOf(word, maxDistance));
+        for (String probe : probes) {
+            List<String> candidates = deletes.get(probe);
+            if (vocabulary.containsKey(probe)) {
+                candidates = candidates == null ? List.of(probe) : concat(candidates, probe);
+            }
+            if (candidates == null) continue;
+
+            for (String candidate : candidates) {
+                if (!seen.add(candidate)) continue;
+                if (Math.abs(candidate.length() - word.length()) > maxDistance) continue;
+
+                int distance = distance(word, candidate, maxDistance);
+                if (distance > maxDistance) continue;
+
+                int frequency = vocabulary.get(candidate);
+                if (distance < bestDistance
+                        || (distance == bestDistance && frequency > bestFrequency)
+                        || (distance == bestDistance && frequency == bestFrequency && candidate.compareTo(best) < 0)) {
+                    best = candidate;
+                    bestDistance = distance;
+                    bestFrequency = frequency;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static List<String> concat(List<String> list, String extra) {
+        List<String> result = new ArrayList<>(list);
+        result.add(extra);
+        return result;
+    }
+
+    private static Set<String> deletesOf(String word, int maxDistance) {
+        Set<String> result = new HashSet<>();
+        Deque<String> frontier = new ArrayDeque<>();
+        frontier.add(word);
+        for (int d = 0; d < maxDistance; d++) {
+            Deque<String> next = new ArrayDeque<>();
+            for (String w : frontier) {
+                if (w.length() <= 1) continue;
+                for (int i = 0; i < w.length(); i++) {
+                    String deleted = w.substring(0, i) + w.substring(i + 1);
+                    if (result.add(deleted)) {
+                        next.add(deleted);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    /**
+     * Distancia de Damerau–Levenshtein (transposiciones adyacentes), cortando
+     * en cuanto se sabe que supera el máximo.
+     */
+    static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        int[] prevPrev = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] curr = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j;
+
+        for (int i = 1; i <= n; i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, prevPrev[j - 2] + 1);
+                }
+                curr[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] tmp = prevPrev;
+            prevPrev = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return prev[m];
+    }
+
+    private static boolean isAlphabetic(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,213 @@
+package com.electrocyb.store.producto.search;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Autocompletado por prefijo: trie compacto (aristas con varias letras) sobre
+ * nombres de producto, categorías y sinónimos de ProductKeywords.SYNONYMS.
+ *
+ * Las claves van normalizadas (sin tildes ni espacios de más) y se indexan desde
+ * cada palabra, así "led" encuentra "Foco LED 12W". Cada nodo guarda ya calculado
+ * su top-k por popularidad, de modo que responder una tecla es bajar por el trie
+ * y copiar una lista corta, sin ordenar nada ni ir a la BD.
+ *
+ * Popularidad: categorías y búsquedas cuentan los productos que encuentran;
+ * un producto, las unidades en stock.
+ */
+public final class SuggestIndex {
+
+    // Sugerencias guardadas por nodo (tope del parámetro limit)
+    public static final int TOP_K = 10;
+    // Palabras de cada nombre desde las que se puede empezar a escribir
+    private static final int MAX_WORDS = 6;
+
+    public enum Tipo {
+        CATEGORIA,
+        BUSQUEDA,
+        PRODUCTO
+    }
+
+    public record Suggestion(Tipo tipo, String texto, Long productoId, long popularidad) {
+    }
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingLong(Suggestion::popularidad).reversed()
+            .thenComparingInt(s -> s.texto().length())
+            .thenComparing(Suggestion::texto)
+            .thenComparing(Suggestion::tipo)
+            .thenComparing(Suggestion::productoId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private record Key(String text, int entry) {
+    }
+
+    /**
+     * Nodo del trie. {@code top} son índices de {@code entries}, que ya están
+     * ordenadas por ranking: menor índice = mejor sugerencia.
+     */
+    private record Node(String label, char[] firsts, Node[] children, int[] top) {
+    }
+
+    private static final char[] NO_FIRSTS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    static final SuggestIndex EMPTY = new SuggestIndex(new Suggestion[0],
+            new Node("", NO_FIRSTS, NO_CHILDREN, new int[0]));
+
+    private final Suggestion[] entries;
+    private final Node root;
+
+    private SuggestIndex(Suggestion[] entries, Node root) {
+        this.entries = entries;
+        this.root = root;
+    }
+
+    /**
+     * @param documents documentos del snapshot
+     * @param matches   productos que encuentra un texto normalizado (para pesar categorías y sinónimos)
+     */
+    static SuggestIndex build(List<ProductSearchDocument> documents, Function<String, BitSet> matches) {
+        Map<String, Suggestion> terms = new HashMap<>();
+        List<Suggestion> products = new ArrayList<>();
+
+        Map<String, String> categoriaLabels = new HashMap<>();
+        Map<String, Integer> categoriaCounts = new HashMap<>();
+        for (ProductSearchDocument d : documents) {
+            String nombre = d.producto().getNombre();
+            if (d.id() != null && nombre != null && !nombre.isBlank()) {
+                Integer stock = d.producto().getStock();
+                products.add(new Suggestion(Tipo.PRODUCTO, nombre.trim(), d.id(),
+                        stock == null ? 0 : Math.max(0, stock)));
+            }
+            if (!d.categoriaFacet().isEmpty()) {
+                categoriaLabels.putIfAbsent(d.categoriaFacet(), d.producto().getCategoria().trim());
+                categoriaCounts.merge(d.categoriaFacet(), 1, Integer::sum);
+            }
+        }
+        categoriaCounts.forEach((key, count) ->
+                terms.put(key, new Suggestion(Tipo.CATEGORIA, categoriaLabels.get(key), null, count)));
+
+        // Cada grupo de sinónimos pesa lo que encuentra el grupo entero (igual que el chatbot)
+        for (String base : new TreeSet<>(ProductKeywords.SYNONYMS.keySet())) {
+            Set<String> group = new TreeSet<>();
+            group.add(ProductSearchDocument.facetKey(base));
+            ProductKeywords.SYNONYMS.get(base).forEach(s -> group.add(ProductSearchDocument.facetKey(s)));
+            BitSet found = new BitSet();
+            group.forEach(term -> found.or(matches.apply(term)));
+            if (found.isEmpty()) continue;
+            for (String term : group) {
+                Suggestion current = terms.get(term);
+                if (current == null || (current.tipo() == Tipo.BUSQUEDA && current.popularidad() < found.cardinality())) {
+                    terms.put(term, new Suggestion(Tipo.BUSQUEDA, term, null, found.cardinality()));
+                }
+            }
+        }
+
+        List<Suggestion> ranked = new ArrayList<>(terms.values());
+        ranked.addAll(products);
+        ranked.sort(RANKING);
+        Suggestion[] entries = ranked.toArray(new Suggestion[0]);
+
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < entries.length; i++) {
+            String[] words = ProductSearchDocument.facetKey(entries[i].texto()).split(" ");
+            Set<String> seen = new HashSet<>();
+            for (int w = 0; w < Math.min(words.length, MAX_WORDS); w++) {
+                String key = String.join(" ", Arrays.asList(words).subList(w, words.length));
+                if (!key.isEmpty() && seen.add(key)) keys.add(new Key(key, i));
+            }
+        }
+        if (keys.isEmpty()) {
+            return EMPTY;
+        }
+        keys.sort(Comparator.comparing(Key::text).thenComparingInt(Key::entry));
+
+        List<Node> children = buildChildren(keys, 0, keys.size(), 0);
+        return new SuggestIndex(entries, node("", List.of(), children));
+    }
+
+    /**
+     * Hasta {@code limit} sugerencias (máximo TOP_K) para lo que lleva escrito el usuario.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String p = ProductSearchDocument.facetKey(prefix);
+        if (p.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Node node = root;
+        int pos = 0;
+        while (pos < p.length()) {
+            int child = Arrays.binarySearch(node.firsts(), p.charAt(pos));
+            if (child < 0) {
+                return List.of();
+            }
+            node = node.children()[child];
+            int len = Math.min(node.label().length(), p.length() - pos);
+            if (!p.regionMatches(pos, node.label(), 0, len)) {
+                return List.of();
+            }
+            pos += len;
+        }
+        int n = Math.min(limit, node.top().length);
+        List<Suggestion> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(entries[node.top()[i]]);
+        }
+        return result;
+    }
+
+    // ==========================================================
+    // Construcción
+    // ==========================================================
+
+    // keys[lo, hi) comparten los primeros {@code depth} caracteres y ninguna termina ahí
+    private static List<Node> buildChildren(List<Key> keys, int lo, int hi, int depth) {
+        List<Node> children = new ArrayList<>();
+        int i = lo;
+        while (i < hi) {
+            char c = keys.get(i).text().charAt(depth);
+            int j = i + 1;
+            while (j < hi && keys.get(j).text().charAt(depth) == c) j++;
+            children.add(buildNode(keys, i, j, depth));
+            i = j;
+        }
+        return children;
+    }
+
+    private static Node buildNode(List<Key> keys, int lo, int hi, int depth) {
+        // Ordenadas: el prefijo común del rango es el del primero con el último
+        String first = keys.get(lo).text();
+        String last = keys.get(hi - 1).text();
+        int end = depth;
+        int max = Math.min(first.length(), last.length());
+        while (end < max && first.charAt(end) == last.charAt(end)) end++;
+
+        List<Integer> terminals = new ArrayList<>();
+        int i = lo;
+        while (i < hi && keys.get(i).text().length() == end) {
+            terminals.add(keys.get(i).entry());
+            i++;
+        }
+        return node(first.substring(depth, end), terminals, buildChildren(keys, i, hi, end));
+    }
+
+    private static Node node(String label, List<Integer> terminals, List<Node> children) {
+        if (children.isEmpty()) {
+            // Hoja: sus claves ya vienen ordenadas por entrada
+            int[] top = terminals.stream().distinct().limit(TOP_K).mapToInt(Integer::intValue).toArray();
+            return new Node(label, NO_FIRSTS, NO_CHILDREN, top);
+        }
+        // Top-k del nodo = mejores entre sus claves propias y el top-k de cada hijo
+        TreeSet<Integer> best = new TreeSet<>(terminals);
+        for (Node child : children) {
+            for (int entry : child.top()) best.add(entry);
+        }
+        int[] top = best.stream().limit(TOP_K).mapToInt(Integer::intValue).toArray();
+
+        char[] firsts = new char[children.size()];
+        for (int i = 0; i < firsts.length; i++) {
+            firsts[i] = children.get(i).label().charAt(0);
+        }
+        return new Node(label, firsts, children.toArray(new Node[0]), top);
+    }
+}
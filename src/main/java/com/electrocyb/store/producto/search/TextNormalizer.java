@@ -0,0 +1,51 @@
+package com.electrocyb.store.producto.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Normalización común del buscador: minúsculas y sin tildes.
+ * Es la misma regla que usaban ProductAdviceService y ChatService por separado.
+ *
+ * Sin expresiones regulares: el texto ASCII (la mayoría de mensajes) sale
+ * directo de toLowerCase; el resto se descompone (NFD) y se copian los
+ * caracteres que no son marcas diacríticas.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String input) {
+        if (input == null)
+            return "";
+        String lower = input.toLowerCase(Locale.ROOT);
+        if (isAscii(lower))
+            return lower;
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); ) {
+            int cp = decomposed.codePointAt(i);
+            if (!isMark(cp)) {
+                sb.appendCodePoint(cp);
+            }
+            i += Character.charCount(cp);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    // Equivale a \p{M}: marcas sin espacio, de espacio y envolventes
+    private static boolean isMark(int codePoint) {
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK
+                || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK;
+    }
+}
@@ -0,0 +1,118 @@
+package com.electrocyb.store.producto.search;
+
+import java.util.*;
+
+/**
+ * Vocabulario de un índice invertido (token → posiciones) preparado para buscar
+ * por subcadena sin recorrerlo entero.
+ *
+ * Guarda ordenados todos los sufijos de cada token (como pares token/desde dónde,
+ * sin copiar texto): los tokens que contienen un pedazo son los de sufijos que
+ * empiezan por él, que quedan juntos en un rango que se encuentra con una búsqueda
+ * binaria. Responder cuesta lo que miden las coincidencias, no el vocabulario.
+ */
+final class TokenIndex {
+
+    private final Map<String, int[]> postings;
+    private final String[] tokens;
+    // Sufijo i = tokens[suffixToken[i]].substring(suffixStart[i]), en orden lexicográfico
+    private final int[] suffixToken;
+    private final int[] suffixStart;
+    private final int maxTokenLength;
+
+    private TokenIndex(Map<String, int[]> postings, String[] tokens, int[] suffixToken, int[] suffixStart,
+                       int maxTokenLength) {
+        this.postings = postings;
+        this.tokens = tokens;
+        this.suffixToken = suffixToken;
+        this.suffixStart = suffixStart;
+        this.maxTokenLength = maxTokenLength;
+    }
+
+    static TokenIndex of(Map<String, int[]> postings) {
+        String[] tokens = postings.keySet().toArray(new String[0]);
+        int count = 0;
+        int maxTokenLength = 0;
+        for (String token : tokens) {
+            count += token.length();
+            maxTokenLength = Math.max(maxTokenLength, token.length());
+        }
+        Integer[] order = new Integer[count];
+        int[] token = new int[count];
+        int[] start = new int[count];
+        int n = 0;
+        for (int t = 0; t < tokens.length; t++) {
+            for (int s = 0; s < tokens[t].length(); s++) {
+                token[n] = t;
+                start[n] = s;
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> compare(tokens[token[a]], start[a], tokens[token[b]], start[b]));
+
+        int[] suffixToken = new int[count];
+        int[] suffixStart = new int[count];
+        for (int i = 0; i < count; i++) {
+            suffixToken[i] = token[order[i]];
+            suffixStart[i] = start[order[i]];
+        }
+        return new TokenIndex(postings, tokens, suffixToken, suffixStart, maxTokenLength);
+    }
+
+    /**
+     * Posiciones del token exacto, o null si no está en el vocabulario.
+     */
+    int[] get(String token) {
+        return postings.get(token);
+    }
+
+    int maxTokenLength() {
+        return maxTokenLength;
+    }
+
+    /**
+     * Marca en {@code into} las posiciones de todos los tokens que contienen {@code piece}.
+     */
+    void orContaining(String piece, BitSet into) {
+        if (piece.isEmpty()) {
+            postings.values().forEach(ords -> set(ords, into));
+            return;
+        }
+        for (int i = lowerBound(piece); i < suffixToken.length; i++) {
+            String token = tokens[suffixToken[i]];
+            if (!token.startsWith(piece, suffixStart[i])) break;
+            set(postings.get(token), into);
+        }
+    }
+
+    // Primer sufijo >= piece
+    private int lowerBound(String piece) {
+        int lo = 0;
+        int hi = suffixToken.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(tokens[suffixToken[mid]], suffixStart[mid], piece, 0) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int compare(String a, int fromA, String b, int fromB) {
+        int lenA = a.length() - fromA;
+        int lenB = b.length() - fromB;
+        int n = Math.min(lenA, lenB);
+        for (int k = 0; k < n; k++) {
+            int diff = a.charAt(fromA + k) - b.charAt(fromB + k);
+            if (diff != 0) return diff;
+        }
+        return lenA - lenB;
+    }
+
+    private static void set(int[] ords, BitSet into) {
+        for (int ord : ords) into.set(ord);
+    }
+}
@@ -0,0 +1,57 @@
+package com.electrocyb.store.chat;
+
+import com.electrocyb.store.producto.SyntheticCatalog;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enrutamiento del chatbot antes de buscar productos o llamar al LLM:
+ * FAQ de negocio (pago / envío / garantía) y detección de intención.
+ *
+ * Ejecutar: mvn -Pbenchmark test -Dbenchmark.include=ChatRoutingBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatRoutingBenchmark {
+
+    private ChatService chatService;
+    private List<String> queries;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Sin llamadas a OpenAI: solo se usa la parte local del enrutamiento
+        chatService = new ChatService("benchmark", "http://localhost", "benchmark", null, null);
+        queries = SyntheticCatalog.QUERIES;
+    }
+
+    @Benchmark
+    public ChatService.Intent detectIntent(Cursor cursor) {
+        return chatService.detectIntent(chatService.classify(queries.get(cursor.next++ % queries.size())));
+    }
+
+    @Benchmark
+    public String handleBusinessFaq(Cursor cursor) {
+        return chatService.handleBusinessFaq(chatService.classify(queries.get(cursor.next++ % queries.size())));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ChatRoutingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,159 @@
+package com.electrocyb.store.email.outbox;
+
+import com.electrocyb.store.email.EmailRequest;
+import com.electrocyb.store.email.EmailService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailOutboxTest {
+
+    private HttpServer sendGrid;
+    // Cuerpos JSON que recibió el SendGrid falso
+    private final List<String> recibidos = new CopyOnWriteArrayList<>();
+    private final List<String> autorizaciones = new CopyOnWriteArrayList<>();
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+    private EmailOutbox outbox;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // SendGrid falso: 202 salvo para destinatarios "rebota@...", que reciben 500
+        sendGrid = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        sendGrid.createContext("/", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            recibidos.add(body);
+            autorizaciones.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            int status = body.contains("rebota@") ? 500 : 202;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        sendGrid.start();
+
+        EmailService emailService = new EmailService("SG.test", "http://localhost:" + sendGrid.getAddress().getPort());
+        ReflectionTestUtils.setField(emailService, "fromEmail", "ventas@electrocyb.pe");
+        ReflectionTestUtils.setField(emailService, "fromName", "ElectroCYB");
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        tx = new TransactionTemplate(transactionManager);
+        jdbc.execute("DROP TABLE IF EXISTS email_outbox");
+        jdbc.execute("""
+                CREATE TABLE email_outbox (id BIGINT AUTO_INCREMENT PRIMARY KEY, tipo VARCHAR(40) NOT NULL,
+                referencia VARCHAR(50), destinatario VARCHAR(255) NOT NULL, asunto VARCHAR(255) NOT NULL,
+                html VARCHAR(10000) NOT NULL, estado VARCHAR(20) NOT NULL, intentos INT NOT NULL,
+                proximo_intento TIMESTAMP WITH TIME ZONE NOT NULL, creado TIMESTAMP WITH TIME ZONE,
+                enviado TIMESTAMP WITH TIME ZONE, ultimo_error VARCHAR(1000))""");
+
+        // Sin hilo propio: el test llama a despachar
+        outbox = new EmailOutbox(jdbc, transactionManager, emailService, false, Duration.ofSeconds(2), 10, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sendGrid.stop(0);
+    }
+
+    @Test
+    void onlyCommittedMailsAreSentAndMarked() {
+        tx.executeWithoutResult(status -> {
+            outbox.encolar("PEDIDO_CONFIRMADO", "EC-000001", correo("ana@correo.pe"));
+            status.setRollbackOnly();
+        });
+        tx.executeWithoutResult(status -> outbox.encolar("PEDIDO_CONFIRMADO", "EC-000002", correo("luis@correo.pe")));
+        // Cliente sin email: no se encola nada
+        outbox.encolar("PEDIDO_CONFIRMADO", "EC-000003", null);
+
+        assertThat(outbox.despacharTodo()).isEqualTo(1);
+
+        assertThat(recibidos).hasSize(1);
+        assertThat(recibidos.get(0)).contains("luis@correo.pe", "ventas@electrocyb.pe");
+        assertThat(autorizaciones).containsExactly("Bearer SG.test");
+        assertThat(fila("EC-000002"))
+                .containsEntry("ESTADO", "ENVIADO")
+                .containsEntry("INTENTOS", 1);
+        assertThat(outbox.despacharTodo()).isZero();
+    }
+
+    @Test
+    void failedSendsAreRetriedWithBackoffUntilGivingUp() {
+        outbox.encolar("PEDIDO_ENTREGADO", "EC-000010", correo("rebota@correo.pe"));
+        outbox.encolar("PEDIDO_ENTREGADO", "EC-000011", correo("ana@correo.pe"));
+        Instant ahora = Instant.now().plusSeconds(1);
+
+        assertThat(outbox.despachar(ahora)).isEqualTo(new EmailOutbox.Resultado(2, 1));
+        assertThat(fila("EC-000010"))
+                .containsEntry("ESTADO", "PENDIENTE")
+                .containsEntry("INTENTOS", 1);
+        assertThat((String) fila("EC-000010").get("ULTIMO_ERROR")).contains("500");
+
+        // Antes de la espera (30 s) no se vuelve a intentar
+        assertThat(outbox.despachar(ahora.plusSeconds(10)).tomados()).isZero();
+
+        // Segundo intento fallido = max-attempts: queda FALLIDO y no se toma más
+        assertThat(outbox.despachar(ahora.plusSeconds(31))).isEqualTo(new EmailOutbox.Resultado(1, 0));
+        assertThat(fila("EC-000010")).containsEntry("ESTADO", "FALLIDO").containsEntry("INTENTOS", 2);
+        assertThat(outbox.despachar(ahora.plus(Duration.ofDays(1))).tomados()).isZero();
+
+        assertThat(EmailOutbox.espera(1)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(EmailOutbox.espera(4)).isEqualTo(Duration.ofMinutes(4));
+        assertThat(EmailOutbox.espera(30)).isEqualTo(Duration.ofHours(1));
+    }
+
+    @Test
+    void rowsLockedByAnotherDispatcherAreSkipped() throws Exception {
+        outbox.encolar("PEDIDO_CONFIRMADO", "EC-000020", correo("ana@correo.pe"));
+        outbox.encolar("PEDIDO_CONFIRMADO", "EC-000021", correo("luis@correo.pe"));
+
+        // Otra instancia tiene tomado el primero (transacción abierta con su lock)
+        CountDownLatch tomado = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        Thread otra = new Thread(() -> tx.executeWithoutResult(status -> {
+            jdbc.queryForList("SELECT id FROM email_outbox WHERE referencia = 'EC-000020' FOR UPDATE");
+            tomado.countDown();
+            try {
+                soltar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        otra.start();
+        tomado.await();
+
+        try {
+            assertThat(outbox.despachar(Instant.now().plusSeconds(1))).isEqualTo(new EmailOutbox.Resultado(1, 1));
+            assertThat(recibidos).singleElement().asString().contains("luis@correo.pe");
+        } finally {
+            soltar.countDown();
+            otra.join();
+        }
+    }
+
+    private Map<String, Object> fila(String referencia) {
+        return jdbc.queryForMap("SELECT estado, intentos, ultimo_error FROM email_outbox WHERE referencia = ?", referencia);
+    }
+
+    private static EmailRequest correo(String para) {
+        return new EmailRequest(para, "Tu pedido", "<p>Hola</p>");
+    }
+}
@@ -0,0 +1,112 @@
+package com.electrocyb.store.exportacion;
+
+import com.electrocyb.store.producto.dto.ImportResultDto;
+import com.electrocyb.store.producto.importacion.ProductImportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExportTest {
+
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:export;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+        for (String tabla : List.of("producto_caracteristicas", "productos", "order_items", "pedidos")) {
+            jdbc.execute("DROP TABLE IF EXISTS " + tabla);
+        }
+        jdbc.execute("""
+                CREATE TABLE productos (id BIGINT AUTO_INCREMENT PRIMARY KEY, sku VARCHAR(64) UNIQUE,
+                nombre VARCHAR(255), categoria VARCHAR(255), descripcion VARCHAR(1000), imagen VARCHAR(255),
+                precio_centavos BIGINT, stock INT)""");
+        jdbc.execute("""
+                CREATE TABLE producto_caracteristicas (producto_id BIGINT NOT NULL, nombre VARCHAR(255) NOT NULL,
+                valor VARCHAR(255), PRIMARY KEY (producto_id, nombre))""");
+        jdbc.execute("""
+                CREATE TABLE pedidos (id BIGINT PRIMARY KEY, numero_pedido VARCHAR(50), fecha TIMESTAMP,
+                estado VARCHAR(30), subtotal DOUBLE, costo_envio DOUBLE, total DOUBLE, email_usuario VARCHAR(255),
+                nombre VARCHAR(255), email VARCHAR(255), telefono VARCHAR(255), direccion VARCHAR(255),
+                referencia VARCHAR(255))""");
+        jdbc.execute("""
+                CREATE TABLE order_items (id BIGINT AUTO_INCREMENT PRIMARY KEY, pedido_id BIGINT, producto_id BIGINT,
+                nombre VARCHAR(255), precio_centavos BIGINT, imagen VARCHAR(255), cantidad INT)""");
+
+        jdbc.update("INSERT INTO productos (id, sku, nombre, categoria, precio_centavos, stock) VALUES (1, 'F-1', 'Foco LED, 12W', 'Focos', 1250, 10)");
+        jdbc.update("INSERT INTO productos (id, sku, nombre, categoria, precio_centavos, stock) VALUES (2, 'P-1', 'Panel \"slim\"', 'Paneles', 3500, 0)");
+        jdbc.update("INSERT INTO producto_caracteristicas VALUES (1, 'potencia', '12W'), (1, 'color', 'Luz cálida')");
+
+        jdbc.update("""
+                INSERT INTO pedidos VALUES (1, 'EC-000001', TIMESTAMP '2026-10-01 15:30:00', 'RECIBIDO', 25.0, 8.0, 33.0,
+                'ana@correo.pe', 'Ana', 'ana@correo.pe', '999', 'Av. Lima 123, Breña', NULL)""");
+        jdbc.update("""
+                INSERT INTO pedidos VALUES (2, 'EC-000002', TIMESTAMP '2026-10-02 10:00:00', 'ENTREGADO', 0.0, 0.0, 0.0,
+                NULL, 'Luis', NULL, NULL, 'RECOJO_EN_TIENDA', NULL)""");
+        jdbc.update("INSERT INTO order_items (pedido_id, producto_id, nombre, precio_centavos, cantidad) VALUES (1, 1, 'Foco LED, 12W', 1250, 2)");
+        jdbc.update("INSERT INTO order_items (pedido_id, producto_id, nombre, precio_centavos, cantidad) VALUES (1, 2, 'Panel', 3500, 1)");
+    }
+
+    @Test
+    void catalogCsvRoundTripsThroughTheBulkImport() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int productos = new CatalogExporter(jdbc, mapper).exportar(ExportFormat.CSV, out);
+
+        assertThat(productos).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                id,sku,nombre,categoria,descripcion,imagen,precio,stock,caracteristicas\r
+                1,F-1,"Foco LED, 12W",Focos,,,12.50,10,color=Luz cálida;potencia=12W\r
+                2,P-1,"Panel ""slim\""",Paneles,,,35.00,0,\r
+                """);
+
+        ProductImportService importService = new ProductImportService(jdbc, new DataSourceTransactionManager(dataSource),
+                mapper, event -> { }, 500);
+        ImportResultDto result = importService.importar(new ByteArrayInputStream(out.toByteArray()),
+                ProductImportService.Formato.CSV);
+        assertThat(result.actualizados()).isEqualTo(2);
+        assertThat(result.conError()).isZero();
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM producto_caracteristicas", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void ordersAreWrittenOnePerLineWithTheirItems() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int pedidos = new PedidoExporter(jdbc, mapper).exportar(ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(pedidos).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+
+        JsonNode primero = mapper.readTree(lines[0]);
+        assertThat(primero.get("numeroPedido").asText()).isEqualTo("EC-000001");
+        assertThat(primero.get("cliente").get("nombre").asText()).isEqualTo("Ana");
+        assertThat(primero.get("items")).hasSize(2);
+        assertThat(primero.get("items").get(0).get("precio").asText()).isEqualTo("12.50");
+        assertThat(mapper.readTree(lines[1]).get("items")).isEmpty();
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        new PedidoExporter(jdbc, mapper).exportar(ExportFormat.CSV, csv);
+        // Cabecera + una línea por ítem + una línea para el pedido sin ítems
+        assertThat(csv.toString(StandardCharsets.UTF_8).split("\r\n")).hasSize(4);
+    }
+}
@@ -0,0 +1,88 @@
+package com.electrocyb.store.pedido;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guardar un pedido cuesta un INSERT por tabla (ítems e historial en lote),
+ * con el número EC-000001 ya incluido: sin el UPDATE de después.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.show-sql=false"
+})
+class PedidoNumeracionTest {
+
+    @Autowired
+    private PedidoRepository repo;
+
+    @Autowired
+    private EntityManager em;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // Con la secuencia recién creada, el primer valor (1) es un bloque de un solo id;
+        // el segundo pedido ya reserva un bloque de 50
+        repo.saveAndFlush(pedido(1));
+        repo.saveAndFlush(pedido(1));
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void orderItemsAndHistoryAreInsertedInOneBatchedFlush() {
+        Pedido pedido = repo.saveAndFlush(pedido(5));
+
+        assertThat(pedido.getNumeroPedido()).isEqualTo(NumeroPedido.Generator.codigo(pedido.getId()));
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(6);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        // pedidos, order_items y pedido_historial; los ids salen del bloque ya reservado
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+
+        em.clear();
+        assertThat(repo.findByNumeroPedido(pedido.getNumeroPedido()))
+                .get()
+                .satisfies(p -> assertThat(p.getItems()).hasSize(5));
+    }
+
+    @Test
+    void numberKeepsTheSixDigitFormat() {
+        assertThat(NumeroPedido.Generator.codigo(42L)).isEqualTo("EC-000042");
+        assertThat(NumeroPedido.Generator.codigo(1234567L)).isEqualTo("EC-1234567");
+    }
+
+    private static Pedido pedido(int items) {
+        Pedido pedido = new Pedido();
+        pedido.setFecha(Instant.now());
+        pedido.setEstado(OrderStatus.RECIBIDO);
+        for (int i = 0; i < items; i++) {
+            OrderItem item = new OrderItem();
+            item.setProductoId((long) i);
+            item.setNombre("Foco LED " + i);
+            item.setPrecio("12.50");
+            item.setCantidad(1);
+            item.setPedido(pedido);
+            pedido.getItems().add(item);
+        }
+        HistorialEstadoEmbeddable h = new HistorialEstadoEmbeddable();
+        h.setEstado(OrderStatus.RECIBIDO);
+        h.setFecha(Instant.now());
+        h.setDescripcion("Pedido recibido.");
+        pedido.getHistorialEstados().add(h);
+        return pedido;
+    }
+}
@@ -0,0 +1,188 @@
+package com.electrocyb.store.producto;
+
+import java.util.*;
+
+/**
+ * Conjunto de evaluación del buscador del chatbot: un catálogo pequeño y realista
+ * de la tienda y consultas con los productos que una persona esperaría ver,
+ * con relevancia graduada (2 = justo lo pedido, 1 = también sirve).
+ *
+ * Las consultas sin juicios esperan que el chatbot no devuelva nada.
+ * Los productos sin stock no se etiquetan porque nunca se muestran.
+ */
+public final class LabeledQueries {
+
+    public record Judgment(String query, Map<Long, Integer> grades) {
+    }
+
+    public static final List<Judgment> JUDGMENTS = List.of(
+            judge("lampara para la sala", 1, 2, 2, 2, 28, 1, 5, 1),
+            judge("lamparas de techo", 28, 2, 1, 2, 4, 1, 5, 1),
+            judge("foco led calido", 8, 2, 7, 1, 9, 1),
+            judge("foco ahorrador para el dormitorio", 8, 2, 7, 1),
+            judge("focos", 7, 2, 8, 2, 9, 2, 10, 1),
+            judge("foco de 20w", 9, 2),
+            judge("plafon para cocina", 4, 2, 5, 1),
+            judge("plafones", 4, 2, 5, 2),
+            judge("luz calida para dormitorio", 8, 2, 5, 2, 13, 1, 3, 1),
+            judge("panel led para oficina", 6, 2, 4, 1),
+            judge("dicroico para spot", 10, 2, 11, 2),
+            judge("lampara hasta 50 soles", 3, 2, 4, 1, 5, 1),
+            judge("tira led para el letrero de mi tienda", 14, 2, 12, 1, 13, 1),
+            judge("cinta led para muebles de cocina", 13, 2, 12, 1),
+            judge("tira rgb", 12, 2),
+            judge("manguera para fachada", 15, 2),
+            judge("reflector para exterior", 16, 2, 17, 2, 18, 1),
+            judge("reflector entre 40 y 80 soles", 16, 2, 17, 2),
+            judge("reflector 100w", 17, 2),
+            judge("proyector de alta potencia", 17, 2, 16, 1),
+            judge("sensor de movimiento para la escalera", 19, 2),
+            judge("sensor pir", 19, 2),
+            judge("camara de seguridad para exterior", 25, 2, 24, 1),
+            judge("camaras de vigilancia", 24, 2, 25, 2),
+            judge("kit solar para casa de campo", 21, 2, 18, 1, 22, 1, 23, 1),
+            judge("luz solar para el jardin", 23, 2, 21, 1, 22, 1, 18, 1),
+            judge("linterna recargable", 22, 2, 3, 1),
+            judge("letrero luminoso para negocio", 26, 2, 14, 1),
+            judge("aplique para fachada", 27, 2),
+            judge("ventilador de techo", 29, 2),
+            judge("cable electrico", 32, 2, 30, 1),
+            judge("extension electrica", 30, 2),
+            judge("interruptor wifi", 31, 2),
+            judge("algo para la piscina"),
+            judge("zapatillas deportivas")
+    );
+
+    private LabeledQueries() {
+    }
+
+    public static List<Producto> catalog() {
+        List<Producto> productos = new ArrayList<>();
+        add(productos, 1, "Lámpara colgante nórdica E27", "Lámparas",
+                "Lámpara colgante de estilo nórdico ideal para sala y comedor", "89.90", 12,
+                "material", "madera", "socket", "E27");
+        add(productos, 2, "Lámpara de pie trípode", "Lámparas",
+                "Lámpara de pie para sala con pantalla de tela", "149.00", 5, "altura", "150cm");
+        add(productos, 3, "Lámpara de escritorio LED recargable", "Lámparas",
+                "Lámpara de mesa para estudio y dormitorio, luz regulable", "45.00", 20,
+                "potencia", "5W", "batería", "1200mAh");
+        add(productos, 4, "Plafón LED redondo 24W", "Plafones",
+                "Plafón moderno para techo de cocina, baño o pasillo", "38.50", 30,
+                "potencia", "24W", "color", "luz fría");
+        add(productos, 5, "Plafón LED cuadrado 18W luz cálida", "Plafones",
+                "Plafón para dormitorio y sala, luz cálida", "32.00", 6,
+                "potencia", "18W", "color", "luz cálida");
+        add(productos, 6, "Panel LED 60x60 48W", "Paneles",
+                "Panel empotrable para oficinas y locales", "120.00", 8, "potencia", "48W");
+        add(productos, 7, "Foco LED 9W E27 luz blanca", "Focos",
+                "Foco de bajo consumo para uso general", "6.50", 200,
+                "potencia", "9W", "socket", "E27", "color", "luz fría");
+        add(productos, 8, "Foco LED 12W E27 luz cálida", "Focos",
+                "Foco ahorrador para sala y dormitorio", "8.90", 150,
+                "potencia", "12W", "socket", "E27", "color", "luz cálida");
+        add(productos, 9, "Foco LED 20W alta potencia", "Focos",
+                "Foco para almacenes y cocheras", "15.00", 60, "potencia", "20W");
+        add(productos, 10, "Dicroico LED GU10 7W", "Focos",
+                "Dicroico para spots empotrados", "9.50", 80, "potencia", "7W", "socket", "GU10");
+        add(productos, 11, "Spot empotrable orientable", "Spots",
+                "Spot de techo para dicroico GU10", "12.00", 40, "material", "aluminio");
+        add(productos, 12, "Tira LED 5050 RGB 5m", "Tiras LED",
+                "Tira LED con control remoto para decoración de sala y dormitorio", "35.00", 25,
+                "largo", "5m", "color", "RGB");
+        add(productos, 13, "Tira LED 2835 luz cálida 5m", "Tiras LED",
+                "Tira adhesiva para muebles de cocina y vitrinas", "28.00", 18,
+                "largo", "5m", "color", "luz cálida");
+        add(productos, 14, "Cinta LED neón flexible 12V 5m", "Tiras LED",
+                "Neón flexible para letreros y avisos luminosos", "55.00", 10,
+                "largo", "5m", "voltaje", "12V");
+        add(productos, 15, "Manguera LED 220V 10m", "Tiras LED",
+                "Manguera para exterior y fachadas, resistente al agua", "65.00", 7,
+                "largo", "10m", "protección", "IP65");
+        add(productos, 16, "Reflector LED 50W IP65", "Reflectores",
+                "Reflector para exterior, fachadas y patios", "42.00", 22,
+                "potencia", "50W", "protección", "IP65");
+        add(productos, 17, "Reflector LED 100W IP66", "Reflectores",
+                "Proyector de alta potencia para canchas y almacenes", "79.00", 9,
+                "potencia", "100W", "protección", "IP66");
+        add(productos, 18, "Reflector solar 200W con panel", "Solar",
+                "Reflector solar con control remoto, sin cableado", "159.00", 6, "potencia", "200W");
+        add(productos, 19, "Sensor de movimiento PIR para techo", "Sensores",
+                "Sensor que enciende la luz al detectar presencia, ideal para pasadizo y escaleras", "25.00", 35,
+                "alcance", "6m");
+        add(productos, 20, "Sensor de movimiento con foco incorporado", "Sensores",
+                "Foco con sensor pir para cochera y pasillo", "22.00", 0, "potencia", "9W");
+        add(productos, 21, "Kit solar de iluminación 3 focos", "Solar",
+                "Panel solar con batería y 3 focos para casa de campo", "189.00", 4, "batería", "12V");
+        add(productos, 22, "Linterna solar recargable", "Solar",
+                "Linterna de emergencia recargable por energía solar", "19.90", 50);
+        add(productos, 23, "Farola solar para jardín", "Solar",
+                "Luminaria solar para jardín y exteriores con sensor", "69.00", 11, "protección", "IP65");
+        add(productos, 24, "Cámara de seguridad WiFi 1080p", "Seguridad",
+                "Cámara IP para vigilancia del hogar con visión nocturna", "99.00", 14, "resolución", "1080p");
+        add(productos, 25, "Cámara de seguridad exterior PTZ", "Seguridad",
+                "Cámara giratoria para exterior resistente al agua", "179.00", 3, "protección", "IP66");
+        add(productos, 26, "Letrero luminoso LED ABIERTO", "Letreros",
+                "Letrero para tiendas y negocios", "49.00", 15);
+        add(productos, 27, "Aplique de pared para exterior", "Apliques",
+                "Aplique para fachada y jardín", "34.00", 16, "protección", "IP54");
+        add(productos, 28, "Lámpara de techo colgante industrial", "Lámparas",
+                "Lámpara de techo estilo industrial para cocina y comedor", "75.00", 9, "socket", "E27");
+        add(productos, 29, "Ventilador de techo con luz LED", "Ventiladores",
+                "Ventilador con lámpara LED y control remoto para dormitorio", "299.00", 2, "potencia", "36W");
+        add(productos, 30, "Extensión eléctrica 3m", "Accesorios",
+                "Extensión con 4 tomas y protector", "15.00", 45, "largo", "3m");
+        add(productos, 31, "Interruptor inteligente WiFi", "Accesorios",
+                "Interruptor táctil compatible con Alexa", "39.00", 20);
+        add(productos, 32, "Cable mellizo 2x14 AWG rollo 100m", "Cables",
+                "Cable para instalaciones eléctricas", "120.00", 10, "largo", "100m");
+        return productos;
+    }
+
+    /**
+     * NDCG@k de un resultado. Sin juicios, acierta solo si el resultado viene vacío.
+     */
+    public static double ndcg(Judgment judgment, List<Long> ranked, int k) {
+        if (judgment.grades().isEmpty()) {
+            return ranked.isEmpty() ? 1.0 : 0.0;
+        }
+        double dcg = 0;
+        for (int i = 0; i < Math.min(k, ranked.size()); i++) {
+            dcg += gain(judgment.grades().getOrDefault(ranked.get(i), 0), i);
+        }
+        List<Integer> ideal = judgment.grades().values().stream().sorted(Comparator.reverseOrder()).toList();
+        double idcg = 0;
+        for (int i = 0; i < Math.min(k, ideal.size()); i++) {
+            idcg += gain(ideal.get(i), i);
+        }
+        return dcg / idcg;
+    }
+
+    private static double gain(int grade, int position) {
+        return (Math.pow(2, grade) - 1) / (Math.log(position + 2) / Math.log(2));
+    }
+
+    private static Judgment judge(String query, int... idGrade) {
+        Map<Long, Integer> grades = new LinkedHashMap<>();
+        for (int i = 0; i < idGrade.length; i += 2) {
+            grades.put((long) idGrade[i], idGrade[i + 1]);
+        }
+        return new Judgment(query, grades);
+    }
+
+    private static void add(List<Producto> productos, long id, String nombre, String categoria, String descripcion,
+                            String precio, int stock, String... caracteristicas) {
+        Producto p = new Producto();
+        p.setId(id);
+        p.setNombre(nombre);
+        p.setCategoria(categoria);
+        p.setDescripcion(descripcion);
+        p.setPrecio(precio);
+        p.setStock(stock);
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < caracteristicas.length; i += 2) {
+            map.put(caracteristicas[i], caracteristicas[i + 1]);
+        }
+        p.setCaracteristicas(map);
+        productos.add(p);
+    }
+}
@@ -0,0 +1,82 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.dto.ImportResultDto;
+import com.electrocyb.store.producto.importacion.ProductImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La migración de precios sobre el esquema real (db.sql), en H2 modo PostgreSQL.
+ */
+class PrecioMigrationTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:precios;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("DROP ALL OBJECTS");
+        // Tablas y productos de db.sql tal cual; sus características de ejemplo apuntan a
+        // productos (1-12) que el script no trae, así que esas filas se omiten
+        String script = Files.readAllLines(Path.of("db.sql")).stream()
+                .filter(linea -> !linea.strip().startsWith("--"))
+                .collect(Collectors.joining("\n"));
+        Arrays.stream(script.split(";"))
+                .map(String::strip)
+                .filter(sql -> !sql.isEmpty())
+                .filter(sql -> !sql.startsWith("INSERT INTO producto_caracteristicas"))
+                .forEach(jdbc::execute);
+        // Una base creada con el db.sql anterior tenía precio NOT NULL
+        jdbc.execute("ALTER TABLE productos ALTER COLUMN precio SET NOT NULL");
+    }
+
+    @Test
+    void copiesNumericPricesAndLetsNewRowsOmitTheOldColumn() throws IOException {
+        new PrecioMigration(jdbc).migrar();
+
+        assertThat(centavos(14)).isEqualTo(5000L);   // '50.00'
+        assertThat(centavos(13)).isNull();           // '3.50 x metro'
+        assertThat(centavos(17)).isNull();           // 'Consultar'
+
+        // Idempotente: una segunda corrida no cambia nada
+        jdbc.update("UPDATE productos SET precio_centavos = 4500 WHERE id = 14");
+        new PrecioMigration(jdbc).migrar();
+        assertThat(centavos(14)).isEqualTo(4500L);
+
+        // Alta nueva sin la columna vieja (como la carga masiva y ProductoService.crear)
+        ProductImportService importService = new ProductImportService(jdbc, new DataSourceTransactionManager(dataSource),
+                new ObjectMapper(), event -> { }, 500);
+        ImportResultDto result = importService.importar(new ByteArrayInputStream("""
+                sku,nombre,precio,stock
+                F-NUEVO,Foco LED 9W,12.50,10
+                """.getBytes(StandardCharsets.UTF_8)), ProductImportService.Formato.CSV);
+
+        assertThat(result.creados()).isEqualTo(1);
+        assertThat(result.conError()).isZero();
+        assertThat(jdbc.queryForMap("SELECT id, precio, precio_centavos FROM productos WHERE sku = 'F-NUEVO'"))
+                .containsEntry("id", 30L)
+                .containsEntry("precio", null)
+                .containsEntry("precio_centavos", 1250L);
+    }
+
+    private Long centavos(long id) {
+        return jdbc.queryForObject("SELECT precio_centavos FROM productos WHERE id = ?", Long.class, id);
+    }
+}
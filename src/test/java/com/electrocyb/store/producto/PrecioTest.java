@@ -0,0 +1,43 @@
+package com.electrocyb.store.producto;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrecioTest {
+
+    @Test
+    void parsesAndFormatsCents() {
+        assertThat(Precio.parseCentavos("35")).isEqualTo(3500L);
+        assertThat(Precio.parseCentavos(" 35.5 ")).isEqualTo(3550L);
+        assertThat(Precio.parseCentavos("35,50")).isEqualTo(3550L);
+        assertThat(Precio.parseCentavos("0.005")).isEqualTo(1L);
+        assertThat(Precio.parseCentavos("")).isNull();
+        assertThat(Precio.parseCentavos(null)).isNull();
+
+        assertThat(Precio.format(3550L)).isEqualTo("35.50");
+        assertThat(Precio.format(5L)).isEqualTo("0.05");
+        assertThat(Precio.format(null)).isNull();
+    }
+
+    @Test
+    void rejectsTextThatIsNotAPrice() {
+        assertThatThrownBy(() -> Precio.parseCentavos("Consultar"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Precio inválido: Consultar");
+        assertThatThrownBy(() -> Precio.parseCentavos("3.50 x metro"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Precio.parseCentavos("-10"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rangeBoundsRoundInward() {
+        assertThat(Precio.minCentavos(new BigDecimal("19.999"))).isEqualTo(2000L);
+        assertThat(Precio.maxCentavos(new BigDecimal("40.009"))).isEqualTo(4000L);
+        assertThat(Precio.maxCentavos(new BigDecimal("50"))).isEqualTo(5000L);
+    }
+}
@@ -0,0 +1,69 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.ranking.BestSellerLeaderboard;
+import com.electrocyb.store.producto.search.CatalogSearchIndex;
+import com.electrocyb.store.producto.search.ParallelScorer;
+import com.electrocyb.store.producto.search.ProductoFullTextRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductAdviceService.findProductsForMessage sobre catálogos sintéticos de
+ * 100, 10k y 100k productos, recorriendo el corpus de SyntheticCatalog.QUERIES.
+ *
+ * Ejecutar: mvn -Pbenchmark test -Dbenchmark.include=ProductAdviceBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ProductAdviceBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int catalogSize;
+
+    // Candidatos a partir de los cuales el puntaje se reparte en el pool (MAX_VALUE = siempre secuencial)
+    @Param({"4096", "2147483647"})
+    public int parallelThreshold;
+
+    private ProductAdviceService service;
+    private List<String> queries;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CatalogSearchIndex index = new CatalogSearchIndex(
+                SyntheticCatalog.repository(SyntheticCatalog.generate(catalogSize, 42)));
+        index.rebuild();
+        // Caché de tamaño 0: se mide la búsqueda completa, no los aciertos de caché
+        ProductSearchCache noCache = new ProductSearchCache(index, 0, Duration.ofMinutes(10));
+        service = new ProductAdviceService(index, new ProductoFullTextRepository(null), noCache,
+                new ParallelScorer(0, parallelThreshold), new BestSellerLeaderboard(null), "memory");
+        queries = SyntheticCatalog.QUERIES;
+    }
+
+    @Benchmark
+    public ProductAdviceService.ProductSearchResult findProductsForMessage(Cursor cursor) {
+        String query = queries.get(cursor.next++ % queries.size());
+        return service.findProductsForMessage(query);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductAdviceBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
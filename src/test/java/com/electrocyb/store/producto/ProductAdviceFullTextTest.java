@@ -0,0 +1,81 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.ProductAdviceService.SearchType;
+import com.electrocyb.store.producto.ranking.BestSellerLeaderboard;
+import com.electrocyb.store.producto.search.CatalogSearchIndex;
+import com.electrocyb.store.producto.search.ParallelScorer;
+import com.electrocyb.store.producto.search.ProductSearchDocument;
+import com.electrocyb.store.producto.search.ProductoFullTextRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pre-filtro de texto completo (app.search.prefilter=fulltext) con un tsvector simulado:
+ * encuentra los productos que contienen algún término, como la consulta en PostgreSQL.
+ */
+class ProductAdviceFullTextTest {
+
+    private final CatalogSearchIndex index = new CatalogSearchIndex(SyntheticCatalog.repository(SyntheticCatalog.generate(600, 3)));
+    private final Set<Long> excluidos = new HashSet<>();
+
+    private final ProductoFullTextRepository fullText = new ProductoFullTextRepository(null) {
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public Set<Long> matchingIds(Collection<String> terms) {
+            return index.current().documents().stream()
+                    .filter(d -> terms.stream().anyMatch(t -> d.fullText().contains(t)))
+                    .map(ProductSearchDocument::id)
+                    .filter(id -> !excluidos.contains(id))
+                    .collect(Collectors.toSet());
+        }
+    };
+
+    private ProductAdviceService service(String preFilter) {
+        return new ProductAdviceService(index, fullText, new ProductSearchCache(index, 0, Duration.ofMinutes(10)),
+                new ParallelScorer(1, 4096), new BestSellerLeaderboard(null), preFilter);
+    }
+
+    // Llegan al puntaje BM25F (no hay match por nombre) y cada una encuentra cientos de productos
+    private static final List<String> CONSULTAS = List.of(
+            "algo barato para el dormitorio", "luz brillante bajo consumo", "cinta flexible", "luz brillante para el comedor");
+
+    @Test
+    void fullTextPreFilterKeepsEveryMatchingCandidate() {
+        index.rebuild();
+        ProductAdviceService memoria = service("memory");
+        ProductAdviceService textoCompleto = service("fulltext");
+
+        for (String query : CONSULTAS) {
+            assertThat(textoCompleto.findProductsForMessage(query).type()).as(query).isEqualTo(SearchType.TEXT_MATCH);
+            assertThat(ids(textoCompleto, query)).as(query).isNotEmpty().isEqualTo(ids(memoria, query));
+        }
+    }
+
+    @Test
+    void productsTheFullTextSearchDoesNotFindAreDropped() {
+        index.rebuild();
+        String query = CONSULTAS.get(1);
+        List<Long> antes = ids(service("fulltext"), query);
+
+        excluidos.add(antes.get(0));
+
+        // Servicio nuevo: sin el resultado anterior en su caché
+        assertThat(ids(service("fulltext"), query)).isNotEmpty().doesNotContain(antes.get(0));
+    }
+
+    private static List<Long> ids(ProductAdviceService service, String query) {
+        return service.findProductsForMessage(query).products().stream().map(Producto::getId).toList();
+    }
+}
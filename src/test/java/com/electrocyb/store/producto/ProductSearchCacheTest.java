@@ -0,0 +1,183 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.ProductAdviceService.ProductSearchResult;
+import com.electrocyb.store.producto.ProductAdviceService.SearchType;
+import com.electrocyb.store.producto.ranking.BestSellerLeaderboard;
+import com.electrocyb.store.producto.search.CatalogSearchIndex;
+import com.electrocyb.store.producto.search.CatalogSnapshot;
+import com.electrocyb.store.producto.search.ParallelScorer;
+import com.electrocyb.store.producto.search.ProductoFullTextRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchCacheTest {
+
+    private List<Producto> productos;
+    private CatalogSearchIndex index;
+    private ProductSearchCache cache;
+
+    @BeforeEach
+    void setUp() {
+        productos = new ArrayList<>(SyntheticCatalog.generate(20, 7));
+        index = new CatalogSearchIndex(SyntheticCatalog.repository(productos));
+        index.rebuild();
+        cache = new ProductSearchCache(index, 100, Duration.ofMinutes(10));
+    }
+
+    private ProductSearchResult firstTwo() {
+        return new ProductSearchResult(List.of(productos.get(0), productos.get(1)), null, SearchType.TEXT_MATCH, false);
+    }
+
+    @Test
+    void repeatedMessageIsServedFromCacheIgnoringCaseAndAccents() {
+        AtomicInteger searches = new AtomicInteger();
+        CatalogSnapshot catalog = index.current();
+
+        cache.get(catalog, QueryAnalysis.of("Focos LED"), () -> { searches.incrementAndGet(); return firstTwo(); });
+        ProductSearchResult again = cache.get(catalog, QueryAnalysis.of("focos led"), () -> { searches.incrementAndGet(); return firstTwo(); });
+
+        assertThat(searches).hasValue(1);
+        assertThat(again.products()).extracting(Producto::getId).containsExactly(1L, 2L);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+
+        cache.get(catalog, QueryAnalysis.of("Lámpara para sala"), () -> { searches.incrementAndGet(); return firstTwo(); });
+        cache.get(catalog, QueryAnalysis.of("  lampara para SALA "), () -> { searches.incrementAndGet(); return firstTwo(); });
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void catalogChangeInvalidatesEntries() {
+        AtomicInteger searches = new AtomicInteger();
+        cache.get(index.current(), QueryAnalysis.of("focos led"), () -> { searches.incrementAndGet(); return firstTwo(); });
+
+        productos.get(0).setStock(0);
+        CatalogChangeEvent event = new CatalogChangeEvent.StockChanged(java.util.Set.of(1L));
+        index.onCatalogChange(event);
+        cache.onCatalogChange(event);
+
+        ProductSearchResult after = cache.get(index.current(), QueryAnalysis.of("focos led"), () -> { searches.incrementAndGet(); return firstTwo(); });
+
+        assertThat(searches).hasValue(2);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(after.products().get(0).getStock()).isZero();
+    }
+
+    @Test
+    void stockChangeKeepsEntriesThatDoNotShowTheProduct() {
+        AtomicInteger searches = new AtomicInteger();
+        cache.get(index.current(), QueryAnalysis.of("focos led"), () -> { searches.incrementAndGet(); return firstTwo(); });
+
+        productos.get(4).setStock(0);
+        CatalogChangeEvent event = new CatalogChangeEvent.StockChanged(java.util.Set.of(5L));
+        index.onCatalogChange(event);
+        cache.onCatalogChange(event);
+        cache.get(index.current(), QueryAnalysis.of("focos led"), () -> { searches.incrementAndGet(); return firstTwo(); });
+
+        assertThat(searches).hasValue(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void restockedProductReappearsImmediately() {
+        productos.add(ventilador(3));
+        index.rebuild();
+        ProductAdviceService service = new ProductAdviceService(index, new ProductoFullTextRepository(null), cache,
+                new ParallelScorer(1, 4096), new BestSellerLeaderboard(null), "memory");
+        String query = "ventilador silencioso";
+        assertThat(service.findProductsForMessage(query).products()).extracting(Producto::getId).containsExactly(21L);
+
+        // Se agota: la búsqueda queda vacía y ese FALLBACK se cachea
+        restock(0);
+        assertThat(service.findProductsForMessage(query).type()).isEqualTo(SearchType.FALLBACK);
+        assertThat(service.findProductsForMessage(query).products()).isEmpty();
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+
+        // Vuelve a tener stock: aparece en la siguiente búsqueda, sin esperar el ttl
+        restock(5);
+        ProductSearchResult repuesto = service.findProductsForMessage(query);
+        assertThat(repuesto.type()).isEqualTo(SearchType.TEXT_MATCH);
+        assertThat(repuesto.products()).extracting(Producto::getStock).containsExactly(5);
+    }
+
+    // Como un pedido o una reposición: la entidad releída trae el stock nuevo
+    private void restock(int stock) {
+        productos.set(productos.size() - 1, ventilador(stock));
+        CatalogChangeEvent event = new CatalogChangeEvent.StockChanged(Set.of(21L));
+        index.onCatalogChange(event);
+        cache.onCatalogChange(event);
+    }
+
+    private static Producto ventilador(int stock) {
+        Producto p = new Producto();
+        p.setId(21L);
+        p.setNombre("Ventilador de techo industrial");
+        p.setCategoria("Climatización");
+        p.setDescripcion("silencioso, con control remoto");
+        p.setPrecio("150.00");
+        p.setStock(stock);
+        return p;
+    }
+
+    @Test
+    void textChangeInvalidatesEveryEntry() {
+        AtomicInteger searches = new AtomicInteger();
+        cache.get(index.current(), QueryAnalysis.of("focos led"), () -> { searches.incrementAndGet(); return firstTwo(); });
+
+        // Un producto renombrado puede entrar en cualquier búsqueda
+        Producto renombrado = new Producto();
+        renombrado.setId(5L);
+        renombrado.setNombre("Foco LED 9W luz cálida");
+        renombrado.setCategoria(productos.get(4).getCategoria());
+        renombrado.setStock(10);
+        productos.set(4, renombrado);
+        CatalogChangeEvent event = new CatalogChangeEvent.ProductUpdated(5L);
+        index.onCatalogChange(event);
+        cache.onCatalogChange(event);
+        cache.get(index.current(), QueryAnalysis.of("focos led"), () -> { searches.incrementAndGet(); return firstTwo(); });
+
+        assertThat(searches).hasValue(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentIdenticalMessagesAreComputedOnce() throws Exception {
+        AtomicInteger searches = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CatalogSnapshot catalog = index.current();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ProductSearchResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return cache.get(catalog, QueryAnalysis.of("tira led para sala"), () -> {
+                        searches.incrementAndGet();
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return firstTwo();
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<ProductSearchResult> f : futures) {
+                assertThat(f.get(5, TimeUnit.SECONDS).products()).hasSize(2);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(searches).hasValue(1);
+    }
+}
@@ -0,0 +1,92 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.search.CatalogSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/productos/facetas sobre el índice en memoria, antes y después de cambiar un producto.
+ */
+class ProductoFacetasControllerTest {
+
+    private List<Producto> productos;
+    private CatalogSearchIndex index;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        productos = new ArrayList<>(List.of(
+                producto(1L, "Foco LED 12W", "Focos", "15.00", "potencia", "12W"),
+                producto(2L, "Foco LED 12W cálido", "Focos", "35.00", "potencia", "12 w"),
+                producto(3L, "Foco LED 20W", "Focos", "40.00", "potencia", "20W"),
+                producto(4L, "Reflector LED 50W", "Exterior", "80.00", "potencia", "50W")
+        ));
+        index = new CatalogSearchIndex(SyntheticCatalog.repository(productos));
+        index.rebuild();
+        ProductoService service = new ProductoService(null, event -> { }, index, null, null);
+        mvc = MockMvcBuilders.standaloneSetup(new ProductoController(service, null)).build();
+    }
+
+    @Test
+    void filtersByTextAndFacetsAndCountsTheRest() throws Exception {
+        mvc.perform(get("/api/productos/facetas").param("q", "foco").param("precio", "20-50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.items[*].id", contains(2, 3)))
+                .andExpect(jsonPath("$.categorias[0].valor").value("focos"))
+                .andExpect(jsonPath("$.categorias[0].count").value(2))
+                // El tramo elegido no se filtra a sí mismo: 0-20 sigue mostrando el foco de S/ 15
+                .andExpect(jsonPath("$.precios[*].valor", contains("0-20", "20-50")))
+                .andExpect(jsonPath("$.precios[*].count", contains(1, 2)));
+
+        mvc.perform(get("/api/productos/facetas").param("attr", "potencia:12W").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.items.length()").value(1));
+
+        mvc.perform(get("/api/productos/facetas").param("attr", "potencia"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void countsFollowProductUpdates() throws Exception {
+        Producto movido = producto(3L, "Foco LED 20W", "Exterior", "90.00", "potencia", "20W");
+        productos.set(2, movido);
+        index.onCatalogChange(new CatalogChangeEvent.ProductUpdated(3L));
+
+        mvc.perform(get("/api/productos/facetas").param("categoria", "exterior"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.items[*].id", contains(3, 4)))
+                .andExpect(jsonPath("$.categorias[*].valor", contains("exterior", "focos")))
+                .andExpect(jsonPath("$.categorias[*].count", contains(2, 2)))
+                .andExpect(jsonPath("$.precios[*].valor", contains("50-100")));
+    }
+
+    private static Producto producto(Long id, String nombre, String categoria, String precio, String... caracteristicas) {
+        Producto p = new Producto();
+        p.setId(id);
+        p.setNombre(nombre);
+        p.setCategoria(categoria);
+        p.setPrecio(precio);
+        p.setStock(5);
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < caracteristicas.length; i += 2) {
+            map.put(caracteristicas[i], caracteristicas[i + 1]);
+        }
+        p.setCaracteristicas(map);
+        return p;
+    }
+}
@@ -0,0 +1,89 @@
+package com.electrocyb.store.producto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El listado de productos (incluida la serialización de las características)
+ * tiene que costar un número fijo de sentencias SQL, no una por producto.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class ProductoListingQueryCountTest {
+
+    private static final int PRODUCTOS = 500;
+
+    @Autowired
+    private ProductoRepository repo;
+
+    @Autowired
+    private EntityManager em;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < PRODUCTOS; i++) {
+            Producto p = new Producto();
+            p.setNombre("Foco LED " + i);
+            p.setCategoria(i % 2 == 0 ? "Focos" : "Paneles");
+            p.setPrecio(String.valueOf(10 + i % 90));
+            p.setStock(5);
+            p.getCaracteristicas().put("potencia", (9 + i % 3) + "W");
+            p.getCaracteristicas().put("color", "blanco");
+            repo.save(p);
+        }
+        em.flush();
+        em.clear();
+
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void listarTodosUsesOneStatementRegardlessOfCatalogSize() throws Exception {
+        ProductoService service = new ProductoService(repo, event -> { }, null, null, null);
+
+        List<Producto> productos = service.listarTodos();
+        String json = mapper.writeValueAsString(productos);
+
+        assertThat(productos).hasSize(PRODUCTOS);
+        assertThat(json).contains("\"potencia\"");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void listarPorCategoriaUsesOneStatement() throws Exception {
+        ProductoService service = new ProductoService(repo, event -> { }, null, null, null);
+
+        List<Producto> focos = service.buscarPorCategoria("focos");
+        mapper.writeValueAsString(focos);
+
+        assertThat(focos).hasSize(PRODUCTOS / 2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void pathsWithoutEntityGraphLoadCharacteristicsInBatches() {
+        List<Producto> productos = repo.findAll();
+        productos.forEach(p -> p.getCaracteristicas().size());
+
+        // 1 consulta de productos + 1 por cada lote de 100 (BatchSize), no 1 + 500
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + PRODUCTOS / 100);
+    }
+}
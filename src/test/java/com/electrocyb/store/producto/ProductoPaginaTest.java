@@ -0,0 +1,135 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.dto.ProductoPageDto;
+import com.electrocyb.store.producto.dto.ProductoResumenDto;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/productos/pagina: keyset por id, filtros y bordes del cursor.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class ProductoPaginaTest {
+
+    private static final int PRODUCTOS = 25;
+
+    @Autowired
+    private ProductoRepository repo;
+
+    @Autowired
+    private EntityManager em;
+
+    private ProductoService service;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= PRODUCTOS; i++) {
+            Producto p = new Producto();
+            p.setNombre("Foco LED " + i);
+            p.setCategoria(i % 2 == 0 ? "Focos" : "Paneles");
+            p.setPrecio(i + ".50");
+            p.setStock(i);
+            p.getCaracteristicas().put("potencia", "12W");
+            ids.add(repo.save(p).getId());
+        }
+        em.flush();
+        em.clear();
+        service = new ProductoService(repo, event -> { }, null, null, null);
+    }
+
+    @Test
+    void walksTheCatalogPageByPageWithOneStatementEach() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Long> vistos = new ArrayList<>();
+        List<Integer> tamanos = new ArrayList<>();
+        Long cursor = null;
+        do {
+            ProductoPageDto pagina = service.listarPagina(cursor, 10, null, null, null);
+            pagina.items().forEach(item -> vistos.add(item.id()));
+            tamanos.add(pagina.items().size());
+            cursor = pagina.nextCursor();
+        } while (cursor != null);
+
+        assertThat(vistos).isEqualTo(ids);
+        assertThat(tamanos).containsExactly(10, 10, 5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void lastFullPageHasNoCursorAndCursorsPastTheEndAreEmpty() {
+        // 25 productos en páginas de 5: la quinta está llena y aun así es la última
+        ProductoPageDto quinta = service.listarPagina(ids.get(19), 5, null, null, null);
+        assertThat(quinta.items()).extracting(ProductoResumenDto::id).containsExactlyElementsOf(ids.subList(20, 25));
+        assertThat(quinta.nextCursor()).isNull();
+
+        ProductoPageDto cuarta = service.listarPagina(ids.get(14), 5, null, null, null);
+        assertThat(cuarta.nextCursor()).isEqualTo(ids.get(19));
+
+        ProductoPageDto despues = service.listarPagina(ids.get(24), 5, null, null, null);
+        assertThat(despues.items()).isEmpty();
+        assertThat(despues.nextCursor()).isNull();
+
+        // Un cursor que ya no existe (producto borrado) sigue desde el id siguiente
+        repo.deleteById(ids.get(3));
+        em.flush();
+        assertThat(service.listarPagina(ids.get(3), 2, null, null, null).items())
+                .extracting(ProductoResumenDto::id)
+                .containsExactly(ids.get(4), ids.get(5));
+    }
+
+    @Test
+    void filtersByCategoryAndPriceAcrossPages() {
+        // Focos (pares) entre S/ 6 y S/ 16.50: 6, 8, 10, 12, 14, 16
+        ProductoPageDto primera = service.listarPagina(null, 4, "  FOCOS ", new BigDecimal("6"), new BigDecimal("16.50"));
+        assertThat(primera.items()).extracting(ProductoResumenDto::nombre)
+                .containsExactly("Foco LED 6", "Foco LED 8", "Foco LED 10", "Foco LED 12");
+        assertThat(primera.items().get(0).precio()).isEqualTo("6.50");
+
+        ProductoPageDto segunda = service.listarPagina(primera.nextCursor(), 4, "focos", new BigDecimal("6"), new BigDecimal("16.50"));
+        assertThat(segunda.items()).extracting(ProductoResumenDto::nombre).containsExactly("Foco LED 14", "Foco LED 16");
+        assertThat(segunda.nextCursor()).isNull();
+
+        // Tamaño fuera de rango: se acota a [1, 100]
+        assertThat(service.listarPagina(null, 0, null, null, null).items()).hasSize(1);
+        assertThat(service.listarPagina(null, 1000, null, null, null).items()).hasSize(PRODUCTOS);
+    }
+
+    @Test
+    void endpointBindsCursorAndFilters() throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ProductoController(service, null)).build();
+
+        mvc.perform(get("/api/productos/pagina")
+                        .param("after", String.valueOf(ids.get(9)))
+                        .param("size", "2")
+                        .param("categoria", "paneles")
+                        .param("precioMax", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].nombre", contains("Foco LED 11", "Foco LED 13")))
+                .andExpect(jsonPath("$.items[0].caracteristicas").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value(ids.get(12)));
+    }
+}
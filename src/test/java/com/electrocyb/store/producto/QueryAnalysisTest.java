@@ -0,0 +1,80 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.search.ProductKeywords;
+import com.electrocyb.store.producto.search.SpellCorrector;
+import com.electrocyb.store.producto.search.TextNormalizer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryAnalysisTest {
+
+    @Test
+    void analyzesTheMessageInOnePass() {
+        QueryAnalysis query = QueryAnalysis.of("  Quiero una LÁMPARA para la sala\thasta 50 soles ");
+
+        assertThat(query.message()).isEqualTo("Quiero una LÁMPARA para la sala\thasta 50 soles");
+        assertThat(query.normalized()).isEqualTo("quiero una lampara para la sala\thasta 50 soles");
+        assertThat(query.tokens()).containsExactly("quiero", "una", "lampara", "para", "la", "sala", "hasta", "50", "soles");
+        assertThat(query.coreTokens()).containsExactly("lampara", "sala");
+        assertThat(query.expandedKeywords()).containsExactly("lampara", "spot", "plafon", "panel", "sala");
+        assertThat(query.priceRange().min()).isNull();
+        assertThat(query.priceRange().max()).isEqualByComparingTo("50");
+        assertThat(query.has(ProductKeywords.Group.ROOM)).isTrue();
+        assertThat(query.has(ProductKeywords.Group.LAMP)).isTrue();
+        assertThat(query.has(ProductKeywords.Group.STRIP)).isFalse();
+    }
+
+    @Test
+    void extractsPriceRanges() {
+        assertThat(QueryAnalysis.of("reflector entre 80 y 40 soles").priceRange())
+                .extracting(ProductAdviceService.PriceRange::min, ProductAdviceService.PriceRange::max)
+                .containsExactly(new BigDecimal("40"), new BigDecimal("80"));
+        assertThat(QueryAnalysis.of("foco desde 12,5").priceRange().min()).isEqualByComparingTo("12.5");
+        assertThat(QueryAnalysis.of("panel alrededor de 100").priceRange())
+                .extracting(ProductAdviceService.PriceRange::min, ProductAdviceService.PriceRange::max)
+                .satisfiesExactly(
+                        min -> assertThat((BigDecimal) min).isEqualByComparingTo("80"),
+                        max -> assertThat((BigDecimal) max).isEqualByComparingTo("120"));
+        assertThat(QueryAnalysis.of("foco de 20w").priceRange()).isNull();
+        assertThat(QueryAnalysis.of("focos led").priceRange()).isNull();
+    }
+
+    @Test
+    void keepsTheWholeMessageWhenOnlyStopwordsRemain() {
+        QueryAnalysis query = QueryAnalysis.of("quiero una");
+        assertThat(query.coreTokens()).isEmpty();
+        assertThat(query.expandedKeywords()).containsExactly("quiero una");
+
+        assertThat(QueryAnalysis.of(null).isBlank()).isTrue();
+        assertThat(QueryAnalysis.of("   ").tokens()).isEmpty();
+    }
+
+    @Test
+    void spellingOnlyReanalyzesWhenSomethingChanged() {
+        SpellCorrector corrector = SpellCorrector.of(Map.of("lampara", 10, "reflector", 5));
+
+        QueryAnalysis wellWritten = QueryAnalysis.of("lampara para sala");
+        assertThat(wellWritten.withSpelling(corrector)).isSameAs(wellWritten);
+
+        QueryAnalysis corrected = QueryAnalysis.of("reflectr  hasta 60").withSpelling(corrector);
+        assertThat(corrected.normalized()).isEqualTo("reflector hasta 60");
+        assertThat(corrected.coreTokens()).containsExactly("reflector");
+        assertThat(corrected.expandedKeywords()).containsExactly("reflector", "proyector");
+        assertThat(corrected.priceRange().max()).isEqualByComparingTo("60");
+        assertThat(corrected.message()).isEqualTo("reflectr  hasta 60");
+    }
+
+    @Test
+    void normalizesWithoutRegexTheSameWay() {
+        for (String text : new String[]{"Cámara de Seguridad", "BAÑO", "niño ÑANDÚ", "foco led", "ǘ", ""}) {
+            String expected = java.text.Normalizer.normalize(text.toLowerCase(java.util.Locale.ROOT),
+                    java.text.Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            assertThat(TextNormalizer.normalize(text)).isEqualTo(expected);
+        }
+        assertThat(TextNormalizer.normalize(null)).isEmpty();
+    }
+}
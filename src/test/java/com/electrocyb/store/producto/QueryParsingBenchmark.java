@@ -0,0 +1,55 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.search.TextNormalizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Análisis del mensaje que no depende del catálogo (QueryAnalysis: normalización,
+ * tokens, sinónimos, rango de precio y grupos de palabras clave), sobre el corpus
+ * de SyntheticCatalog.QUERIES.
+ *
+ * Ejecutar: mvn -Pbenchmark test -Dbenchmark.include=QueryParsingBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryParsingBenchmark {
+
+    private List<String> queries;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queries = SyntheticCatalog.QUERIES;
+    }
+
+    @Benchmark
+    public String normalize(Cursor cursor) {
+        return TextNormalizer.normalize(queries.get(cursor.next++ % queries.size()));
+    }
+
+    @Benchmark
+    public QueryAnalysis analyze(Cursor cursor) {
+        return QueryAnalysis.of(queries.get(cursor.next++ % queries.size()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QueryParsingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.ranking.BestSellerLeaderboard;
+import com.electrocyb.store.producto.search.CatalogSearchIndex;
+import com.electrocyb.store.producto.search.ParallelScorer;
+import com.electrocyb.store.producto.search.ProductoFullTextRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Calidad del ranking del chatbot sobre LabeledQueries (NDCG@4 de la respuesta).
+ * El puntaje aditivo anterior (+40/+25/+10 por palabra clave) sacaba 0.547.
+ */
+class SearchRelevanceTest {
+
+    private static ProductAdviceService service() {
+        CatalogSearchIndex index = new CatalogSearchIndex(SyntheticCatalog.repository(LabeledQueries.catalog()));
+        index.rebuild();
+        return new ProductAdviceService(index, new ProductoFullTextRepository(null),
+                new ProductSearchCache(index, 0, Duration.ofMinutes(10)), new ParallelScorer(1, 4096), new BestSellerLeaderboard(null), "memory");
+    }
+
+    private static Map<String, Double> evaluate() {
+        ProductAdviceService service = service();
+
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (LabeledQueries.Judgment judgment : LabeledQueries.JUDGMENTS) {
+            List<Long> ids = service.findProductsForMessage(judgment.query()).products().stream()
+                    .map(Producto::getId)
+                    .toList();
+            result.put(judgment.query(), LabeledQueries.ndcg(judgment, ids, 4));
+        }
+        return result;
+    }
+
+    @Test
+    void meanNdcgStaysAboveBaseline() {
+        Map<String, Double> ndcg = evaluate();
+        double mean = ndcg.values().stream().mapToDouble(Double::doubleValue).average().orElse(0);
+
+        assertThat(mean).isGreaterThanOrEqualTo(0.80);
+    }
+
+    @Test
+    void unrelatedQueriesReturnNothing() {
+        Map<String, Double> ndcg = evaluate();
+
+        assertThat(ndcg.get("algo para la piscina")).isEqualTo(1.0);
+        assertThat(ndcg.get("zapatillas deportivas")).isEqualTo(1.0);
+    }
+
+    @Test
+    void priceRangesAreStrict() {
+        ProductAdviceService service = service();
+
+        assertThat(service.findProductsForMessage("reflector entre 40 y 80 soles").products())
+                .isNotEmpty()
+                .allSatisfy(p -> assertThat(p.getPrecioCentavos()).isBetween(4000L, 8000L));
+        assertThat(service.findProductsForMessage("lampara hasta 50 soles").products())
+                .isNotEmpty()
+                .allSatisfy(p -> assertThat(p.getPrecioCentavos()).isLessThanOrEqualTo(5000L));
+        // Nada en el rango: no se rellena con productos fuera de él
+        assertThat(service.findProductsForMessage("reflector hasta 1 sol").products()).isEmpty();
+    }
+}
@@ -0,0 +1,97 @@
+package com.electrocyb.store.producto;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockRepositoryTest {
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+    private StockRepository stock;
+
+    @BeforeEach
+    void setUp() {
+        // LOCK_TIMEOUT alto: bajo carga los UPDATE esperan el lock de la fila en vez de fallar
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000");
+        jdbc = new JdbcTemplate(dataSource);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        stock = new StockRepository(jdbc);
+        jdbc.execute("DROP TABLE IF EXISTS productos");
+        jdbc.execute("CREATE TABLE productos (id BIGINT PRIMARY KEY, nombre VARCHAR(255), stock INT)");
+        jdbc.update("INSERT INTO productos VALUES (1, 'Foco LED', 50), (2, 'Panel', 30), (3, 'Tira LED', 5)");
+    }
+
+    @Test
+    void rejectsWhatIsMissingWithoutTouchingTheRest() {
+        assertThat(stock.descontar(Map.of(1L, 10, 3L, 6, 99L, 1))).containsExactly(3L, 99L);
+        assertThat(stock(1L)).isEqualTo(40);
+        assertThat(stock(3L)).isEqualTo(5);
+
+        assertThat(stock.descontar(Map.of(3L, 5))).isEmpty();
+        assertThat(stock(3L)).isZero();
+    }
+
+    @Test
+    void parallelOrdersNeverOversell() throws Exception {
+        int pedidos = 400;
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+
+        for (int i = 0; i < pedidos; i++) {
+            // Mitad de los carritos llega con los productos al revés: el orden por id evita deadlocks
+            Map<Long, Integer> carrito = new LinkedHashMap<>();
+            if (i % 2 == 0) {
+                carrito.put(1L, 1);
+                carrito.put(2L, 1);
+            } else {
+                carrito.put(2L, 1);
+                carrito.put(1L, 1);
+            }
+            resultados.add(pool.submit(() -> {
+                salida.await();
+                return tx.execute(status -> {
+                    if (stock.descontar(carrito).isEmpty()) {
+                        return true;
+                    }
+                    // Igual que crearPedido: si algo no alcanza, el pedido entero se revierte
+                    status.setRollbackOnly();
+                    return false;
+                });
+            }));
+        }
+        salida.countDown();
+
+        int aceptados = 0;
+        for (Future<Boolean> resultado : resultados) {
+            if (resultado.get(60, TimeUnit.SECONDS)) aceptados++;
+        }
+        pool.shutdown();
+
+        // El panel (30) limita: 30 pedidos completos, ni uno más, y el foco solo pierde esas 30 unidades
+        assertThat(aceptados).isEqualTo(30);
+        assertThat(stock(2L)).isZero();
+        assertThat(stock(1L)).isEqualTo(20);
+    }
+
+    private int stock(Long id) {
+        return jdbc.queryForObject("SELECT stock FROM productos WHERE id = ?", Integer.class, id);
+    }
+}
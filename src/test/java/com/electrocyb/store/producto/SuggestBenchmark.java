@@ -0,0 +1,64 @@
+package com.electrocyb.store.producto;
+
+import com.electrocyb.store.producto.search.CatalogSearchIndex;
+import com.electrocyb.store.producto.search.CatalogSnapshot;
+import com.electrocyb.store.producto.search.SuggestIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autocompletado (una llamada por tecla) sobre catálogos sintéticos de 100, 10k y 100k
+ * productos: cada prefijo de las consultas de SyntheticCatalog.QUERIES, en orden.
+ *
+ * Ejecutar: mvn -Pbenchmark test -Dbenchmark.include=SuggestBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SuggestBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int catalogSize;
+
+    private CatalogSnapshot catalog;
+    private List<String> keystrokes;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CatalogSearchIndex index = new CatalogSearchIndex(
+                SyntheticCatalog.repository(SyntheticCatalog.generate(catalogSize, 42)));
+        index.rebuild();
+        catalog = index.current();
+        keystrokes = new ArrayList<>();
+        for (String query : SyntheticCatalog.QUERIES) {
+            for (int i = 1; i <= Math.min(query.length(), 20); i++) {
+                keystrokes.add(query.substring(0, i));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<SuggestIndex.Suggestion> suggest(Cursor cursor) {
+        return catalog.suggest(keystrokes.get(cursor.next++ % keystrokes.size()), 8);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SuggestBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.electrocyb.store.producto;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Catálogo de productos generado (determinista por semilla) y corpus de consultas
+ * reales en español, para benchmarks y tests que no usan base de datos.
+ */
+public final class SyntheticCatalog {
+
+    private static final String[] TIPOS = {
+            "Lámpara", "Foco LED", "Tira LED", "Sensor de movimiento", "Reflector", "Plafón",
+            "Panel LED", "Cinta LED neón", "Manguera LED", "Cámara de seguridad", "Kit solar",
+            "Dicroico", "Spot", "Letrero luminoso", "Bombilla", "Linterna solar"
+    };
+    private static final String[] ADJETIVOS = {
+            "12W", "24W", "50W", "100W", "luz cálida", "luz fría", "RGB", "IP65", "para sala",
+            "para cocina", "para baño", "para dormitorio", "para pasillo", "exterior", "recargable", "5m", "10m"
+    };
+    private static final String[] CATEGORIAS = {
+            "Iluminación", "Lámparas", "Focos", "Tiras LED", "Seguridad", "Solar", "Letreros", "Exterior"
+    };
+    private static final String[] DESCRIPCIONES = {
+            "ideal para sala y comedor", "para letreros y avisos", "uso exterior", "bajo consumo",
+            "luz brillante", "instalación sencilla", "para cocina", "sensor pir", "proyector de alta potencia",
+            "cinta flexible", "plafon moderno para habitación", "panel solar incluido"
+    };
+
+    /**
+     * Mensajes como los que llegan al chatbot: productos, rangos de precio,
+     * preguntas de pago/envío/garantía, saludos y errores de tipeo.
+     */
+    public static final List<String> QUERIES = List.of(
+            "focos led", "foco led para sala", "quiero una tira led para el letrero de mi tienda",
+            "quiero ver todo el catalogo de productos", "lampara para sala hasta 50 soles",
+            "tira led entre 20 y 40 soles", "sensor de movimiento para pasadizo", "reflector 100W",
+            "tienen camara de seguridad?", "kit solar", "necesito un panel led para cocina",
+            "algo barato para el dormitorio", "hola buenas tardes", "cuanto cuesta el foco de 12w",
+            "bombilla luz calida", "cinta led neon para letrero", "dicroico 12w",
+            "lamparas de 30 a 80 soles", "alrededor de 60 soles un reflector", "desde 100 soles",
+            "manguera led 10m", "linterna solar recargable", "lámpara para dormitorio",
+            "tienen focos para baño", "quiero comprar una lampara", "Reflector 50W luz fría",
+            "aceptan yape?", "como puedo pagar", "hacen envios a provincia?", "cuanto demora el delivery",
+            "que garantia tiene", "puedo hacer cambio de producto", "lampra para la sala", "reflectr exterior",
+            "sensr de movimento", "gracias!"
+    );
+
+    private SyntheticCatalog() {
+    }
+
+    public static List<Producto> generate(int size, long seed) {
+        Random r = new Random(seed);
+        List<Producto> productos = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Producto p = new Producto();
+            p.setId((long) i);
+            String nombre = TIPOS[r.nextInt(TIPOS.length)] + " " + ADJETIVOS[r.nextInt(ADJETIVOS.length)];
+            if (r.nextBoolean()) nombre += " " + ADJETIVOS[r.nextInt(ADJETIVOS.length)];
+            p.setNombre(nombre + " M" + i);
+            p.setCategoria(CATEGORIAS[r.nextInt(CATEGORIAS.length)]);
+            p.setDescripcion(DESCRIPCIONES[r.nextInt(DESCRIPCIONES.length)] + ", "
+                    + DESCRIPCIONES[r.nextInt(DESCRIPCIONES.length)]);
+            p.setPrecio((5 + r.nextInt(200)) + (r.nextBoolean() ? ".50" : ".00"));
+            p.setStock(r.nextInt(6) == 0 ? 0 : r.nextInt(50));
+
+            Map<String, String> caracteristicas = new HashMap<>();
+            caracteristicas.put("potencia", ADJETIVOS[r.nextInt(4)]);
+            caracteristicas.put("color", r.nextBoolean() ? "cálida" : "fría");
+            if (r.nextInt(4) == 0) caracteristicas.put("uso", "exterior");
+            p.setCaracteristicas(caracteristicas);
+            productos.add(p);
+        }
+        return productos;
+    }
+
+    /**
+     * Repositorio en memoria con lo que usa el índice de búsqueda.
+     */
+    public static ProductoRepository repository(List<Producto> productos) {
+        return (ProductoRepository) Proxy.newProxyInstance(
+                SyntheticCatalog.class.getClassLoader(),
+                new Class<?>[]{ProductoRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll", "findAllWithCaracteristicas" -> new ArrayList<>(productos);
+                    case "findAllWithCaracteristicasByIdIn" -> {
+                        Collection<?> ids = (Collection<?>) args[0];
+                        yield productos.stream().filter(p -> ids.contains(p.getId())).toList();
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "SyntheticCatalog(" + productos.size() + ")";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
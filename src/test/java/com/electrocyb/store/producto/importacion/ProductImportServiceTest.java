@@ -0,0 +1,145 @@
+package com.electrocyb.store.producto.importacion;
+
+import com.electrocyb.store.producto.CatalogChangeEvent;
+import com.electrocyb.store.producto.dto.ImportResultDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ProductImportServiceTest {
+
+    private JdbcTemplate jdbc;
+    private final List<Object> events = new ArrayList<>();
+    private ProductImportService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:import;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("DROP TABLE IF EXISTS producto_caracteristicas");
+        jdbc.execute("DROP TABLE IF EXISTS productos");
+        // nombre corto a propósito: un nombre largo hace fallar su bloque en la base
+        jdbc.execute("""
+                CREATE TABLE productos (id BIGINT AUTO_INCREMENT PRIMARY KEY, sku VARCHAR(64) UNIQUE,
+                nombre VARCHAR(40), categoria VARCHAR(255), descripcion VARCHAR(1000), imagen VARCHAR(255),
+                precio_centavos BIGINT, stock INT)""");
+        jdbc.execute("""
+                CREATE TABLE producto_caracteristicas (producto_id BIGINT NOT NULL, nombre VARCHAR(255) NOT NULL,
+                valor VARCHAR(255), PRIMARY KEY (producto_id, nombre))""");
+        service = new ProductImportService(jdbc, new DataSourceTransactionManager(dataSource),
+                new ObjectMapper(), events::add, 2);
+    }
+
+    @Test
+    void importsCsvRowsAndReportsTheInvalidOnes() throws IOException {
+        ImportResultDto result = service.importar(stream("""
+                sku,nombre,categoria,precio,stock,caracteristicas
+                F-1,Foco LED 12W,Focos,"12,50",10,potencia=12W;color=Luz cálida
+                F-2,"Panel ""slim"", 18W",Paneles,35,4,
+                F-3,Foco sin precio válido,Focos,consultar,1,
+                ,,Focos,10,1,
+                F-1,Foco repetido,Focos,10,1,
+                F-4,Tira LED,Tiras,20
+                F-5,"Reflector
+                exterior",Reflectores,80,-3,
+                F-6,Reflector 50W,Reflectores,80,2,protección=IP65
+                """), ProductImportService.Formato.CSV);
+
+        assertThat(result.filas()).isEqualTo(8);
+        assertThat(result.creados()).isEqualTo(3);
+        assertThat(result.actualizados()).isZero();
+        assertThat(result.errores())
+                .extracting(ImportResultDto.FilaConError::fila, ImportResultDto.FilaConError::mensaje)
+                .containsExactly(
+                        tuple(4, "Precio inválido: consultar"),
+                        tuple(5, "Falta el nombre"),
+                        tuple(6, "SKU repetido en el archivo"),
+                        tuple(7, "Se esperaban 6 columnas y hay 4"),
+                        tuple(8, "Stock negativo: -3"));
+
+        assertThat(jdbc.queryForObject("SELECT nombre FROM productos WHERE sku = 'F-2'", String.class))
+                .isEqualTo("Panel \"slim\", 18W");
+        assertThat(jdbc.queryForObject("SELECT precio_centavos FROM productos WHERE sku = 'F-1'", Long.class))
+                .isEqualTo(1250L);
+        assertThat(caracteristicas("F-1")).isEqualTo(Map.of("potencia", "12W", "color", "Luz cálida"));
+
+        // Un solo aviso al índice, con todos los productos guardados
+        assertThat(events).hasSize(1);
+        assertThat(((CatalogChangeEvent.CatalogImported) events.get(0)).productIds()).hasSize(3);
+    }
+
+    @Test
+    void upsertsBySkuFromJsonLines() throws IOException {
+        service.importar(stream("""
+                sku;nombre;precio;caracteristicas
+                F-1;Foco LED;10;"potencia=9W;color=blanco"
+                """), ProductImportService.Formato.CSV);
+
+        ImportResultDto result = service.importar(stream("""
+                {"sku": "F-1", "nombre": "Foco LED 12W", "precio": 12.5, "stock": 7, "caracteristicas": {"potencia": "12W"}}
+                {"nombre": "Plafón sin SKU", "precio": "40"}
+                {"sku": "F-9", "nombre": "Sensor",
+                {"sku": "F-8", "nombre": "Sensor", "color": "blanco"}
+                """), ProductImportService.Formato.JSONL);
+
+        assertThat(result.creados()).isEqualTo(1);
+        assertThat(result.actualizados()).isEqualTo(1);
+        assertThat(result.errores()).extracting(ImportResultDto.FilaConError::fila).containsExactly(3, 4);
+        assertThat(result.errores().get(1).mensaje()).isEqualTo("Campo desconocido: color");
+
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM productos", Integer.class)).isEqualTo(2);
+        assertThat(jdbc.queryForMap("SELECT nombre, precio_centavos, stock FROM productos WHERE sku = 'F-1'"))
+                .containsEntry("NOMBRE", "Foco LED 12W")
+                .containsEntry("PRECIO_CENTAVOS", 1250L)
+                .containsEntry("STOCK", 7);
+        assertThat(caracteristicas("F-1")).isEqualTo(Map.of("potencia", "12W"));
+    }
+
+    @Test
+    void aFailedBatchIsRolledBackAndTheRestIsKept() throws IOException {
+        ImportResultDto result = service.importar(stream("""
+                sku,nombre
+                A-1,Foco 1
+                A-2,Foco 2
+                A-3,Un nombre demasiado largo para la columna de prueba
+                A-4,Foco 4
+                A-5,Foco 5
+                """), ProductImportService.Formato.CSV);
+
+        // Bloques de 2: [A-1, A-2] ok, [A-3, A-4] falla entero, [A-5] ok
+        assertThat(result.creados()).isEqualTo(3);
+        assertThat(result.conError()).isEqualTo(2);
+        assertThat(result.errores()).extracting(ImportResultDto.FilaConError::sku).containsExactly("A-3", "A-4");
+        assertThat(jdbc.queryForList("SELECT sku FROM productos ORDER BY sku", String.class))
+                .containsExactly("A-1", "A-2", "A-5");
+    }
+
+    private Map<String, String> caracteristicas(String sku) {
+        Map<String, String> result = new HashMap<>();
+        jdbc.query("""
+                SELECT c.nombre, c.valor FROM producto_caracteristicas c
+                JOIN productos p ON p.id = c.producto_id WHERE p.sku = ?""",
+                rs -> {
+                    result.put(rs.getString(1), rs.getString(2));
+                }, sku);
+        return result;
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
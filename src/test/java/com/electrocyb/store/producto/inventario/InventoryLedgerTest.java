@@ -0,0 +1,132 @@
+package com.electrocyb.store.producto.inventario;
+
+import com.electrocyb.store.producto.CatalogChangeEvent;
+import com.electrocyb.store.producto.StockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventoryLedgerTest {
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private InventoryLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:inventory;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        tx = new TransactionTemplate(transactionManager);
+        jdbc.execute("DROP TABLE IF EXISTS productos");
+        jdbc.execute("CREATE TABLE productos (id BIGINT PRIMARY KEY, nombre VARCHAR(255), stock INT)");
+        jdbc.update("INSERT INTO productos VALUES (1, 'Foco LED', 100), (2, 'Panel', 3)");
+
+        // Escritura periódica muy espaciada: el test llama a flush() cuando quiere
+        ledger = new InventoryLedger(jdbc, transactionManager, new StockRepository(jdbc), events::add,
+                true, Duration.ofHours(1), Duration.ofMinutes(2));
+        ledger.onApplicationReady();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledger.shutdown();
+    }
+
+    @Test
+    void hotProductIsNeverOversoldAndIsWrittenBackInOneBatch() throws Exception {
+        int compradores = 1000;
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger aceptados = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < compradores; i++) {
+            tareas.add(pool.submit(() -> {
+                salida.await();
+                if (ledger.reservar(Map.of(1L, 1)).isEmpty()) {
+                    aceptados.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(aceptados.get()).isEqualTo(100);
+        assertThat(ledger.disponible(1L)).isZero();
+        // Hasta la escritura, la base no se tocó
+        assertThat(stock(1L)).isEqualTo(100);
+
+        ledger.flush();
+        assertThat(stock(1L)).isZero();
+        assertThat(events).containsExactly(new CatalogChangeEvent.StockChanged(Set.of(1L)));
+    }
+
+    @Test
+    void reservationsFollowTheOrderTransaction() {
+        // Rollback del pedido: las unidades vuelven
+        tx.executeWithoutResult(status -> {
+            assertThat(ledger.reservar(Map.of(2L, 2))).isEmpty();
+            assertThat(ledger.disponible(2L)).isEqualTo(1);
+            status.setRollbackOnly();
+        });
+        assertThat(ledger.disponible(2L)).isEqualTo(3);
+
+        // Todo o nada: el panel no alcanza, así que el foco tampoco se reserva
+        assertThat(ledger.reservar(Map.of(1L, 5, 2L, 4, 99L, 1))).containsExactly(2L, 99L);
+        assertThat(ledger.disponible(1L)).isEqualTo(100);
+
+        // Commit: queda pendiente de escribir
+        tx.executeWithoutResult(status -> ledger.reservar(Map.of(2L, 1)));
+        ledger.flush();
+        assertThat(stock(2L)).isEqualTo(2);
+
+        // Una transacción que nunca termina: la reserva vence y se devuelve
+        TransactionTemplate colgada = new TransactionTemplate(tx.getTransactionManager());
+        colgada.executeWithoutResult(status -> {
+            ledger.reservar(Map.of(2L, 2));
+            ledger.liberarVencidas(System.nanoTime() + Duration.ofMinutes(3).toNanos());
+            assertThat(ledger.disponible(2L)).isEqualTo(2);
+            status.setRollbackOnly();
+        });
+        assertThat(ledger.disponible(2L)).isEqualTo(2);
+    }
+
+    @Test
+    void adminChangesAreReadBackKeepingUnwrittenSales() {
+        ledger.reservar(Map.of(1L, 10));
+
+        // El admin repone stock: la venta aún no escrita se sigue descontando
+        jdbc.update("UPDATE productos SET stock = 50 WHERE id = 1");
+        ledger.onCatalogChange(new CatalogChangeEvent.ProductUpdated(1L));
+        assertThat(ledger.disponible(1L)).isEqualTo(40);
+
+        ledger.flush();
+        assertThat(stock(1L)).isEqualTo(40);
+
+        jdbc.update("INSERT INTO productos VALUES (3, 'Tira LED', 7)");
+        assertThat(ledger.reservar(Map.of(3L, 7))).isEmpty();
+    }
+
+    private int stock(Long id) {
+        return jdbc.queryForObject("SELECT stock FROM productos WHERE id = ?", Integer.class, id);
+    }
+}
@@ -0,0 +1,95 @@
+package com.electrocyb.store.producto.ranking;
+
+import com.electrocyb.store.producto.ranking.BestSellerLeaderboard.Window;
+import com.electrocyb.store.producto.related.OrderPlacedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BestSellerLeaderboardTest {
+
+    private JdbcTemplate jdbc;
+    private LocalDate hoy;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:bestsellers;DB_CLOSE_DELAY=-1"));
+        jdbc.execute("DROP TABLE IF EXISTS order_items");
+        jdbc.execute("DROP TABLE IF EXISTS pedidos");
+        jdbc.execute("CREATE TABLE pedidos (id BIGINT PRIMARY KEY, fecha TIMESTAMP)");
+        jdbc.execute("CREATE TABLE order_items (id BIGINT AUTO_INCREMENT PRIMARY KEY, pedido_id BIGINT, producto_id BIGINT, cantidad INT)");
+        hoy = LocalDate.now(BestSellerLeaderboard.ZONE);
+
+        // Pedido 1 (hace 40 días, fuera de toda ventana), 2 (hace 20 días), 3 y 4 (esta semana)
+        pedido(1, 40, 10L, 50);
+        pedido(2, 20, 20L, 6);
+        pedido(3, 2, 10L, 2, 30L, 1);
+        pedido(4, 0, 10L, 1, 30L, 4);
+    }
+
+    @Test
+    void ranksByUnitsSoldInEachWindow() {
+        BestSellerLeaderboard leaderboard = new BestSellerLeaderboard(jdbc);
+        leaderboard.rebuild();
+
+        assertThat(leaderboard.top(Window.LAST_7_DAYS, 10, id -> true))
+                .containsExactly(new BestSellerLeaderboard.Entry(30L, 5), new BestSellerLeaderboard.Entry(10L, 3));
+        assertThat(leaderboard.top(Window.LAST_30_DAYS, 10, id -> true))
+                .extracting(BestSellerLeaderboard.Entry::productoId)
+                .containsExactly(20L, 30L, 10L);
+        // Filtro (p. ej. categoría) y límite
+        assertThat(leaderboard.top(Window.LAST_30_DAYS, 1, id -> id != 20L))
+                .extracting(BestSellerLeaderboard.Entry::productoId)
+                .containsExactly(30L);
+    }
+
+    @Test
+    void countsOnlyNewOrdersAfterTheRebuild() {
+        BestSellerLeaderboard leaderboard = new BestSellerLeaderboard(jdbc);
+        leaderboard.rebuild();
+
+        // Ya estaba en la base al reconstruir: no se cuenta dos veces
+        leaderboard.onOrderPlaced(new OrderPlacedEvent(4L, Instant.now(), Map.of(10L, 1, 30L, 4)));
+        leaderboard.onOrderPlaced(new OrderPlacedEvent(5L, Instant.now(), Map.of(10L, 3)));
+
+        assertThat(leaderboard.top(Window.LAST_7_DAYS, 10, id -> true))
+                .containsExactly(new BestSellerLeaderboard.Entry(10L, 6), new BestSellerLeaderboard.Entry(30L, 5));
+    }
+
+    @Test
+    void salesLeaveEachWindowAsDaysPass() {
+        BestSellerLeaderboard leaderboard = new BestSellerLeaderboard(jdbc);
+        leaderboard.rebuild();
+
+        // En 5 días el pedido 3 (hace 2 días) sale de la semana; el 4 (hoy) sigue
+        assertThat(leaderboard.top(Window.LAST_7_DAYS, 10, id -> true, hoy.plusDays(5)))
+                .containsExactly(new BestSellerLeaderboard.Entry(30L, 4), new BestSellerLeaderboard.Entry(10L, 1));
+        // En 10 días el pedido 2 (hace 20 días) sale del mes
+        assertThat(leaderboard.top(Window.LAST_30_DAYS, 10, id -> true, hoy.plusDays(10)))
+                .extracting(BestSellerLeaderboard.Entry::productoId)
+                .containsExactly(30L, 10L);
+        // Lo que se vende hoy (día +10) entra en las dos ventanas
+        leaderboard.add(hoy.plusDays(10).toEpochDay(), 20L, 1);
+        assertThat(leaderboard.top(Window.LAST_7_DAYS, 10, id -> true, hoy.plusDays(10)))
+                .containsExactly(new BestSellerLeaderboard.Entry(20L, 1));
+        // Un mes sin ventas: todo caduca
+        assertThat(leaderboard.top(Window.LAST_30_DAYS, 10, id -> true, hoy.plusDays(45))).isEmpty();
+    }
+
+    private void pedido(long id, int diasAtras, Object... productoCantidad) {
+        Instant fecha = hoy.minusDays(diasAtras).atTime(12, 0).atZone(BestSellerLeaderboard.ZONE).toInstant();
+        jdbc.update("INSERT INTO pedidos (id, fecha) VALUES (?, ?)", id, Timestamp.from(fecha));
+        for (int i = 0; i < productoCantidad.length; i += 2) {
+            jdbc.update("INSERT INTO order_items (pedido_id, producto_id, cantidad) VALUES (?, ?, ?)",
+                    id, productoCantidad[i], productoCantidad[i + 1]);
+        }
+    }
+}
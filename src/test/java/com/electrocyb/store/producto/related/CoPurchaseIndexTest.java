@@ -0,0 +1,70 @@
+package com.electrocyb.store.producto.related;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoPurchaseIndexTest {
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:copurchase;DB_CLOSE_DELAY=-1"));
+        jdbc.execute("DROP TABLE IF EXISTS order_items");
+        jdbc.execute("CREATE TABLE order_items (id BIGINT AUTO_INCREMENT PRIMARY KEY, pedido_id BIGINT, producto_id BIGINT)");
+        // Pedido 1: foco + plafón + sensor; 2: foco + plafón; 3: foco + tira; 4: solo foco (no aporta pares)
+        insert(1, 10, 20, 30);
+        insert(2, 10, 20);
+        insert(3, 10, 40);
+        insert(4, 10);
+    }
+
+    @Test
+    void ranksNeighborsByOrdersInCommon() {
+        CoPurchaseIndex index = new CoPurchaseIndex(jdbc, 10, 1);
+        index.rebuild();
+
+        assertThat(index.neighbors(10L)).containsExactly(20L, 30L, 40L);
+        assertThat(index.neighbors(20L)).containsExactly(10L, 30L);
+        assertThat(index.neighbors(40L)).containsExactly(10L);
+        assertThat(index.neighbors(99L)).isEmpty();
+    }
+
+    @Test
+    void updatesOnlyWithNewOrdersAfterTheRebuild() {
+        CoPurchaseIndex index = new CoPurchaseIndex(jdbc, 10, 1);
+        index.rebuild();
+
+        // Ya estaba en order_items al reconstruir: no se cuenta dos veces
+        index.onOrderPlaced(new OrderPlacedEvent(3L, Instant.now(), Map.of(10L, 1, 40L, 1)));
+        assertThat(index.neighbors(10L)).containsExactly(20L, 30L, 40L);
+
+        index.onOrderPlaced(new OrderPlacedEvent(5L, Instant.now(), Map.of(10L, 1, 40L, 1)));
+        index.onOrderPlaced(new OrderPlacedEvent(6L, Instant.now(), Map.of(10L, 1, 40L, 1)));
+        assertThat(index.neighbors(10L)).containsExactly(40L, 20L, 30L);
+        assertThat(index.neighbors(40L)).containsExactly(10L);
+    }
+
+    @Test
+    void keepsTopNAboveMinimumSupport() {
+        CoPurchaseIndex index = new CoPurchaseIndex(jdbc, 1, 2);
+        index.rebuild();
+
+        assertThat(index.neighbors(10L)).containsExactly(20L);
+        assertThat(index.neighbors(30L)).isEmpty();
+        assertThat(index.neighbors(40L)).isEmpty();
+    }
+
+    private void insert(long pedidoId, long... productoIds) {
+        for (long productoId : productoIds) {
+            jdbc.update("INSERT INTO order_items (pedido_id, producto_id) VALUES (?, ?)", pedidoId, productoId);
+        }
+    }
+}
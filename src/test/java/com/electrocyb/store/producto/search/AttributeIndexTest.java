@@ -0,0 +1,88 @@
+package com.electrocyb.store.producto.search;
+
+import com.electrocyb.store.producto.Producto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AttributeIndexTest {
+
+    private final CatalogSnapshot catalog = CatalogSnapshot.build(1, List.of(
+            doc(1L, "Foco LED E27", "potencia", "12W", "color", "Luz cálida"),
+            doc(2L, "Foco LED E27", "potencia", "12 w", "color", "luz fría"),
+            doc(3L, "Foco LED alta potencia", "potencia", "20W", "color", "luz cálida"),
+            doc(4L, "Reflector exterior", "potencia", "50W", "protección", "IP65"),
+            doc(5L, "Tira LED 12W luz cálida", "largo", "500cm"),
+            doc(6L, "Lámpara de mesa")
+    ));
+
+    @Test
+    void parsesQuantitiesToCanonicalValues() {
+        assertThat(AttributeIndex.valueKey("12W")).isEqualTo("12w");
+        assertThat(AttributeIndex.valueKey(" 12,0 W ")).isEqualTo("12w");
+        assertThat(AttributeIndex.valueKey("150cm")).isEqualTo("1.5m");
+        assertThat(AttributeIndex.valueKey("IP 65")).isEqualTo("ip65");
+        assertThat(AttributeIndex.valueKey("Luz Cálida")).isEqualTo("luz calida");
+        assertThat(AttributeIndex.parseQuantity("12w").value()).isEqualByComparingTo(new BigDecimal("12"));
+        assertThat(AttributeIndex.parseQuantity("2x14")).isNull();
+        assertThat(AttributeIndex.parseQuantity("5050")).isNull();
+        assertThat(AttributeIndex.parseQuantity("e27")).isNull();
+    }
+
+    @Test
+    void resolvesSpecsFromTextByBitmapIntersection() {
+        assertThat(ids(catalog.matchAttributes("foco 12w luz calida"))).containsExactly(1L, 5L);
+        assertThat(ids(catalog.matchAttributes("foco 12 w"))).containsExactly(1L, 2L, 5L);
+        assertThat(ids(catalog.matchAttributes("reflector ip65"))).containsExactly(4L);
+        // Mismo atributo: OR; atributos distintos: AND
+        assertThat(ids(catalog.matchAttributes("foco 12w o 20w, luz calida"))).containsExactly(1L, 3L, 5L);
+        // Tira de 5 m escrita en otra unidad
+        assertThat(ids(catalog.matchAttributes("tira de 5 m"))).containsExactly(5L);
+    }
+
+    @Test
+    void unknownSpecValuesMatchNothingAndPlainTextIsIgnored() {
+        assertThat(ids(catalog.matchAttributes("foco 15w"))).isEmpty();
+        assertThat(catalog.matchAttributes("lampara para la sala")).isNull();
+        assertThat(catalog.matchAttributes("hasta 50 soles")).isNull();
+    }
+
+    @Test
+    void facetSearchUsesAttributesForSpecsAndTextForTheRest() {
+        FacetIndex.Selection none = new FacetIndex.Selection(Set.of(), Set.of(), Map.of());
+        assertThat(catalog.searchFacets("foco 12W luz cálida", none).documents())
+                .extracting(ProductSearchDocument::id)
+                .containsExactly(1L);
+
+        FacetIndex.Selection potencia = new FacetIndex.Selection(Set.of(), Set.of(),
+                Map.of("potencia", Set.of(AttributeIndex.valueKey("12 W"))));
+        assertThat(catalog.searchFacets("", potencia).documents())
+                .extracting(ProductSearchDocument::id)
+                .containsExactly(1L, 2L);
+    }
+
+    private List<Long> ids(BitSet ords) {
+        List<Long> result = new ArrayList<>();
+        for (int i = ords.nextSetBit(0); i >= 0; i = ords.nextSetBit(i + 1)) {
+            result.add(catalog.documents().get(i).id());
+        }
+        return result;
+    }
+
+    private static ProductSearchDocument doc(Long id, String nombre, String... caracteristicas) {
+        Producto p = new Producto();
+        p.setId(id);
+        p.setNombre(nombre);
+        p.setCategoria("Iluminación");
+        p.setStock(10);
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < caracteristicas.length; i += 2) {
+            map.put(caracteristicas[i], caracteristicas[i + 1]);
+        }
+        p.setCaracteristicas(map);
+        return ProductSearchDocument.of(p);
+    }
+}
@@ -0,0 +1,125 @@
+package com.electrocyb.store.producto.search;
+
+import com.electrocyb.store.producto.CatalogChangeEvent;
+import com.electrocyb.store.producto.Producto;
+import com.electrocyb.store.producto.SyntheticCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSearchIndexTest {
+
+    private List<Producto> productos;
+    private CatalogSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        productos = new ArrayList<>(SyntheticCatalog.generate(30, 11));
+        index = new CatalogSearchIndex(SyntheticCatalog.repository(productos));
+        index.rebuild();
+    }
+
+    @Test
+    void stockChangeSwapsDocumentsWithoutRebuildingIndexes() {
+        CatalogSnapshot before = index.current();
+        // Como Hibernate después del commit: entidades nuevas, mismos textos
+        Producto p1 = releido(1, 0);
+        Producto p2 = releido(2, 99);
+
+        index.onCatalogChange(new CatalogChangeEvent.StockChanged(Set.of(1L, 2L)));
+
+        CatalogSnapshot after = index.current();
+        assertThat(after.version()).isEqualTo(before.version() + 1);
+        assertThat(after.find(1L).orElseThrow().producto()).isSameAs(p1);
+        assertThat(after.find(2L).orElseThrow().producto().getStock()).isEqualTo(99);
+        assertThat(after.documents()).hasSameSizeAs(before.documents());
+        assertThat(after.spellCorrector()).isSameAs(before.spellCorrector());
+        assertThat(after.find(3L).orElseThrow()).isSameAs(before.find(3L).orElseThrow());
+        // El snapshot anterior no cambia: quien lo tomó sigue viendo el stock de antes
+        assertThat(before.find(2L).orElseThrow().producto()).isNotSameAs(p2);
+    }
+
+    @Test
+    void textOrPriceChangesRebuildTheIndexes() {
+        CatalogSnapshot before = index.current();
+        Producto renombrado = releido(5, 10);
+        renombrado.setNombre("Ventilador de techo silencioso");
+        index.onCatalogChange(new CatalogChangeEvent.ProductUpdated(5L));
+
+        CatalogSnapshot renamed = index.current();
+        assertThat(renamed.spellCorrector()).isNotSameAs(before.spellCorrector());
+        assertThat(renamed.findByNameContaining("ventilador", 5))
+                .extracting(ProductSearchDocument::id)
+                .containsExactly(5L);
+
+        Producto caro = releido(6, 10);
+        caro.setPrecioCentavos(999_999L);
+        index.onCatalogChange(new CatalogChangeEvent.ProductUpdated(6L));
+
+        CatalogSnapshot repriced = index.current();
+        assertThat(repriced.spellCorrector()).isNotSameAs(renamed.spellCorrector());
+        assertThat(repriced.matchPriceRange(999_000L, null).cardinality()).isEqualTo(1);
+        assertThat(repriced.contains(repriced.matchPriceRange(999_000L, null), 6L)).isTrue();
+    }
+
+    @Test
+    void createdDeletedAndImportedProductsReachTheIndex() {
+        Producto nuevo = new Producto();
+        nuevo.setId(100L);
+        nuevo.setNombre("Timbre inalámbrico");
+        nuevo.setCategoria("Hogar");
+        nuevo.setPrecio("45.00");
+        nuevo.setStock(3);
+        productos.add(nuevo);
+        index.onCatalogChange(new CatalogChangeEvent.ProductCreated(100L));
+        assertThat(index.current().find(100L)).isPresent();
+        assertThat(index.current().findByNameContaining("timbre", 5)).hasSize(1);
+
+        productos.remove(nuevo);
+        index.onCatalogChange(new CatalogChangeEvent.ProductDeleted(100L));
+        assertThat(index.current().find(100L)).isEmpty();
+        assertThat(index.current().documents()).hasSize(30);
+
+        productos.subList(20, 30).clear();
+        index.onCatalogChange(new CatalogChangeEvent.CatalogImported(Set.of(1L)));
+        assertThat(index.current().documents()).hasSize(20);
+
+        // Un producto que desapareció sin evento de borrado sale en la próxima recarga
+        productos.remove(0);
+        index.onCatalogChange(new CatalogChangeEvent.StockChanged(Set.of(1L)));
+        assertThat(index.current().find(1L)).isEmpty();
+    }
+
+    @Test
+    void swapRejectsDocumentsThatChangeIndexedFields() {
+        CatalogSnapshot snapshot = index.current();
+        Producto otro = releido(4, 10);
+        otro.setCategoria("Otra");
+
+        assertThatThrownBy(() -> snapshot.withDocuments(snapshot.version() + 1, List.of(ProductSearchDocument.of(otro))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Copia del producto con otro stock, que reemplaza al original en el "repositorio"
+    private Producto releido(long id, int stock) {
+        int i = (int) id - 1;
+        Producto original = productos.get(i);
+        Producto p = new Producto();
+        p.setId(original.getId());
+        p.setNombre(original.getNombre());
+        p.setCategoria(original.getCategoria());
+        p.setDescripcion(original.getDescripcion());
+        p.setPrecioCentavos(original.getPrecioCentavos());
+        p.setCaracteristicas(new HashMap<>(original.getCaracteristicas()));
+        p.setStock(stock);
+        productos.set(i, p);
+        return p;
+    }
+}
@@ -0,0 +1,111 @@
+package com.electrocyb.store.producto.search;
+
+import com.electrocyb.store.producto.ProductAdviceService;
+import com.electrocyb.store.producto.ProductSearchCache;
+import com.electrocyb.store.producto.Producto;
+import com.electrocyb.store.producto.ProductoRepository;
+import com.electrocyb.store.producto.ranking.BestSellerLeaderboard;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Índice en memoria: postings, búsquedas por nombre y texto, y el chatbot sin ir a la base de datos.
+ */
+class CatalogSnapshotTest {
+
+    private final List<Producto> productos = List.of(
+            producto(3L, "Tira LED 5m", "Tiras LED", "cinta flexible", "45.00", "color", "RGB"),
+            producto(1L, "Lámpara colgante nórdica", "Lámparas", "ideal para sala", "30.00", "potencia", "12W"),
+            producto(2L, "Foco LED 12W", "Focos", "luz cálida, bajo consumo", "15.00", "potencia", "12W")
+    );
+
+    private final CatalogSnapshot snapshot = CatalogSnapshot.build(1,
+            productos.stream().map(ProductSearchDocument::of).toList());
+
+    @Test
+    void findsByNameWithoutAccentsInIdOrder() {
+        assertThat(ids(snapshot.documents())).containsExactly(1L, 2L, 3L);
+        assertThat(ids(snapshot.findByNameContaining("lampara", 10))).containsExactly(1L);
+        assertThat(ids(snapshot.findByNameContaining("led", 10))).containsExactly(2L, 3L);
+        assertThat(ids(snapshot.findByNameContaining("led", 1))).containsExactly(2L);
+        assertThat(ids(snapshot.findByNameContaining("led 12", 10))).containsExactly(2L);
+        // Pedazos en medio de una palabra también cuentan, como con contains
+        assertThat(ids(snapshot.findByNameContaining("2w", 10))).containsExactly(2L);
+        assertThat(ids(snapshot.findByNameContaining("ordi", 10))).containsExactly(1L);
+        // Está en la descripción, no en el nombre
+        assertThat(snapshot.findByNameContaining("cinta", 10)).isEmpty();
+
+        assertThat(ids(snapshot.findByIds(List.of(3L, 99L, 1L)))).containsExactly(3L, 1L);
+        assertThat(snapshot.find(2L)).map(ProductSearchDocument::nombre).contains("foco led 12w");
+        assertThat(snapshot.find(99L)).isEmpty();
+    }
+
+    @Test
+    void nameCandidatesAndRelevanceUseThePostings() {
+        assertThat(ids(snapshot.findNameCandidates("quiero una lampara para la sala"))).contains(1L).doesNotContain(3L);
+        assertThat(ids(snapshot.findNameCandidates("tira led"))).containsExactly(2L, 3L);
+
+        // Términos (ya con stemming) de la descripción y de las características también puntúan
+        assertThat(snapshot.scoreRelevance(Map.of(Bm25fIndex.stem("cinta"), 1.0)))
+                .extracting(s -> s.document().id()).containsExactly(3L);
+        assertThat(snapshot.scoreRelevance(Map.of(Bm25fIndex.stem("12w"), 1.0)))
+                .extracting(s -> s.document().id()).containsExactly(1L, 2L);
+        assertThat(snapshot.scoreRelevance(Map.of(Bm25fIndex.stem("inexistente"), 1.0))).isEmpty();
+    }
+
+    @Test
+    void chatbotSearchesDoNotTouchTheRepositoryOnceBuilt() {
+        AtomicInteger llamadas = new AtomicInteger();
+        ProductoRepository contado = (ProductoRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{ProductoRepository.class},
+                (proxy, method, args) -> {
+                    llamadas.incrementAndGet();
+                    return switch (method.getName()) {
+                        case "findAll", "findAllWithCaracteristicas" -> new ArrayList<>(productos);
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+
+        CatalogSearchIndex index = new CatalogSearchIndex(contado);
+        index.rebuild();
+        assertThat(llamadas.get()).isPositive();
+        llamadas.set(0);
+
+        ProductAdviceService service = new ProductAdviceService(index, new ProductoFullTextRepository(null),
+                new ProductSearchCache(index, 0, Duration.ofMinutes(10)), new ParallelScorer(1, 4096),
+                new BestSellerLeaderboard(null), "memory");
+        assertThat(service.findProductsForMessage("foco led").products()).extracting(Producto::getId).contains(2L);
+        service.findProductsForMessage("algo para la sala hasta 50 soles");
+        service.findProductsForMessage("quiero ver todo el catalogo");
+
+        assertThat(llamadas.get()).isZero();
+    }
+
+    private static List<Long> ids(List<ProductSearchDocument> documents) {
+        return documents.stream().map(ProductSearchDocument::id).toList();
+    }
+
+    private static Producto producto(Long id, String nombre, String categoria, String descripcion,
+                                     String precio, String clave, String valor) {
+        Producto p = new Producto();
+        p.setId(id);
+        p.setNombre(nombre);
+        p.setCategoria(categoria);
+        p.setDescripcion(descripcion);
+        p.setPrecio(precio);
+        p.setStock(5);
+        Map<String, String> caracteristicas = new LinkedHashMap<>();
+        caracteristicas.put(clave, valor);
+        p.setCaracteristicas(caracteristicas);
+        return p;
+    }
+}
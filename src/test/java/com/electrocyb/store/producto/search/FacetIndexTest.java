@@ -0,0 +1,111 @@
+package com.electrocyb.store.producto.search;
+
+import com.electrocyb.store.producto.Producto;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FacetIndexTest {
+
+    private static final FacetIndex.Selection NINGUNA = new FacetIndex.Selection(Set.of(), Set.of(), Map.of());
+
+    private final List<ProductSearchDocument> documents = List.of(
+            doc(1L, "Focos", 1_500L, "potencia", "12W"),
+            doc(2L, "Focos", 3_500L, "potencia", "12 w"),
+            doc(3L, "Focos", 4_000L, "potencia", "20W"),
+            doc(4L, " Exterior ", 8_000L, "potencia", "50W"),
+            doc(5L, "Lámparas", 25_000L),
+            doc(6L, null, null)
+    );
+
+    @Test
+    void countsEachFacetIgnoringItsOwnFilter() {
+        FacetIndex index = FacetIndex.build(documents);
+        FacetIndex.Result todo = index.search(all(), NINGUNA);
+
+        assertThat(todo.matches().cardinality()).isEqualTo(6);
+        assertThat(counts(todo.categorias())).containsExactly("focos=3", "exterior=1", "lamparas=1");
+        assertThat(todo.categorias().get(1).label()).isEqualTo("Exterior");
+        assertThat(counts(todo.precios())).containsExactly("0-20=1", "20-50=2", "50-100=1", "200+=1");
+        assertThat(counts(todo.caracteristicas().get(0).valores())).containsExactly("12w=2", "20w=1", "50w=1");
+
+        // Precio 20-50 y potencia 12W: OR dentro de una faceta, AND entre facetas
+        FacetIndex.Result filtrado = index.search(all(), new FacetIndex.Selection(
+                Set.of(), Set.of("20-50", "0-20"), Map.of("potencia", Set.of("12w"))));
+        assertThat(ids(filtrado.matches())).containsExactly(1L, 2L);
+        // Los tramos cuentan con el filtro de potencia pero no con el suyo
+        assertThat(counts(filtrado.precios())).containsExactly("0-20=1", "20-50=1");
+        // La potencia cuenta con el filtro de precio pero no con el suyo
+        assertThat(counts(filtrado.caracteristicas().get(0).valores())).containsExactly("12w=2", "20w=1");
+    }
+
+    @Test
+    void updatedIndexMatchesAFullBuildAndLeavesThePreviousOneIntact() {
+        FacetIndex before = FacetIndex.build(documents);
+        List<ProductSearchDocument> after = new ArrayList<>(documents);
+        after.set(0, doc(1L, "Exterior", 30_000L, "potencia", "100W"));
+        after.set(4, documents.get(4).refreshedFor(documents.get(4).producto()));
+
+        FacetIndex updated = before.updated(documents, after);
+
+        FacetIndex.Selection seleccion = new FacetIndex.Selection(Set.of("exterior"), Set.of(), Map.of());
+        for (FacetIndex.Selection s : List.of(NINGUNA, seleccion)) {
+            assertThat(snapshot(updated.search(all(), s))).isEqualTo(snapshot(FacetIndex.build(after).search(all(), s)));
+        }
+        assertThat(counts(updated.search(all(), NINGUNA).categorias())).containsExactly("exterior=2", "focos=2", "lamparas=1");
+        assertThat(counts(before.search(all(), NINGUNA).categorias())).containsExactly("focos=3", "exterior=1", "lamparas=1");
+
+        // Sin cambios de facetas: el mismo índice
+        assertThat(before.updated(documents, new ArrayList<>(documents))).isSameAs(before);
+    }
+
+    @Test
+    void addedOrRemovedProductsRebuildFromScratch() {
+        FacetIndex before = FacetIndex.build(documents);
+        List<ProductSearchDocument> menos = documents.subList(1, documents.size());
+
+        FacetIndex updated = before.updated(documents, menos);
+
+        assertThat(snapshot(updated.search(allOf(5), NINGUNA)))
+                .isEqualTo(snapshot(FacetIndex.build(menos).search(allOf(5), NINGUNA)));
+    }
+
+    private static BitSet all() {
+        return allOf(6);
+    }
+
+    private static BitSet allOf(int n) {
+        BitSet bits = new BitSet(n);
+        bits.set(0, n);
+        return bits;
+    }
+
+    private static List<String> counts(List<FacetIndex.Count> counts) {
+        return counts.stream().map(c -> c.valor() + "=" + c.count()).toList();
+    }
+
+    private static String snapshot(FacetIndex.Result r) {
+        return r.matches() + " " + counts(r.categorias()) + " " + counts(r.precios()) + " "
+                + r.caracteristicas().stream().map(a -> a.clave() + counts(a.valores())).toList();
+    }
+
+    private static List<Long> ids(BitSet ords) {
+        return ords.stream().mapToObj(i -> (long) i + 1).toList();
+    }
+
+    private static ProductSearchDocument doc(Long id, String categoria, Long centavos, String... caracteristicas) {
+        Producto p = new Producto();
+        p.setId(id);
+        p.setNombre("Producto " + id);
+        p.setCategoria(categoria);
+        p.setPrecioCentavos(centavos);
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < caracteristicas.length; i += 2) {
+            map.put(caracteristicas[i], caracteristicas[i + 1]);
+        }
+        p.setCaracteristicas(map);
+        return ProductSearchDocument.of(p);
+    }
+}
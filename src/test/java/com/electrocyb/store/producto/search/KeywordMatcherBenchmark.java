@@ -0,0 +1,66 @@
+package com.electrocyb.store.producto.search;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KeywordMatcher (una pasada) contra la cadena de String.contains que usaban
+ * ProductAdviceService.containsAny y ChatService.detectIntent.
+ *
+ * Ejecutar: mvn test-compile y lanzar main() con el classpath de test.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeywordMatcherBenchmark {
+
+    private static final List<Set<String>> TABLES = List.of(
+            ProductKeywords.ROOM_KEYWORDS,
+            ProductKeywords.SIGN_KEYWORDS,
+            ProductKeywords.LAMP_KEYWORDS,
+            ProductKeywords.STRIP_KEYWORDS,
+            ProductKeywords.CATALOG_MENTION_KEYWORDS,
+            ProductKeywords.WANTS_EVERYTHING_KEYWORDS
+    );
+
+    @Param({
+            "quiero una tira led para el letrero de mi tienda",
+            "hola buenas tardes tienen delivery a surco",
+            "plafon led 24w luz calida ideal para sala comedor y dormitorio con instalacion sencilla potencia 24w color calida"
+    })
+    public String text;
+
+    @Benchmark
+    public long containsChain() {
+        long mask = 0L;
+        for (int g = 0; g < TABLES.size(); g++) {
+            for (String kw : TABLES.get(g)) {
+                if (text.contains(kw)) {
+                    mask |= 1L << g;
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+
+    @Benchmark
+    public long keywordMatcher() {
+        return ProductKeywords.match(text);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(KeywordMatcherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
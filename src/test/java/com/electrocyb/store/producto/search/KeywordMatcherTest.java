@@ -0,0 +1,78 @@
+package com.electrocyb.store.producto.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeywordMatcherTest {
+
+    private enum G { A, B, C }
+
+    @Test
+    void reportsEveryGroupInOnePass() {
+        KeywordMatcher<G> matcher = KeywordMatcher.builder(G.class)
+                .add(G.A, "he", "hers")
+                .add(G.B, "she")
+                .add(G.C, "his")
+                .build();
+
+        assertThat(matcher.match("ushers")).containsExactlyInAnyOrder(G.A, G.B);
+        assertThat(matcher.match("this")).containsExactly(G.C);
+        assertThat(matcher.match("xyz")).isEmpty();
+        assertThat(matcher.match("")).isEmpty();
+        assertThat(matcher.match(null)).isEmpty();
+    }
+
+    @Test
+    void keywordSharedByGroupsReportsAllOfThem() {
+        KeywordMatcher<G> matcher = KeywordMatcher.builder(G.class)
+                .add(G.A, "producto")
+                .add(G.B, "producto", "cambio")
+                .build();
+
+        assertThat(matcher.match("cambio de producto")).containsExactlyInAnyOrder(G.A, G.B);
+    }
+
+    @Test
+    void handlesNonAsciiKeywords() {
+        long mask = ProductKeywords.match("luz de neón para baño");
+
+        assertThat(ProductKeywords.has(mask, ProductKeywords.Group.STRIP)).isTrue();
+        assertThat(ProductKeywords.has(mask, ProductKeywords.Group.ROOM)).isTrue();
+        assertThat(ProductKeywords.has(mask, ProductKeywords.Group.LAMP)).isFalse();
+    }
+
+    @Test
+    void agreesWithContainsChainOnRandomText() {
+        Map<ProductKeywords.Group, Set<String>> tables = Map.of(
+                ProductKeywords.Group.ROOM, ProductKeywords.ROOM_KEYWORDS,
+                ProductKeywords.Group.SIGN, ProductKeywords.SIGN_KEYWORDS,
+                ProductKeywords.Group.LAMP, ProductKeywords.LAMP_KEYWORDS,
+                ProductKeywords.Group.STRIP, ProductKeywords.STRIP_KEYWORDS,
+                ProductKeywords.Group.CATALOG_MENTION, ProductKeywords.CATALOG_MENTION_KEYWORDS,
+                ProductKeywords.Group.WANTS_EVERYTHING, ProductKeywords.WANTS_EVERYTHING_KEYWORDS
+        );
+        String[] words = {"tira", "led", "lampara", "sala", "ver", "todo", "catalogo", "el", "neon",
+                "cinta", "letrero", "bano", "baño", "focos", "plafon", "pasadizo", "lista", "completa", "de", "x"};
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int len = 1 + random.nextInt(8);
+            for (int j = 0; j < len; j++) {
+                sb.append(words[random.nextInt(words.length)]);
+                sb.append(random.nextInt(4) == 0 ? "" : " ");
+            }
+            String text = sb.toString();
+
+            EnumSet<ProductKeywords.Group> expected = EnumSet.noneOf(ProductKeywords.Group.class);
+            tables.forEach((group, keywords) -> {
+                if (keywords.stream().anyMatch(text::contains)) expected.add(group);
+            });
+
+            assertThat(ProductKeywords.MATCHER.match(text)).as(text).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.electrocyb.store.producto.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelScorerTest {
+
+    private final ParallelScorer sequential = new ParallelScorer(1, Integer.MAX_VALUE);
+    private final ParallelScorer parallel = new ParallelScorer(4, 64);
+
+    @AfterEach
+    void tearDown() {
+        sequential.shutdown();
+        parallel.shutdown();
+    }
+
+    @Test
+    void parallelScoresMatchSequential() {
+        double[] expected = sequential.score(10_000, i -> Math.sin(i) * i);
+        double[] actual = parallel.score(10_000, i -> Math.sin(i) * i);
+
+        assertThat(actual).containsExactly(expected);
+    }
+
+    @Test
+    void topKIsDeterministicWithTies() {
+        Random random = new Random(7);
+        // Pocos valores distintos: muchos empates
+        double[] scores = IntStream.range(0, 20_000).mapToDouble(i -> random.nextInt(20)).toArray();
+
+        // Referencia: orden completo por puntaje desc y posición asc
+        int[] expected = IntStream.range(0, scores.length).boxed()
+                .filter(i -> i % 3 != 0)
+                .sorted(Comparator.comparingDouble((Integer i) -> -scores[i]).thenComparingInt(i -> i))
+                .limit(25)
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        assertThat(sequential.topK(scores, 25, i -> i % 3 != 0)).containsExactly(expected);
+        for (int run = 0; run < 20; run++) {
+            assertThat(parallel.topK(scores, 25, i -> i % 3 != 0)).containsExactly(expected);
+        }
+    }
+
+    @Test
+    void topKReturnsFewerWhenFewAccepted() {
+        double[] scores = {0.5, 0.9, 0.1, 0.9};
+
+        assertThat(sequential.topK(scores, 4, i -> i != 0)).containsExactly(1, 3, 2);
+        assertThat(sequential.topK(scores, 4, i -> false)).isEmpty();
+        assertThat(sequential.topK(scores, 0, i -> true)).isEmpty();
+    }
+}
@@ -0,0 +1,75 @@
+package com.electrocyb.store.producto.search;
+
+import com.electrocyb.store.producto.Producto;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchDocumentTest {
+
+    @Test
+    void precomputesNormalizedTexts() {
+        ProductSearchDocument d = ProductSearchDocument.of(producto("Lámpara  Colgante Nórdica", "Iluminación ",
+                "Ideal para SALA", Map.of("Potencia", "12W")));
+
+        assertThat(d.nombre()).isEqualTo("lampara  colgante nordica");
+        assertThat(d.nameTokens()).containsExactly("lampara", "colgante", "nordica");
+        assertThat(d.nombreCategoria()).isEqualTo("lampara  colgante nordica iluminacion ");
+        assertThat(d.fullText()).contains("lampara", "iluminacion", "ideal para sala", "potencia 12w");
+        assertThat(d.caracteristicasText()).isEqualTo("potencia 12w ");
+        assertThat(d.categoriaFacet()).isEqualTo("iluminacion");
+        assertThat(d.caracteristicasFacet()).containsExactly(Map.entry("potencia", "12w"));
+        assertThat(d.nombreLower()).isEqualTo("lámpara  colgante nórdica");
+        assertThat(d.claseKeywords() & ProductKeywords.match("lampara")).isNotZero();
+    }
+
+    @Test
+    void reusesTextsWhenOnlyStockChanges() {
+        Producto p = producto("Foco LED 12W", "Focos", "Luz cálida", Map.of("potencia", "12W"));
+        ProductSearchDocument d = ProductSearchDocument.of(p);
+
+        // Mismo objeto: mismo documento
+        assertThat(d.refreshedFor(p)).isSameAs(d);
+
+        // Entidad releída con otro stock: documento nuevo que comparte los textos ya calculados
+        Producto releido = producto("Foco LED 12W", "Focos", "Luz cálida", Map.of("potencia", "12W"));
+        releido.setStock(0);
+        ProductSearchDocument refrescado = d.refreshedFor(releido);
+        assertThat(refrescado).isNotSameAs(d);
+        assertThat(refrescado.producto().getStock()).isZero();
+        assertThat(refrescado.fullText()).isSameAs(d.fullText());
+        assertThat(refrescado.nameTokens()).isSameAs(d.nameTokens());
+        assertThat(refrescado.indexesSameAs(d)).isTrue();
+    }
+
+    @Test
+    void recomputesWhenATextOrCharacteristicChanges() {
+        ProductSearchDocument d = ProductSearchDocument.of(producto("Foco LED 12W", "Focos", "Luz cálida",
+                Map.of("potencia", "12W")));
+
+        ProductSearchDocument renombrado = d.refreshedFor(producto("Foco LED 18W", "Focos", "Luz cálida",
+                Map.of("potencia", "12W")));
+        assertThat(renombrado.nombre()).isEqualTo("foco led 18w");
+        assertThat(renombrado.indexesSameAs(d)).isFalse();
+
+        ProductSearchDocument otraPotencia = d.refreshedFor(producto("Foco LED 12W", "Focos", "Luz cálida",
+                Map.of("potencia", "18W")));
+        assertThat(otraPotencia.caracteristicasText()).isEqualTo("potencia 18w ");
+        assertThat(otraPotencia.indexesSameAs(d)).isFalse();
+    }
+
+    private static Producto producto(String nombre, String categoria, String descripcion, Map<String, String> caracteristicas) {
+        Producto p = new Producto();
+        p.setId(1L);
+        p.setNombre(nombre);
+        p.setCategoria(categoria);
+        p.setDescripcion(descripcion);
+        p.setPrecio("12.00");
+        p.setStock(10);
+        p.setCaracteristicas(new LinkedHashMap<>(caracteristicas));
+        return p;
+    }
+}
@@ -0,0 +1,53 @@
+package com.electrocyb.store.producto.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpellCorrectorTest {
+
+    private final SpellCorrector corrector = SpellCorrector.of(Map.of(
+            "lampara", 10,
+            "lamparas", 2,
+            "reflector", 5,
+            "sensor", 4,
+            "movimiento", 3,
+            "panel,", 6,
+            "12w", 8
+    ));
+
+    @Test
+    void correctsCommonTypos() {
+        assertThat(corrector.correct("lampra")).isEqualTo("lampara");      // falta una letra
+        assertThat(corrector.correct("lmapara")).isEqualTo("lampara"); // transposición
+        assertThat(corrector.correct("reflectr")).isEqualTo("reflector");
+        assertThat(corrector.correct("movimento")).isEqualTo("movimiento");
+        assertThat(corrector.correct("sensr")).isEqualTo("sensor");
+    }
+
+    @Test
+    void leavesKnownShortAndDistantWordsAlone() {
+        assertThat(corrector.correct("lamparas")).isEqualTo("lamparas");
+        assertThat(corrector.correct("hola")).isEqualTo("hola");
+        assertThat(corrector.correct("cocina")).isEqualTo("cocina");
+        // 7 letras o menos solo tolera un error
+        assertThat(corrector.correct("snsr")).isEqualTo("snsr");
+        assertThat(corrector.correct("lmpra")).isEqualTo("lmpra");
+    }
+
+    @Test
+    void vocabularyIgnoresPunctuationAndNumbers() {
+        assertThat(corrector.isKnown("panel")).isTrue();
+        assertThat(corrector.isKnown("12w")).isFalse();
+        assertThat(corrector.correct("panell")).isEqualTo("panel");
+    }
+
+    @Test
+    void distanceCountsAdjacentTranspositionAsOneEdit() {
+        assertThat(SpellCorrector.distance("lampara", "lmapara", 2)).isEqualTo(1);
+        assertThat(SpellCorrector.distance("sensor", "sensor", 2)).isZero();
+        assertThat(SpellCorrector.distance("abc", "xyz", 1)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,83 @@
+package com.electrocyb.store.producto.search;
+
+import com.electrocyb.store.producto.Producto;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestIndexTest {
+
+    private final CatalogSnapshot catalog = CatalogSnapshot.build(1, List.of(
+            doc(1L, "Lámpara colgante nórdica", "Lámparas", 3),
+            doc(2L, "Lámpara de pie", "Lámparas", 12),
+            doc(3L, "Foco LED 12W", "Focos", 40),
+            doc(4L, "Tira LED RGB 5m", "Tiras LED", 0),
+            doc(5L, "Reflector 50W", "Exterior", 7)
+    ));
+
+    @Test
+    void matchesPrefixesIgnoringAccentsAndCase() {
+        assertThat(textos(catalog.suggest("lám", 10)))
+                .containsExactly("Lámpara de pie", "Lámpara colgante nórdica", "lampara", "Lámparas");
+        assertThat(textos(catalog.suggest("LAMPARA D", 10))).containsExactly("Lámpara de pie");
+        assertThat(textos(catalog.suggest("  nordi ", 10))).containsExactly("Lámpara colgante nórdica");
+    }
+
+    @Test
+    void matchesFromAnyWordOfTheName() {
+        assertThat(textos(catalog.suggest("rgb", 10))).containsExactly("Tira LED RGB 5m");
+        assertThat(catalog.suggest("12", 10))
+                .extracting(SuggestIndex.Suggestion::productoId)
+                .containsExactly(3L);
+    }
+
+    @Test
+    void includesSynonymsThatFindProducts() {
+        // "ampolleta" no aparece en el catálogo, pero su grupo (foco, led, luz...) sí encuentra productos
+        assertThat(catalog.suggest("ampo", 10))
+                .extracting(SuggestIndex.Suggestion::tipo, SuggestIndex.Suggestion::texto)
+                .containsExactly(Tuple.tuple(SuggestIndex.Tipo.BUSQUEDA, "ampolleta"));
+        // "camara" sí es sinónimo, pero ningún producto lo tiene
+        assertThat(catalog.suggest("cama", 10)).isEmpty();
+    }
+
+    @Test
+    void keepsTopKByPopularityAndHonoursLimit() {
+        List<SuggestIndex.Suggestion> top = catalog.suggest("l", 3);
+        assertThat(top).hasSize(3);
+        assertThat(top).isSortedAccordingTo((a, b) -> Long.compare(b.popularidad(), a.popularidad()));
+
+        List<ProductSearchDocument> many = new ArrayList<>();
+        for (long i = 1; i <= 50; i++) {
+            many.add(doc(i, "Plafón redondo " + i, "Plafones", (int) i));
+        }
+        List<SuggestIndex.Suggestion> plafones = CatalogSnapshot.build(1, many).suggest("plafon r", SuggestIndex.TOP_K);
+        assertThat(plafones).hasSize(SuggestIndex.TOP_K);
+        assertThat(plafones.get(0).productoId()).isEqualTo(50L);
+        assertThat(plafones.get(SuggestIndex.TOP_K - 1).productoId()).isEqualTo(41L);
+    }
+
+    @Test
+    void unknownOrEmptyPrefixReturnsNothing() {
+        assertThat(catalog.suggest("xyz", 10)).isEmpty();
+        assertThat(catalog.suggest("   ", 10)).isEmpty();
+        assertThat(catalog.suggest(null, 10)).isEmpty();
+    }
+
+    private static List<String> textos(List<SuggestIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestIndex.Suggestion::texto).toList();
+    }
+
+    private static ProductSearchDocument doc(Long id, String nombre, String categoria, int stock) {
+        Producto p = new Producto();
+        p.setId(id);
+        p.setNombre(nombre);
+        p.setCategoria(categoria);
+        p.setStock(stock);
+        return ProductSearchDocument.of(p);
+    }
+}